@@ -0,0 +1,60 @@
+//****************************************************
+//File: BoardConstructionBenchmark
+//
+//Purpose: Measures building a chess board, which runs
+//		   createSquares and createHeuristics, for the
+//		   Square-per-object board and the compact
+//		   board.
+//****************************************************
+
+package thesecretsquad.Chess.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import thesecretsquad.Chess.ChessBoard;
+import thesecretsquad.Chess.CompactChessBoard;
+import thesecretsquad.Chess.Knight;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BoardConstructionBenchmark {
+	@Param({ "8", "64", "256", "1000" })
+	public int boardSize; // Dimension of the board
+
+	private final Knight knight = new Knight(); // Knight placed on each board
+
+	// ************************************************
+	// Method: squareBoard()
+	//
+	// Purpose: Builds a board of Square objects.
+	// ************************************************
+	@Benchmark
+	public ChessBoard squareBoard() {
+		return new ChessBoard(knight, boardSize);
+	}
+
+	// ************************************************
+	// Method: compactBoard()
+	//
+	// Purpose: Builds a board of flat arrays.
+	// ************************************************
+	@Benchmark
+	public ChessBoard compactBoard() {
+		return new CompactChessBoard(knight, boardSize);
+	}
+}
@@ -0,0 +1,89 @@
+//****************************************************
+//File: FindBestMoveBenchmark
+//
+//Purpose: Measures Knight.findBestMove, together with
+//		   the findNumOfPossibleMoves and
+//		   findPossibleMoves calls that feed it, on a
+//		   board half way through a tour, where the
+//		   knight has a mix of visited and unvisited
+//		   neighbors.
+//****************************************************
+
+package thesecretsquad.Chess.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import thesecretsquad.Chess.ChessBoard;
+import thesecretsquad.Chess.Knight;
+import thesecretsquad.Chess.TieBreaker;
+import thesecretsquad.Chess.KnightsTour.Tour;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FindBestMoveBenchmark {
+	@Param({ "8", "64", "256", "1000" })
+	public int boardSize; // Dimension of the board
+
+	@Param({ "MOVE_ORDER", "FURTHEST_FROM_CENTER", "SECONDARY_DEGREE" })
+	public TieBreaker tieBreaker; // Rule for equally accessible moves
+
+	private ChessBoard chessBoard; // Board half way through a tour
+	private Knight knight; // Knight standing on that board
+
+	// ************************************************
+	// Method: setUp()
+	//
+	// Purpose: Plays half of a tour, then marks the
+	// square the knight stands on so the board
+	// looks as it does just before a move is
+	// chosen.
+	// ************************************************
+	@Setup
+	public void setUp() {
+		Tour tour = new Tour(0, 0, boardSize);
+		int halfway = boardSize * boardSize / 2;
+
+		tour.setTieBreaker(TieBreaker.FURTHEST_FROM_CENTER);
+
+		while (tour.getKnight().getMoveCounter() < halfway) {
+			tour.move();
+		}
+
+		chessBoard = tour.getChessBoard();
+		knight = tour.getKnight();
+		chessBoard.markBoardSquare(knight.getCurrentRow(),
+				knight.getCurrentCol(), knight.getMoveCounter());
+		chessBoard.lowerAccessibility();
+		knight.setTieBreaker(tieBreaker);
+	}
+
+	// ************************************************
+	// Method: findBestMove()
+	//
+	// Purpose: Lists the knight's possible moves and
+	// picks the best of them.
+	// ************************************************
+	@Benchmark
+	public int findBestMove() {
+		int numPossibleMoves = knight.findNumOfPossibleMoves(chessBoard);
+
+		return knight.findBestMove(chessBoard,
+				knight.findPossibleMoves(chessBoard, numPossibleMoves));
+	}
+}
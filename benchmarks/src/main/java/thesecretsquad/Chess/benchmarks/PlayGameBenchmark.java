@@ -0,0 +1,57 @@
+//****************************************************
+//File: PlayGameBenchmark
+//
+//Purpose: Measures a whole greedy tour from a fresh
+//		   Tour, including building its board. This is
+//		   playGame without the console output, which
+//		   would otherwise swamp the measurement on
+//		   large boards.
+//****************************************************
+
+package thesecretsquad.Chess.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import thesecretsquad.Chess.TieBreaker;
+import thesecretsquad.Chess.KnightsTour.Tour;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PlayGameBenchmark {
+	@Param({ "8", "16", "32", "64", "128", "256", "512", "1000" })
+	public int boardSize; // Dimension of the board
+
+	@Param({ "MOVE_ORDER", "FURTHEST_FROM_CENTER" })
+	public TieBreaker tieBreaker; // Rule for equally accessible moves
+
+	// ************************************************
+	// Method: playGame()
+	//
+	// Purpose: Plays a tour from the top left square and
+	// returns the number of squares visited.
+	// ************************************************
+	@Benchmark
+	public int playGame() {
+		Tour tour = new Tour(0, 0, boardSize);
+
+		tour.setTieBreaker(tieBreaker);
+		tour.solve();
+
+		return tour.getKnight().getMoveCounter();
+	}
+}
@@ -0,0 +1,38 @@
+//****************************************************
+//File: RunBenchmarks
+//
+//Purpose: Entry point of benchmarks.jar. Runs the
+//		   benchmarks selected on the command line,
+//		   which takes the usual JMH options, with the
+//		   GC profiler always attached so every result
+//		   also reports bytes allocated per operation
+//		   and garbage collection counts.
+//
+//		   java -jar benchmarks/target/benchmarks.jar
+//		   java -jar benchmarks/target/benchmarks.jar PlayGame -p boardSize=1000
+//****************************************************
+
+package thesecretsquad.Chess.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+public class RunBenchmarks {
+	// ****************************************************
+	// Method: main
+	//
+	// Purpose: Parses the JMH options and runs the
+	// benchmarks.
+	// ****************************************************
+	public static void main(String[] args) throws CommandLineOptionException,
+			RunnerException {
+		CommandLineOptions commandLine = new CommandLineOptions(args);
+
+		new Runner(new OptionsBuilder().parent(commandLine)
+				.addProfiler(GCProfiler.class).build()).run();
+	}
+}
@@ -0,0 +1,74 @@
+//****************************************************
+//File: TourMoveBenchmark
+//
+//Purpose: Measures the cost of a single Tour.move
+//		   step. When the knight runs out of moves the
+//		   board is reset in place and the knight put
+//		   back on its start square; that cost is
+//		   spread over every move of the tour.
+//****************************************************
+
+package thesecretsquad.Chess.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import thesecretsquad.Chess.TieBreaker;
+import thesecretsquad.Chess.KnightsTour.Tour;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TourMoveBenchmark {
+	@Param({ "8", "64", "256", "1000" })
+	public int boardSize; // Dimension of the board
+
+	@Param({ "MOVE_ORDER", "FURTHEST_FROM_CENTER" })
+	public TieBreaker tieBreaker; // Rule for equally accessible moves
+
+	private Tour tour; // Tour being stepped through
+
+	// ************************************************
+	// Method: setUp()
+	//
+	// Purpose: Creates the tour.
+	// ************************************************
+	@Setup
+	public void setUp() {
+		tour = new Tour(0, 0, boardSize);
+		tour.setTieBreaker(tieBreaker);
+	}
+
+	// ************************************************
+	// Method: move()
+	//
+	// Purpose: Makes one move, starting the tour again
+	// once it is over.
+	// ************************************************
+	@Benchmark
+	public int move() {
+		tour.move();
+
+		if (tour.hasMove() == false) {
+			tour.getChessBoard().resetBoard();
+			tour.setStartPosition(0, 0);
+			tour.getKnight().setMoveCounter(1);
+		}
+
+		return tour.getKnight().getMoveCounter();
+	}
+}
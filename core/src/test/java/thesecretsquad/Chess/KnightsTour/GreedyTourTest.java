@@ -0,0 +1,201 @@
+//****************************************************
+//File: GreedyTourTest
+//
+//Purpose: Checks that Tour plays exactly the tours of
+//		   the original greedy rule, on both the board
+//		   and the bitboard paths, by comparing every
+//		   square's move number with a plain
+//		   Warnsdorff tour played here on an int grid.
+//****************************************************
+
+package thesecretsquad.Chess.KnightsTour;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+import thesecretsquad.Chess.Knight;
+
+class GreedyTourTest {
+	private static final int MAX_BOARD_SIZE = 30; // Largest board compared
+
+	// ****************************************************
+	// Method: moveMatchesReference
+	//
+	// Purpose: Plays tours one move() at a time from
+	// several start squares of every board size
+	// and compares them with the reference.
+	// ****************************************************
+	@Test
+	void moveMatchesReference() {
+		for (int size = 1; size <= MAX_BOARD_SIZE; size++) {
+			for (int startRow = 0; startRow < size; startRow += 3) {
+				for (int startCol = 0; startCol < size; startCol += 2) {
+					Tour tour = new Tour(startRow, startCol, size);
+
+					do {
+						tour.move();
+					} while (tour.hasMove() == true);
+
+					assertTour(tour, size, startRow, startCol);
+				}
+			}
+		}
+	}
+
+	// ****************************************************
+	// Method: solveMatchesReference
+	//
+	// Purpose: Solves from every start square of the
+	// boards up to 10 x 10, covering the bitboard
+	// engine and the change to the board at 9 x 9,
+	// reusing one tour per size.
+	// ****************************************************
+	@Test
+	void solveMatchesReference() {
+		for (int size = 1; size <= 10; size++) {
+			Tour tour = new Tour(size);
+
+			for (int startRow = 0; startRow < size; startRow++) {
+				for (int startCol = 0; startCol < size; startCol++) {
+					tour.resetTour(startRow, startCol);
+					assertEquals(referenceMoveCount(tour, size, startRow,
+							startCol) == size * size, tour.solve(), size
+							+ " " + startRow + " " + startCol);
+					assertTour(tour, size, startRow, startCol);
+				}
+			}
+		}
+	}
+
+	// ****************************************************
+	// Method: assertTour
+	//
+	// Purpose: Fails unless every square of the tour's
+	// board has the move number the reference
+	// tour gives it.
+	// ****************************************************
+	private static void assertTour(Tour tour, int size, int startRow,
+			int startCol) {
+		int[][] expected = playReference(tour.getKnight(), size, startRow,
+				startCol);
+
+		for (int row = 0; row < size; row++) {
+			int[] actual = new int[size];
+
+			for (int col = 0; col < size; col++) {
+				actual[col] = tour.getChessBoard().getSquareMoveNumber(row,
+						col);
+			}
+
+			assertArrayEquals(expected[row], actual, size + " " + startRow
+					+ " " + startCol + " row " + row);
+		}
+	}
+
+	// ****************************************************
+	// Method: referenceMoveCount
+	//
+	// Purpose: Returns the number of squares the
+	// reference tour visits.
+	// ****************************************************
+	private static int referenceMoveCount(Tour tour, int size, int startRow,
+			int startCol) {
+		int[][] moveNumbers = playReference(tour.getKnight(), size, startRow,
+				startCol);
+		int visited = 0;
+
+		for (int row = 0; row < size; row++) {
+			for (int col = 0; col < size; col++) {
+				if (moveNumbers[row][col] != 0) {
+					visited++;
+				}
+			}
+		}
+
+		return visited;
+	}
+
+	// ****************************************************
+	// Method: playReference
+	//
+	// Purpose: Plays the original greedy rule and
+	// returns the move number of every square, 0
+	// if it was not visited. Each move goes to
+	// the possible square with the fewest
+	// unvisited neighbors, the first in move order
+	// on a tie, except that a square with none is
+	// passed over for any possible square after
+	// it.
+	// ****************************************************
+	private static int[][] playReference(Knight knight, int size,
+			int startRow, int startCol) {
+		int[][] moveNumbers = new int[size][size];
+		int row = startRow, col = startCol, bestRow, bestCol, lowest,
+				accessibility, testRow, testCol;
+
+		for (int moveNumber = 1;; moveNumber++) {
+			moveNumbers[row][col] = moveNumber;
+			bestRow = -1;
+			bestCol = -1;
+			lowest = 0;
+
+			for (int move = 0; move < Knight.NUM_ALLOWED_MOVES; move++) {
+				testRow = row + knight.getVerticalMoveValue(move);
+				testCol = col + knight.getHorizontalMoveValue(move);
+
+				if (isOpen(moveNumbers, testRow, testCol) == false) {
+					continue;
+				}
+
+				accessibility = countOpenNeighbors(knight, moveNumbers,
+						testRow, testCol);
+
+				if (bestRow < 0 || accessibility < lowest || lowest < 1) {
+					bestRow = testRow;
+					bestCol = testCol;
+					lowest = accessibility;
+				}
+			}
+
+			if (bestRow < 0) {
+				return moveNumbers;
+			}
+
+			row = bestRow;
+			col = bestCol;
+		}
+	}
+
+	// ****************************************************
+	// Method: countOpenNeighbors
+	//
+	// Purpose: Returns the number of unvisited squares a
+	// knight move away from a square.
+	// ****************************************************
+	private static int countOpenNeighbors(Knight knight, int[][] moveNumbers,
+			int row, int col) {
+		int count = 0;
+
+		for (int move = 0; move < Knight.NUM_ALLOWED_MOVES; move++) {
+			if (isOpen(moveNumbers, row + knight.getVerticalMoveValue(move),
+					col + knight.getHorizontalMoveValue(move)) == true) {
+				count++;
+			}
+		}
+
+		return count;
+	}
+
+	// ****************************************************
+	// Method: isOpen
+	//
+	// Purpose: Returns true if a square is on the board
+	// and not yet visited.
+	// ****************************************************
+	private static boolean isOpen(int[][] moveNumbers, int row, int col) {
+		return row >= 0 && row < moveNumbers.length && col >= 0
+				&& col < moveNumbers.length && moveNumbers[row][col] == 0;
+	}
+}
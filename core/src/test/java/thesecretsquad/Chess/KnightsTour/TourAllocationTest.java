@@ -0,0 +1,125 @@
+//****************************************************
+//File: TourAllocationTest
+//
+//Purpose: Checks that a warmed up Tour.move() makes
+//		   its moves without allocating, using the
+//		   per thread allocated bytes counter of the
+//		   ThreadMXBean.
+//****************************************************
+
+package thesecretsquad.Chess.KnightsTour;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.lang.management.ManagementFactory;
+
+import org.junit.jupiter.api.Test;
+
+import com.sun.management.ThreadMXBean;
+
+import thesecretsquad.Chess.TieBreaker;
+
+class TourAllocationTest {
+	private static final int BOARD_SIZE = 64; // Dimension of the board played
+	private static final int WARM_UP_TOURS = 200; // Tours played before
+													// measuring
+	private static final int MEASURED_MOVES = 100000; // Moves measured
+
+	// ****************************************************
+	// Method: moveDoesNotAllocate
+	//
+	// Purpose: Plays tours with every tie breaker until
+	// move() is compiled, then checks that the
+	// thread allocates no bytes over the measured
+	// moves.
+	// ****************************************************
+	@Test
+	void moveDoesNotAllocate() {
+		ThreadMXBean threadBean = getThreadBean();
+		Tour tour = new Tour(BOARD_SIZE);
+
+		for (TieBreaker tieBreaker : TieBreaker.values()) {
+			tour.setTieBreaker(tieBreaker);
+
+			for (int tourNum = 0; tourNum < WARM_UP_TOURS; tourNum++) {
+				playMoves(tour, tourNum, Integer.MAX_VALUE);
+			}
+
+			assertEquals(0, measureMoves(threadBean, tour), tieBreaker
+					+ " allocated while moving");
+		}
+	}
+
+	// ****************************************************
+	// Method: measureMoves
+	//
+	// Purpose: Returns the bytes allocated by the thread
+	// while making MEASURED_MOVES moves, over as
+	// many tours as it takes. Resetting the tour
+	// between them is not counted.
+	// ****************************************************
+	private static long measureMoves(ThreadMXBean threadBean, Tour tour) {
+		long allocated = 0, before;
+		int movesLeft = MEASURED_MOVES;
+
+		for (int tourNum = 0; movesLeft > 0; tourNum++) {
+			tour.resetTour(tourNum % BOARD_SIZE, tourNum * 7 % BOARD_SIZE);
+
+			before = threadBean.getCurrentThreadAllocatedBytes();
+			movesLeft -= makeMoves(tour, movesLeft);
+			allocated += threadBean.getCurrentThreadAllocatedBytes() - before;
+		}
+
+		return allocated;
+	}
+
+	// ****************************************************
+	// Method: playMoves
+	//
+	// Purpose: Resets the tour to a start square picked
+	// from tourNum and makes up to maxMoves moves.
+	// ****************************************************
+	private static void playMoves(Tour tour, int tourNum, int maxMoves) {
+		tour.resetTour(tourNum % BOARD_SIZE, tourNum * 7 % BOARD_SIZE);
+		makeMoves(tour, maxMoves);
+	}
+
+	// ****************************************************
+	// Method: makeMoves
+	//
+	// Purpose: Moves the knight until it is stuck or
+	// maxMoves moves are made, and returns the
+	// number of moves made.
+	// ****************************************************
+	private static int makeMoves(Tour tour, int maxMoves) {
+		int moves = 0;
+
+		do {
+			tour.move();
+			moves++;
+		} while (tour.hasMove() == true && moves < maxMoves);
+
+		return moves;
+	}
+
+	// ****************************************************
+	// Method: getThreadBean
+	//
+	// Purpose: Returns the ThreadMXBean with allocation
+	// counting turned on, skipping the test if the
+	// JVM can not count allocations.
+	// ****************************************************
+	private static ThreadMXBean getThreadBean() {
+		ThreadMXBean threadBean = (ThreadMXBean) ManagementFactory
+				.getThreadMXBean();
+
+		assumeTrue(threadBean.isThreadAllocatedMemorySupported(),
+				"Allocated bytes are not counted by this JVM");
+		threadBean.setThreadAllocatedMemoryEnabled(true);
+		// The first call may allocate while setting up
+		threadBean.getCurrentThreadAllocatedBytes();
+
+		return threadBean;
+	}
+}
@@ -0,0 +1,42 @@
+//****************************************************
+//File: BacktrackEvent
+//
+//Purpose: Flight recorder event emitted each time a
+//		   backtracking search stops undoing moves and
+//		   goes forward again. Hard searches turn back
+//		   many thousands of times a second, so the
+//		   event is off unless a recording enables it.
+//****************************************************
+
+package thesecretsquad.Chess;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("thesecretsquad.Backtrack")
+@Label("Backtrack")
+@Category({ "Knight's Tour", "Solver" })
+@Description("A backtracking search retreated and resumed going forward")
+@Enabled(false)
+@StackTrace(false)
+class BacktrackEvent extends Event {
+	@Label("Board Size")
+	int boardSize; // Dimension of the board
+
+	@Label("From Depth")
+	@Description("Depth at which the search found no way on")
+	int fromDepth; // Depth the retreat started from
+
+	@Label("To Depth")
+	@Description("Depth the search went forward again from")
+	int toDepth; // Depth the retreat stopped at
+
+	@Label("Nodes")
+	@Description("Squares visited by the search so far")
+	long nodes; // Squares visited so far
+}
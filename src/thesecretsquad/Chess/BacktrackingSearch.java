@@ -0,0 +1,441 @@
+//****************************************************
+//File: BacktrackingSearch
+//
+//Purpose: Depth-first search for a complete knight's
+//		   tour. Moves are tried in order of lowest
+//		   accessibility, as in the greedy tour, and
+//		   when the knight runs out of moves the last
+//		   move is undone on the board itself: the
+//		   square is unmarked and the accessibility
+//		   of its neighbors is raised again. The
+//		   search stops after a configurable number
+//		   of nodes.
+//****************************************************
+
+package thesecretsquad.Chess;
+
+import jdk.jfr.FlightRecorder;
+
+public class BacktrackingSearch {
+	public static final long UNLIMITED_NODES = Long.MAX_VALUE; // Node budget
+																// that never
+																// runs out
+
+	private final ChessBoard chessBoard; // Board the search is played on
+	private final Knight knight; // Knight that is moved
+	private final KnightGraph knightGraph; // Knight moves on the board
+	private final long nodeBudget; // Maximum number of squares the search
+									// may visit
+	private final int[] path; // Square visited at each depth
+	private final byte[] candidates; // Move numbers still to try at each
+										// depth, best first
+	private final byte[] candidateCount; // Number of candidates at each depth
+	private final byte[] nextCandidate; // Next candidate to try at each depth
+	private int lowAccessibilityCount; // Number of unvisited squares with
+										// accessibility 0 or 1
+	private long nodesExpanded; // Number of squares visited so far
+	private long backtracks; // Number of moves undone so far
+	private long deadEnds; // Number of positions found with no way on
+	private boolean budgetExhausted; // Flag: true if the search stopped
+										// because the budget ran out
+	private SolveProgress progress; // Progress of the running search for
+									// the flight recorder, or null
+	private boolean recorderStarted; // Flag: true if the flight recorder
+										// had been started when the search
+										// began
+
+	// ************************************************
+	// Method: BacktrackingSearch(ChessBoard, Knight, long)
+	//
+	// Purpose: Constructor. The search starts from the
+	// knight's current position on an unplayed
+	// board.
+	// ************************************************
+	public BacktrackingSearch(ChessBoard chessBoard, Knight knight,
+			long nodeBudget) {
+		int numSquares = chessBoard.getBoardSize() * chessBoard.getBoardSize();
+
+		this.chessBoard = chessBoard;
+		this.knight = knight;
+		this.knightGraph = chessBoard.getKnightGraph();
+		this.nodeBudget = nodeBudget;
+		path = new int[numSquares];
+		candidates = new byte[numSquares * Knight.NUM_ALLOWED_MOVES];
+		candidateCount = new byte[numSquares];
+		nextCandidate = new byte[numSquares];
+	}
+
+	// ************************************************
+	// Method: search()
+	//
+	// Purpose: Runs the search. Returns true if a full
+	// tour was found, in which case the board
+	// holds the tour and the knight stands on
+	// its last square. Otherwise every move is
+	// undone and the board and knight are left
+	// as they were before the search.
+	// ************************************************
+	public boolean search() {
+		recorderStarted = FlightRecorder.isInitialized();
+		progress = SolveProgress.start(SolveProgress.STRATEGY_BACKTRACKING,
+				chessBoard.getBoardSize());
+
+		try {
+			return searchTour();
+		} finally {
+			if (progress != null) {
+				progress.finish();
+				progress = null;
+			}
+		}
+	}
+
+	// ************************************************
+	// Method: searchTour()
+	//
+	// Purpose: Runs the search for search(). A retreat
+	// that ends by going forward again is
+	// reported to the flight recorder.
+	// ************************************************
+	private boolean searchTour() {
+		int boardSize = chessBoard.getBoardSize(), lastDepth = boardSize
+				* boardSize - 1, depth = 0, square, startSquare, retreatFrom = -1;
+
+		nodesExpanded = 0;
+		backtracks = 0;
+		deadEnds = 0;
+		budgetExhausted = false;
+
+		// The knight changes color every move, so on a board with an odd
+		// number of squares a tour has to start on the color of the corners
+		if (boardSize % 2 == 1
+				&& chessBoard.getKnightGraph().getSquareColor(
+						knight.getCurrentSquare(chessBoard)) != KnightGraph.LIGHT) {
+			recordMetrics();
+			return false;
+		}
+
+		lowAccessibilityCount = 0;
+
+		for (square = 0; square <= lastDepth; square++) {
+			if (chessBoard.getSquareAccessibility(square) <= 1) {
+				lowAccessibilityCount++;
+			}
+		}
+
+		startSquare = knight.getCurrentSquare(chessBoard);
+		path[0] = startSquare;
+		visit(startSquare, 0);
+		findCandidates(0, lastDepth);
+
+		if (progress != null) {
+			progress.update(1, nodesExpanded);
+		}
+
+		while (depth < lastDepth) {
+			if (nextCandidate[depth] < candidateCount[depth]) {
+				if (nodesExpanded >= nodeBudget) {
+					budgetExhausted = true;
+					break;
+				}
+
+				square = path[depth]
+						+ knightGraph.getMoveOffset(candidates[depth
+								* Knight.NUM_ALLOWED_MOVES + nextCandidate[depth]++]);
+
+				if (retreatFrom >= 0) {
+					commitBacktrack(retreatFrom, depth);
+					retreatFrom = -1;
+				}
+
+				depth++;
+				path[depth] = square;
+				visit(square, depth);
+				findCandidates(depth, lastDepth);
+
+				if (progress != null
+						&& (nodesExpanded & SolveProgress.UPDATE_MASK) == 0) {
+					progress.update(depth + 1, nodesExpanded);
+				}
+			} else {
+				unvisit(path[depth]);
+
+				if (depth == 0) {
+					break;
+				}
+
+				if (retreatFrom < 0) {
+					retreatFrom = depth;
+				}
+
+				depth--;
+				backtracks++;
+			}
+		}
+
+		recordMetrics();
+
+		if (depth == lastDepth) {
+			return true;
+		}
+
+		// Undo whatever is left of the partial tour
+		if (budgetExhausted == true) {
+			while (depth >= 0) {
+				unvisit(path[depth--]);
+			}
+		}
+
+		moveKnightTo(startSquare, 1);
+		return false;
+	}
+
+	// ************************************************
+	// Method: commitBacktrack(int, int)
+	//
+	// Purpose: Emits a backtrack event for a retreat
+	// from one depth to another, if a recording
+	// wants it. No event object is made unless
+	// the recorder has been started, since the
+	// first one starts up parts of it.
+	// ************************************************
+	private void commitBacktrack(int fromDepth, int toDepth) {
+		BacktrackEvent event;
+
+		if (recorderStarted == false) {
+			return;
+		}
+
+		event = new BacktrackEvent();
+
+		if (event.shouldCommit() == true) {
+			event.boardSize = chessBoard.getBoardSize();
+			event.fromDepth = fromDepth;
+			event.toDepth = toDepth;
+			event.nodes = nodesExpanded;
+			event.commit();
+		}
+	}
+
+	// ************************************************
+	// Method: getNodesExpanded()
+	//
+	// Purpose: Returns the number of squares visited
+	// by the last search.
+	// ************************************************
+	public long getNodesExpanded() {
+		return nodesExpanded;
+	}
+
+	// ************************************************
+	// Method: getBacktracks()
+	//
+	// Purpose: Returns the number of moves undone by
+	// the last search on its way to a tour,
+	// not counting the unwinding of a search
+	// that gave up.
+	// ************************************************
+	public long getBacktracks() {
+		return backtracks;
+	}
+
+	// ************************************************
+	// Method: getDeadEnds()
+	//
+	// Purpose: Returns the number of positions the
+	// last search reached from which the tour
+	// could not be completed.
+	// ************************************************
+	public long getDeadEnds() {
+		return deadEnds;
+	}
+
+	// ************************************************
+	// Method: recordMetrics()
+	//
+	// Purpose: Adds the counts of the search to the
+	// solver metrics, if they are enabled.
+	// ************************************************
+	private void recordMetrics() {
+		if (SolverMetrics.isEnabled() == true) {
+			SolverMetrics.getInstance().recordSearch(nodesExpanded, backtracks,
+					deadEnds);
+		}
+	}
+
+	// ************************************************
+	// Method: isBudgetExhausted()
+	//
+	// Purpose: Returns true if the last search stopped
+	// because the node budget ran out rather
+	// than because every path was tried.
+	// ************************************************
+	public boolean isBudgetExhausted() {
+		return budgetExhausted;
+	}
+
+	// ************************************************
+	// Method: visit(int, int)
+	//
+	// Purpose: Moves the knight to a square, marks it
+	// with the move number for the depth and
+	// lowers the accessibility of the
+	// surrounding squares, keeping the count of
+	// nearly unreachable squares up to date.
+	// ************************************************
+	private void visit(int square, int depth) {
+		int neighborSquare;
+
+		moveKnightTo(square, depth + 1);
+		chessBoard.markBoardSquare(knight.getCurrentRow(),
+				knight.getCurrentCol(), depth + 1);
+
+		if (chessBoard.getSquareAccessibility(square) <= 1) {
+			lowAccessibilityCount--;
+		}
+
+		for (int moves = knightGraph.getMoveMask(square); moves != 0; moves &= moves - 1) {
+			neighborSquare = knightGraph.getNeighbor(square, moves);
+
+			if (chessBoard.isSquareVisited(neighborSquare) == false) {
+				chessBoard.decrSquareAccessibility(neighborSquare);
+
+				if (chessBoard.getSquareAccessibility(neighborSquare) == 1) {
+					lowAccessibilityCount++;
+				}
+			}
+		}
+
+		nodesExpanded++;
+	}
+
+	// ************************************************
+	// Method: unvisit(int)
+	//
+	// Purpose: Reverses visit, the way
+	// lowerAccessibility would be reversed:
+	// the accessibility of the unvisited
+	// surrounding squares is raised and then
+	// the square is unmarked.
+	// ************************************************
+	private void unvisit(int square) {
+		int boardSize = chessBoard.getBoardSize(), neighborSquare;
+
+		for (int moves = knightGraph.getMoveMask(square); moves != 0; moves &= moves - 1) {
+			neighborSquare = knightGraph.getNeighbor(square, moves);
+
+			if (chessBoard.isSquareVisited(neighborSquare) == false) {
+				if (chessBoard.getSquareAccessibility(neighborSquare) == 1) {
+					lowAccessibilityCount--;
+				}
+
+				chessBoard.incrSquareAccessibility(neighborSquare);
+			}
+		}
+
+		chessBoard.unmarkBoardSquare(square / boardSize, square % boardSize);
+
+		if (chessBoard.getSquareAccessibility(square) <= 1) {
+			lowAccessibilityCount++;
+		}
+	}
+
+	// ************************************************
+	// Method: moveKnightTo(int, int)
+	//
+	// Purpose: Places the knight on a square and sets
+	// its move counter.
+	// ************************************************
+	private void moveKnightTo(int square, int moveCounter) {
+		int boardSize = chessBoard.getBoardSize();
+
+		knight.setCurrentRow(square / boardSize);
+		knight.setCurrentCol(square % boardSize);
+		knight.setMoveCounter(moveCounter);
+	}
+
+	// ************************************************
+	// Method: findCandidates(int, int)
+	//
+	// Purpose: Stores the unvisited neighbors of the
+	// square at a depth, best first as decided
+	// by isBetterCandidate. No candidates are
+	// stored
+	// when the tour can no longer be completed:
+	// an unvisited square with accessibility 0
+	// can only be entered now and can not be
+	// left, and one with accessibility 1 can
+	// only be the last square unless the knight
+	// enters it now, so a full tour allows at
+	// most one such dead end.
+	// ************************************************
+	private void findCandidates(int depth, int lastDepth) {
+		int square = path[depth], base = depth * Knight.NUM_ALLOWED_MOVES;
+		int count = 0, lowNeighbors = 0, moveNum, neighborSquare, accessibility, insertAt;
+
+		for (int moves = knightGraph.getMoveMask(square); moves != 0; moves &= moves - 1) {
+			moveNum = Integer.numberOfTrailingZeros(moves);
+			neighborSquare = square + knightGraph.getMoveOffset(moveNum);
+
+			if (chessBoard.isSquareVisited(neighborSquare) == true) {
+				continue;
+			}
+
+			accessibility = chessBoard.getSquareAccessibility(neighborSquare);
+
+			if (accessibility <= 1) {
+				lowNeighbors++;
+			}
+
+			// Insertion sort, at most eight entries
+			insertAt = count;
+
+			while (insertAt > 0
+					&& isBetterCandidate(neighborSquare, square
+							+ knightGraph.getMoveOffset(candidates[base + insertAt - 1]))) {
+				candidates[base + insertAt] = candidates[base + insertAt - 1];
+				insertAt--;
+			}
+
+			candidates[base + insertAt] = (byte) moveNum;
+			count++;
+		}
+
+		// Squares not next to the knight with accessibility 0 or 1, plus all
+		// but one of the low squares next to it, are dead ends
+		if (depth + 1 < lastDepth
+				&& lowAccessibilityCount - lowNeighbors
+						+ Math.max(lowNeighbors - 1, 0) > 1) {
+			count = 0;
+		}
+
+		if (count == 0 && depth < lastDepth) {
+			deadEnds++;
+		}
+
+		candidateCount[depth] = (byte) count;
+		nextCandidate[depth] = 0;
+	}
+
+	// ************************************************
+	// Method: isBetterCandidate(int, int)
+	//
+	// Purpose: Returns true if the first square should
+	// be tried before the second: it has lower
+	// accessibility, or equal accessibility and
+	// lies further from the center of the board.
+	// Squares near the edge are harder to come
+	// back to, so they are taken first.
+	// ************************************************
+	private boolean isBetterCandidate(int square, int otherSquare) {
+		int accessibility = chessBoard.getSquareAccessibility(square), otherAccessibility = chessBoard
+				.getSquareAccessibility(otherSquare);
+
+		if (accessibility != otherAccessibility) {
+			return accessibility < otherAccessibility;
+		}
+
+		return knightGraph.getDistanceFromCenter(square) > knightGraph
+				.getDistanceFromCenter(otherSquare);
+	}
+}
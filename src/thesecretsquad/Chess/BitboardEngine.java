@@ -0,0 +1,276 @@
+//****************************************************
+//File: BitboardEngine
+//
+//Purpose: Greedy knight's tour for boards of up to
+//		   8 x 8, where every square fits in one bit
+//		   of a long. Visited squares are a single
+//		   long and the squares a knight attacks from
+//		   each square are precomputed masks, so the
+//		   accessibility of a square is
+//		   Long.bitCount(attacks & ~visited) and no
+//		   per-square state is kept at all. Moves are
+//		   chosen by exactly the same rules as Knight,
+//		   including the tie breakers, so tours match
+//		   the ones played on a ChessBoard.
+//****************************************************
+
+package thesecretsquad.Chess;
+
+import java.util.Arrays;
+
+public final class BitboardEngine {
+	public static final int MAX_BOARD_SIZE = 8; // Largest board that fits in
+												// a long
+
+	private static final BitboardEngine[] enginesBySize = new BitboardEngine[MAX_BOARD_SIZE + 1];
+
+	private final int boardSize; // Dimension of the board
+	private final long[] attacks; // Squares a knight attacks from each square
+	private final int[] neighborStart; // Offset of each square's first
+										// neighbor, plus one trailing entry
+	private final byte[] neighbors; // On-board squares reached from each
+									// square, in move number order
+	private final byte[] moveBetween; // Move number from one square to
+										// another, or -1, indexed by
+										// from * squares + to
+	private final int[] distanceFromCenter; // Four times the squared distance
+											// of each square from the center
+
+	// ************************************************
+	// Method: forSize(int)
+	//
+	// Purpose: Returns the engine for a board size.
+	// Engines hold only tables that never
+	// change, so one is shared by every thread.
+	// ************************************************
+	public static BitboardEngine forSize(int dimension) {
+		if (dimension < 1 || dimension > MAX_BOARD_SIZE) {
+			throw new IllegalArgumentException("Bitboards hold boards of 1 to "
+					+ MAX_BOARD_SIZE + " squares a side, not " + dimension);
+		}
+
+		synchronized (enginesBySize) {
+			if (enginesBySize[dimension] == null) {
+				enginesBySize[dimension] = new BitboardEngine(dimension);
+			}
+
+			return enginesBySize[dimension];
+		}
+	}
+
+	// ************************************************
+	// Method: BitboardEngine(int)
+	//
+	// Purpose: Constructor. Builds the attack masks and
+	// move tables.
+	// ************************************************
+	private BitboardEngine(int dimension) {
+		int numSquares = dimension * dimension, count = 0, testRow, testCol, rowDistance, colDistance;
+
+		boardSize = dimension;
+		attacks = new long[numSquares];
+		neighborStart = new int[numSquares + 1];
+		neighbors = new byte[numSquares * Knight.NUM_ALLOWED_MOVES];
+		moveBetween = new byte[numSquares * numSquares];
+		distanceFromCenter = new int[numSquares];
+
+		Arrays.fill(moveBetween, (byte) -1);
+
+		for (int square = 0; square < numSquares; square++) {
+			neighborStart[square] = count;
+
+			for (int moveNum = 0; moveNum < Knight.NUM_ALLOWED_MOVES; moveNum++) {
+				testRow = square / dimension + Knight.VERTICAL_MOVES[moveNum];
+				testCol = square % dimension + Knight.HORIZONTAL_MOVES[moveNum];
+
+				if (testRow >= 0 && testRow < dimension && testCol >= 0
+						&& testCol < dimension) {
+					neighbors[count] = (byte) (testRow * dimension + testCol);
+					count++;
+					attacks[square] |= 1L << (testRow * dimension + testCol);
+					moveBetween[square * numSquares + testRow * dimension
+							+ testCol] = (byte) moveNum;
+				}
+			}
+
+			rowDistance = 2 * (square / dimension) - (dimension - 1);
+			colDistance = 2 * (square % dimension) - (dimension - 1);
+			distanceFromCenter[square] = rowDistance * rowDistance
+					+ colDistance * colDistance;
+		}
+
+		neighborStart[numSquares] = count;
+	}
+
+	// ************************************************
+	// Method: getBoardSize()
+	//
+	// Purpose: Returns the dimension of the board.
+	// ************************************************
+	public int getBoardSize() {
+		return boardSize;
+	}
+
+	// ************************************************
+	// Method: getAttacks(int)
+	//
+	// Purpose: Returns the mask of squares a knight
+	// attacks from a square.
+	// ************************************************
+	public long getAttacks(int square) {
+		return attacks[square];
+	}
+
+	// ************************************************
+	// Method: getMoveNumber(int, int)
+	//
+	// Purpose: Returns the move number that takes a
+	// knight between two squares, or -1 if they
+	// are not a knight move apart.
+	// ************************************************
+	public int getMoveNumber(int from, int to) {
+		return moveBetween[from * attacks.length + to];
+	}
+
+	// ************************************************
+	// Method: getAccessibility(int, long)
+	//
+	// Purpose: Returns the number of unvisited squares a
+	// knight attacks from a square.
+	// ************************************************
+	public int getAccessibility(int square, long visited) {
+		return Long.bitCount(attacks[square] & ~visited);
+	}
+
+	// ************************************************
+	// Method: solve(int, long, TieBreaker, int[])
+	//
+	// Purpose: Plays the greedy tour from a start square
+	// with some squares already visited. The
+	// squares of the path, starting with the
+	// start square, are stored in path, which
+	// must have room for every square. Returns
+	// the number of squares stored. Allocates
+	// nothing.
+	// ************************************************
+	public int solve(int start, long visited, TieBreaker tieBreaker, int[] path) {
+		int square = start, length = 0;
+
+		while (square >= 0) {
+			path[length++] = square;
+			visited |= 1L << square;
+			square = findBestSquare(square, visited, tieBreaker);
+		}
+
+		return length;
+	}
+
+	// ************************************************
+	// Method: findBestMove(int, long, TieBreaker)
+	//
+	// Purpose: Returns the move number Knight would pick
+	// from a square, which is included in the
+	// visited squares, or -1 if there is no
+	// move.
+	// ************************************************
+	public int findBestMove(int square, long visited, TieBreaker tieBreaker) {
+		int bestSquare = findBestSquare(square, visited, tieBreaker);
+
+		return bestSquare < 0 ? -1 : getMoveNumber(square, bestSquare);
+	}
+
+	// ************************************************
+	// Method: findBestSquare(int, long, TieBreaker)
+	//
+	// Purpose: Returns the square findBestMove's move
+	// lands on, or -1 if there is no move.
+	// ************************************************
+	private int findBestSquare(int square, long visited, TieBreaker tieBreaker) {
+		int end = neighborStart[square + 1], target, testAccessibility;
+		int lowestAccessibility = 0, bestSquare = -1;
+
+		for (int neighbor = neighborStart[square]; neighbor < end; neighbor++) {
+			target = neighbors[neighbor];
+
+			if ((visited & (1L << target)) == 0) {
+				testAccessibility = getAccessibility(target, visited);
+
+				if (bestSquare < 0 || testAccessibility < lowestAccessibility
+						|| lowestAccessibility < 1) {
+					lowestAccessibility = testAccessibility;
+					bestSquare = target;
+				}
+			}
+		}
+
+		if (tieBreaker == TieBreaker.MOVE_ORDER || bestSquare < 0) {
+			return bestSquare;
+		}
+
+		bestSquare = -1;
+
+		for (int neighbor = neighborStart[square]; neighbor < end; neighbor++) {
+			target = neighbors[neighbor];
+
+			if ((visited & (1L << target)) == 0
+					&& (bestSquare < 0 || isBetterMove(target, bestSquare,
+							visited, tieBreaker))) {
+				bestSquare = target;
+			}
+		}
+
+		return bestSquare;
+	}
+
+	// ************************************************
+	// Method: isBetterMove(int, int, long, TieBreaker)
+	//
+	// Purpose: Returns true if the first square is a
+	// better move than the second, ranked as
+	// Knight ranks them.
+	// ************************************************
+	private boolean isBetterMove(int square, int otherSquare, long visited,
+			TieBreaker tieBreaker) {
+		int accessibility = getAccessibility(square, visited), otherAccessibility = getAccessibility(
+				otherSquare, visited);
+
+		if (accessibility == 0) {
+			accessibility = Knight.NUM_ALLOWED_MOVES + 1;
+		}
+
+		if (otherAccessibility == 0) {
+			otherAccessibility = Knight.NUM_ALLOWED_MOVES + 1;
+		}
+
+		if (accessibility != otherAccessibility) {
+			return accessibility < otherAccessibility;
+		}
+
+		if (tieBreaker == TieBreaker.FURTHEST_FROM_CENTER) {
+			return distanceFromCenter[square] > distanceFromCenter[otherSquare];
+		}
+
+		return findSecondaryDegree(square, visited) < findSecondaryDegree(
+				otherSquare, visited);
+	}
+
+	// ************************************************
+	// Method: findSecondaryDegree(int, long)
+	//
+	// Purpose: Returns the total accessibility of the
+	// unvisited squares a knight attacks from a
+	// square.
+	// ************************************************
+	private int findSecondaryDegree(int square, long visited) {
+		long unvisited = attacks[square] & ~visited;
+		int total = 0;
+
+		while (unvisited != 0) {
+			total += getAccessibility(Long.numberOfTrailingZeros(unvisited),
+					visited);
+			unvisited &= unvisited - 1;
+		}
+
+		return total;
+	}
+}
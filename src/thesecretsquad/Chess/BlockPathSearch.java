@@ -0,0 +1,301 @@
+//****************************************************
+//File: BlockPathSearch
+//
+//Purpose: Finds a knight's path that visits every
+//		   square of a small rectangular block once,
+//		   starting on a given square and ending on
+//		   one of a set of allowed exit squares. Used
+//		   by BlockTourBuilder to build the pieces it
+//		   stitches together. Squares are numbered
+//		   row * width + col.
+//****************************************************
+
+package thesecretsquad.Chess;
+
+class BlockPathSearch {
+	private final int height; // Number of rows in the block
+	private final int width; // Number of columns in the block
+	private final int numSquares; // Number of squares in the block
+	private final int[][] neighbors; // On-block knight moves from each square
+	private final boolean[] isExit; // True for squares the path may end on
+	private final int[] exitDistance; // Knight moves from each square to the
+										// nearest exit square
+	private final boolean[] visited; // True for squares on the path
+	private final int[] accessibility; // Unvisited neighbors of each square
+	private final int[] path; // Square visited at each depth
+	private final int[] candidates; // Squares still to try at each depth
+	private final int[] candidateCount; // Number of candidates at each depth
+	private final int[] nextCandidate; // Next candidate to try at each depth
+	private int lowCount; // Unvisited squares with accessibility 0 or 1
+	private int lowNonExitCount; // Those of them that may not end the path
+
+	// ************************************************
+	// Method: BlockPathSearch(int, int, boolean[])
+	//
+	// Purpose: Constructor. Builds the move table of the
+	// block and the distance of every square
+	// from the nearest exit square.
+	// ************************************************
+	BlockPathSearch(int height, int width, boolean[] isExit) {
+		int count, testRow, testCol;
+		int[] moves = new int[Knight.NUM_ALLOWED_MOVES];
+
+		this.height = height;
+		this.width = width;
+		this.isExit = isExit;
+		numSquares = height * width;
+		neighbors = new int[numSquares][];
+		visited = new boolean[numSquares];
+		accessibility = new int[numSquares];
+		path = new int[numSquares];
+		candidates = new int[numSquares * Knight.NUM_ALLOWED_MOVES];
+		candidateCount = new int[numSquares];
+		nextCandidate = new int[numSquares];
+		exitDistance = new int[numSquares];
+
+		for (int square = 0; square < numSquares; square++) {
+			count = 0;
+
+			for (int moveNum = 0; moveNum < Knight.NUM_ALLOWED_MOVES; moveNum++) {
+				testRow = square / width + Knight.VERTICAL_MOVES[moveNum];
+				testCol = square % width + Knight.HORIZONTAL_MOVES[moveNum];
+
+				if (testRow >= 0 && testRow < height && testCol >= 0
+						&& testCol < width) {
+					moves[count++] = testRow * width + testCol;
+				}
+			}
+
+			neighbors[square] = new int[count];
+			System.arraycopy(moves, 0, neighbors[square], 0, count);
+		}
+
+		findExitDistances();
+	}
+
+	// ************************************************
+	// Method: findExitDistances()
+	//
+	// Purpose: Breadth-first search outward from the
+	// exit squares.
+	// ************************************************
+	private void findExitDistances() {
+		int[] queue = new int[numSquares];
+		int head = 0, tail = 0, square;
+
+		for (square = 0; square < numSquares; square++) {
+			exitDistance[square] = isExit[square] ? 0 : Integer.MAX_VALUE;
+
+			if (isExit[square] == true) {
+				queue[tail++] = square;
+			}
+		}
+
+		while (head < tail) {
+			square = queue[head++];
+
+			for (int neighbor : neighbors[square]) {
+				if (exitDistance[neighbor] == Integer.MAX_VALUE) {
+					exitDistance[neighbor] = exitDistance[square] + 1;
+					queue[tail++] = neighbor;
+				}
+			}
+		}
+	}
+
+	// ************************************************
+	// Method: search(int, long)
+	//
+	// Purpose: Searches for a path from the entry square.
+	// Returns the squares of the path in order,
+	// or null if none was found within the node
+	// budget.
+	// ************************************************
+	int[] search(int entry, long nodeBudget) {
+		int lastDepth = numSquares - 1, depth = 0;
+		long nodes = 0;
+
+		lowCount = 0;
+		lowNonExitCount = 0;
+
+		for (int square = 0; square < numSquares; square++) {
+			visited[square] = false;
+			accessibility[square] = neighbors[square].length;
+			countLow(square, 1);
+		}
+
+		path[0] = entry;
+		visit(entry);
+		findCandidates(0);
+
+		while (depth < lastDepth) {
+			if (nextCandidate[depth] < candidateCount[depth]) {
+				if (++nodes > nodeBudget) {
+					return null;
+				}
+
+				int square = candidates[depth * Knight.NUM_ALLOWED_MOVES
+						+ nextCandidate[depth]++];
+
+				depth++;
+				path[depth] = square;
+				visit(square);
+				findCandidates(depth);
+			} else {
+				unvisit(path[depth]);
+
+				if (depth == 0) {
+					return null;
+				}
+
+				depth--;
+			}
+		}
+
+		if (isExit[path[lastDepth]] == false) {
+			return null;
+		}
+
+		return path.clone();
+	}
+
+	// ************************************************
+	// Method: countLow(int, int)
+	//
+	// Purpose: Adds change to the low square counts if
+	// the square is unvisited with accessibility
+	// 0 or 1.
+	// ************************************************
+	private void countLow(int square, int change) {
+		if (visited[square] == false && accessibility[square] <= 1) {
+			lowCount += change;
+
+			if (isExit[square] == false) {
+				lowNonExitCount += change;
+			}
+		}
+	}
+
+	// ************************************************
+	// Method: visit(int)
+	//
+	// Purpose: Adds a square to the path and lowers the
+	// accessibility of its unvisited neighbors.
+	// ************************************************
+	private void visit(int square) {
+		countLow(square, -1);
+		visited[square] = true;
+
+		for (int neighbor : neighbors[square]) {
+			if (visited[neighbor] == false) {
+				countLow(neighbor, -1);
+				accessibility[neighbor]--;
+				countLow(neighbor, 1);
+			}
+		}
+	}
+
+	// ************************************************
+	// Method: unvisit(int)
+	//
+	// Purpose: Reverses visit.
+	// ************************************************
+	private void unvisit(int square) {
+		for (int neighbor : neighbors[square]) {
+			if (visited[neighbor] == false) {
+				countLow(neighbor, -1);
+				accessibility[neighbor]++;
+				countLow(neighbor, 1);
+			}
+		}
+
+		visited[square] = false;
+		countLow(square, 1);
+	}
+
+	// ************************************************
+	// Method: findCandidates(int)
+	//
+	// Purpose: Stores the unvisited neighbors of the
+	// square at a depth, lowest accessibility
+	// first and, among equals, furthest from the
+	// exits first so the path finishes near
+	// them. No candidates are stored when the
+	// unvisited squares that can only end the
+	// path can not all be satisfied: there may
+	// be one such square, it must be an exit,
+	// and only a square next to the knight can
+	// still be entered instead.
+	// ************************************************
+	private void findCandidates(int depth) {
+		int base = depth * Knight.NUM_ALLOWED_MOVES, count = 0, lowNeighbors = 0, lowNonExitNeighbors = 0, insertAt;
+
+		for (int neighbor : neighbors[path[depth]]) {
+			if (visited[neighbor] == true) {
+				continue;
+			}
+
+			if (accessibility[neighbor] <= 1) {
+				lowNeighbors++;
+
+				if (isExit[neighbor] == false) {
+					lowNonExitNeighbors++;
+				}
+			}
+
+			insertAt = count;
+
+			while (insertAt > 0
+					&& isBetterCandidate(neighbor, candidates[base + insertAt
+							- 1])) {
+				candidates[base + insertAt] = candidates[base + insertAt - 1];
+				insertAt--;
+			}
+
+			candidates[base + insertAt] = neighbor;
+			count++;
+		}
+
+		if (depth + 1 < numSquares - 1
+				&& (lowCount - lowNeighbors + Math.max(lowNeighbors - 1, 0) > 1
+						|| lowNonExitCount - lowNonExitNeighbors > 0 || lowNonExitNeighbors > 1)) {
+			count = 0;
+		}
+
+		candidateCount[depth] = count;
+		nextCandidate[depth] = 0;
+	}
+
+	// ************************************************
+	// Method: isBetterCandidate(int, int)
+	//
+	// Purpose: Returns true if the first square should
+	// be tried before the second.
+	// ************************************************
+	private boolean isBetterCandidate(int square, int otherSquare) {
+		if (accessibility[square] != accessibility[otherSquare]) {
+			return accessibility[square] < accessibility[otherSquare];
+		}
+
+		return exitDistance[square] > exitDistance[otherSquare];
+	}
+
+	// ************************************************
+	// Method: getHeight()
+	//
+	// Purpose: Returns the number of rows in the block.
+	// ************************************************
+	int getHeight() {
+		return height;
+	}
+
+	// ************************************************
+	// Method: getWidth()
+	//
+	// Purpose: Returns the number of columns in the
+	// block.
+	// ************************************************
+	int getWidth() {
+		return width;
+	}
+}
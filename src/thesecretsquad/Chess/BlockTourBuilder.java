@@ -0,0 +1,322 @@
+//****************************************************
+//File: BlockTourBuilder
+//
+//Purpose: Builds a knight's tour of a large board by
+//		   divide and conquer. The board is cut into a
+//		   grid of blocks between 6 and 9 squares on a
+//		   side. The blocks are toured in serpentine
+//		   order: left to right along the first row of
+//		   blocks, right to left along the next, and
+//		   so on. Each block is covered by a path that
+//		   ends one knight move from the entry square
+//		   of the next block. There are only a few
+//		   different kinds of block, so each path is
+//		   searched for once and reused, and the tour
+//		   takes time linear in the number of squares.
+//
+//		   The tour starts on the top left square and
+//		   is emitted as a stream of knight move
+//		   numbers, the same encoding Knight.move
+//		   uses. No board is ever allocated.
+//****************************************************
+
+package thesecretsquad.Chess;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.IntConsumer;
+
+public class BlockTourBuilder {
+	public static final int MIN_BLOCK_SIZE = 6; // Smallest block side
+	private static final long BLOCK_NODE_BUDGET = 5000000; // Search limit per
+															// kind of block
+
+	// Directions the tour leaves a block in
+	private static final int EXIT_NONE = 0;
+	private static final int EXIT_RIGHT = 1;
+	private static final int EXIT_LEFT = 2;
+	private static final int EXIT_DOWN = 3;
+
+	private final int boardSize; // Dimension of the board
+	private final int[] blockSizes; // Side of each row and column of blocks
+	// Paths found so far, by kind of block
+	private final Map<String, BlockPiece> pieces = new HashMap<String, BlockPiece>();
+
+	// ************************************************
+	// Method: BlockTourBuilder(int)
+	//
+	// Purpose: Constructor. Splits the board side into
+	// blocks of 6 or 8 squares, plus one
+	// block of 7 or 9 squares at the end when
+	// the side is odd. Then only the last block
+	// has an odd number of squares, and every
+	// block before it has an even number, so
+	// the tour always reaches it on the color
+	// of its corners, the only color a path
+	// through it can start on.
+	// ************************************************
+	public BlockTourBuilder(int dimension) {
+		int oddSize = 0, evenSize, numEven, halfSize;
+
+		boardSize = dimension;
+
+		if (dimension < 2 * MIN_BLOCK_SIZE) {
+			blockSizes = new int[] { dimension };
+			return;
+		}
+
+		if (dimension % 2 == 1) {
+			oddSize = dimension - 9 < MIN_BLOCK_SIZE || dimension - 9 == 10 ? 7
+					: 9;
+		}
+
+		evenSize = dimension - oddSize;
+		numEven = (evenSize + 7) / 8;
+		halfSize = evenSize / 2;
+		blockSizes = new int[numEven + (oddSize > 0 ? 1 : 0)];
+
+		for (int block = 0; block < numEven; block++) {
+			blockSizes[block] = 2 * (halfSize / numEven + (block < halfSize
+					% numEven ? 1 : 0));
+		}
+
+		if (oddSize > 0) {
+			blockSizes[numEven] = oddSize;
+		}
+	}
+
+	// ************************************************
+	// Method: getBoardSize()
+	//
+	// Purpose: Returns the dimension of the board.
+	// ************************************************
+	public int getBoardSize() {
+		return boardSize;
+	}
+
+	// ************************************************
+	// Method: getStartRow()
+	//
+	// Purpose: Returns the row the tour starts on.
+	// ************************************************
+	public int getStartRow() {
+		return 0;
+	}
+
+	// ************************************************
+	// Method: getStartCol()
+	//
+	// Purpose: Returns the column the tour starts on.
+	// ************************************************
+	public int getStartCol() {
+		return 0;
+	}
+
+	// ************************************************
+	// Method: build(IntConsumer)
+	//
+	// Purpose: Passes the move number of every move of
+	// the tour to the consumer, in order.
+	// Returns false if no tour could be built,
+	// which happens on boards smaller than 5 x 5
+	// other than 1 x 1; the consumer may have
+	// received some moves by then.
+	// ************************************************
+	public boolean build(IntConsumer moveConsumer) {
+		int numBlocks = blockSizes.length, entry = 0, blockCol, exitKind, nextSize;
+		BlockPiece piece;
+
+		for (int blockRow = 0; blockRow < numBlocks; blockRow++) {
+			for (int step = 0; step < numBlocks; step++) {
+				blockCol = blockRow % 2 == 0 ? step : numBlocks - 1 - step;
+
+				if (step < numBlocks - 1) {
+					exitKind = blockRow % 2 == 0 ? EXIT_RIGHT : EXIT_LEFT;
+					nextSize = blockSizes[blockRow % 2 == 0 ? blockCol + 1
+							: blockCol - 1];
+				} else if (blockRow < numBlocks - 1) {
+					exitKind = EXIT_DOWN;
+					nextSize = blockSizes[blockRow + 1];
+				} else {
+					exitKind = EXIT_NONE;
+					nextSize = 0;
+				}
+
+				piece = findPiece(blockSizes[blockRow], blockSizes[blockCol],
+						entry, exitKind, nextSize);
+
+				if (piece == null) {
+					return false;
+				}
+
+				for (int move = 0; move < piece.moves.length; move++) {
+					moveConsumer.accept(piece.moves[move]);
+				}
+
+				if (exitKind != EXIT_NONE) {
+					moveConsumer.accept(piece.exitMove);
+				}
+
+				entry = piece.nextEntry;
+			}
+		}
+
+		return true;
+	}
+
+	// ************************************************
+	// Method: findPiece(int, int, int, int, int)
+	//
+	// Purpose: Returns the path for a kind of block,
+	// searching for it the first time it is
+	// needed. Returns null if there is none.
+	// ************************************************
+	private BlockPiece findPiece(int height, int width, int entry,
+			int exitKind, int nextSize) {
+		String key = height + "x" + width + ":" + entry + ":" + exitKind + ":"
+				+ nextSize;
+		BlockPiece piece = pieces.get(key);
+
+		if (piece == null && pieces.containsKey(key) == false) {
+			piece = searchPiece(height, width, entry, exitKind, nextSize);
+			pieces.put(key, piece);
+		}
+
+		return piece;
+	}
+
+	// ************************************************
+	// Method: searchPiece(int, int, int, int, int)
+	//
+	// Purpose: Searches for a path through a block that
+	// ends on a square with a knight move into
+	// the next block, and works out that move
+	// and where it lands.
+	// ************************************************
+	private BlockPiece searchPiece(int height, int width, int entry,
+			int exitKind, int nextSize) {
+		boolean[] isExit = new boolean[height * width];
+		int[] path;
+		BlockPiece piece = new BlockPiece();
+
+		for (int square = 0; square < isExit.length; square++) {
+			isExit[square] = exitKind == EXIT_NONE
+					|| findExitMove(square, height, width, exitKind, nextSize) >= 0;
+		}
+
+		path = new BlockPathSearch(height, width, isExit).search(entry,
+				BLOCK_NODE_BUDGET);
+
+		if (path == null) {
+			return null;
+		}
+
+		piece.moves = new byte[path.length - 1];
+
+		for (int step = 1; step < path.length; step++) {
+			piece.moves[step - 1] = (byte) findMoveNumber(path[step - 1],
+					path[step], width);
+		}
+
+		if (exitKind != EXIT_NONE) {
+			int exitSquare = path[path.length - 1];
+
+			piece.exitMove = findExitMove(exitSquare, height, width, exitKind,
+					nextSize);
+			piece.nextEntry = findLanding(exitSquare, piece.exitMove, height,
+					width, exitKind, nextSize);
+		}
+
+		return piece;
+	}
+
+	// ************************************************
+	// Method: findExitMove(int, int, int, int, int)
+	//
+	// Purpose: Returns the first move number that takes
+	// the knight from a square into the next
+	// block onto a square a path through that
+	// block can start on, or -1 if there is
+	// none.
+	// ************************************************
+	private int findExitMove(int square, int height, int width, int exitKind,
+			int nextSize) {
+		for (int moveNum = 0; moveNum < Knight.NUM_ALLOWED_MOVES; moveNum++) {
+			if (findLanding(square, moveNum, height, width, exitKind, nextSize) >= 0) {
+				return moveNum;
+			}
+		}
+
+		return -1;
+	}
+
+	// ************************************************
+	// Method: findLanding(int, int, int, int, int, int)
+	//
+	// Purpose: Returns the square in the next block
+	// that a move lands on, numbered within that
+	// block, or -1 if it lands elsewhere. A
+	// block with an odd number of squares can
+	// only be covered from a square of the
+	// corners' color, so landings on the other
+	// color are rejected.
+	// ************************************************
+	private int findLanding(int square, int moveNum, int height, int width,
+			int exitKind, int nextSize) {
+		int row = square / width + Knight.VERTICAL_MOVES[moveNum], col = square
+				% width + Knight.HORIZONTAL_MOVES[moveNum], nextHeight = height, nextWidth = width;
+
+		if (exitKind == EXIT_RIGHT) {
+			col -= width;
+			nextWidth = nextSize;
+		} else if (exitKind == EXIT_LEFT) {
+			col += nextSize;
+			nextWidth = nextSize;
+		} else {
+			row -= height;
+			nextHeight = nextSize;
+		}
+
+		if (row < 0 || row >= nextHeight || col < 0 || col >= nextWidth) {
+			return -1;
+		}
+
+		if ((nextHeight * nextWidth) % 2 == 1 && (row + col) % 2 == 1) {
+			return -1;
+		}
+
+		return row * nextWidth + col;
+	}
+
+	// ************************************************
+	// Method: findMoveNumber(int, int, int)
+	//
+	// Purpose: Returns the move number that takes the
+	// knight between two squares of a block.
+	// ************************************************
+	private static int findMoveNumber(int from, int to, int width) {
+		int rowChange = to / width - from / width, colChange = to % width
+				- from % width;
+
+		for (int moveNum = 0; moveNum < Knight.NUM_ALLOWED_MOVES; moveNum++) {
+			if (Knight.VERTICAL_MOVES[moveNum] == rowChange
+					&& Knight.HORIZONTAL_MOVES[moveNum] == colChange) {
+				return moveNum;
+			}
+		}
+
+		throw new IllegalStateException("Squares are not a knight move apart");
+	}
+
+	// ****************************************************
+	// Class: BlockPiece
+	//
+	// Purpose: Path through one kind of block.
+	// ****************************************************
+	static class BlockPiece {
+		byte[] moves; // Move numbers of the path inside the block
+		int exitMove = -1; // Move number into the next block
+		int nextEntry = -1; // Square the path through the next block starts
+							// on
+	}
+}
@@ -0,0 +1,179 @@
+//****************************************************
+//File: BoardSymmetry
+//
+//Purpose: The eight rotations and reflections of a
+//		   square board. Each one maps knight moves to
+//		   knight moves, so a tour from one start
+//		   square becomes a tour of the same length
+//		   from its image just by renumbering every
+//		   move through an eight entry table; the
+//		   board never has to be played again.
+//
+//		   Every start square has a canonical image,
+//		   the lowest numbered square it can be mapped
+//		   to, and only about one start square in
+//		   eight is canonical.
+//****************************************************
+
+package thesecretsquad.Chess;
+
+public enum BoardSymmetry {
+	IDENTITY(false, false, false),
+	ROTATE_90(true, false, true), // Clockwise
+	ROTATE_180(false, true, true),
+	ROTATE_270(true, true, false),
+	FLIP_HORIZONTAL(false, false, true), // Left and right swapped
+	FLIP_VERTICAL(false, true, false), // Top and bottom swapped
+	TRANSPOSE(true, false, false), // Mirrored in the main diagonal
+	ANTI_TRANSPOSE(true, true, true); // Mirrored in the other diagonal
+
+	private final boolean swap; // Flag: true if rows and columns trade places
+	private final boolean flipRows; // Flag: true if rows are then reversed
+	private final boolean flipCols; // Flag: true if columns are then reversed
+	// Move number each knight move is turned into
+	private final byte[] moveMap = new byte[Knight.NUM_ALLOWED_MOVES];
+	private BoardSymmetry inverse; // Symmetry that undoes this one
+
+	static {
+		for (BoardSymmetry symmetry : values()) {
+			symmetry.buildMoveMap();
+		}
+
+		for (BoardSymmetry symmetry : values()) {
+			for (BoardSymmetry other : values()) {
+				if (other.transformMove(symmetry.transformMove(0)) == 0
+						&& other.transformMove(symmetry.transformMove(1)) == 1) {
+					symmetry.inverse = other;
+				}
+			}
+		}
+	}
+
+	// ************************************************
+	// Method: BoardSymmetry(boolean, boolean, boolean)
+	//
+	// Purpose: Constructor. A symmetry first swaps rows
+	// and columns if asked, then reverses the
+	// rows and the columns if asked.
+	// ************************************************
+	private BoardSymmetry(boolean swap, boolean flipRows, boolean flipCols) {
+		this.swap = swap;
+		this.flipRows = flipRows;
+		this.flipCols = flipCols;
+	}
+
+	// ************************************************
+	// Method: buildMoveMap()
+	//
+	// Purpose: Finds the move number each knight move is
+	// turned into.
+	// ************************************************
+	private void buildMoveMap() {
+		int rowChange, colChange;
+
+		for (int moveNum = 0; moveNum < Knight.NUM_ALLOWED_MOVES; moveNum++) {
+			rowChange = swap ? Knight.HORIZONTAL_MOVES[moveNum]
+					: Knight.VERTICAL_MOVES[moveNum];
+			colChange = swap ? Knight.VERTICAL_MOVES[moveNum]
+					: Knight.HORIZONTAL_MOVES[moveNum];
+			rowChange = flipRows ? -rowChange : rowChange;
+			colChange = flipCols ? -colChange : colChange;
+
+			for (int image = 0; image < Knight.NUM_ALLOWED_MOVES; image++) {
+				if (Knight.VERTICAL_MOVES[image] == rowChange
+						&& Knight.HORIZONTAL_MOVES[image] == colChange) {
+					moveMap[moveNum] = (byte) image;
+				}
+			}
+		}
+	}
+
+	// ************************************************
+	// Method: inverse()
+	//
+	// Purpose: Returns the symmetry that undoes this one.
+	// ************************************************
+	public BoardSymmetry inverse() {
+		return inverse;
+	}
+
+	// ************************************************
+	// Method: transformMove(int)
+	//
+	// Purpose: Returns the move number a knight move is
+	// turned into.
+	// ************************************************
+	public int transformMove(int moveNumber) {
+		return moveMap[moveNumber];
+	}
+
+	// ************************************************
+	// Method: transformRow(int, int, int)
+	//
+	// Purpose: Returns the row a square is moved to on a
+	// board of the given size.
+	// ************************************************
+	public int transformRow(int row, int col, int boardSize) {
+		int newRow = swap ? col : row;
+
+		return flipRows ? boardSize - 1 - newRow : newRow;
+	}
+
+	// ************************************************
+	// Method: transformCol(int, int, int)
+	//
+	// Purpose: Returns the column a square is moved to
+	// on a board of the given size.
+	// ************************************************
+	public int transformCol(int row, int col, int boardSize) {
+		int newCol = swap ? row : col;
+
+		return flipCols ? boardSize - 1 - newCol : newCol;
+	}
+
+	// ************************************************
+	// Method: transformSquare(int, int)
+	//
+	// Purpose: Returns the index, row * size + col, a
+	// square is moved to.
+	// ************************************************
+	public int transformSquare(int square, int boardSize) {
+		int row = square / boardSize, col = square % boardSize;
+
+		return transformRow(row, col, boardSize) * boardSize
+				+ transformCol(row, col, boardSize);
+	}
+
+	// ************************************************
+	// Method: toCanonical(int, int, int)
+	//
+	// Purpose: Returns the symmetry that maps a square to
+	// its canonical image, the lowest numbered
+	// square of the eight.
+	// ************************************************
+	public static BoardSymmetry toCanonical(int boardSize, int row, int col) {
+		BoardSymmetry best = IDENTITY;
+		int square = row * boardSize + col, lowest = square, image;
+
+		for (BoardSymmetry symmetry : values()) {
+			image = symmetry.transformSquare(square, boardSize);
+
+			if (image < lowest) {
+				lowest = image;
+				best = symmetry;
+			}
+		}
+
+		return best;
+	}
+
+	// ************************************************
+	// Method: isCanonical(int, int, int)
+	//
+	// Purpose: Returns true if a square is its own
+	// canonical image.
+	// ************************************************
+	public static boolean isCanonical(int boardSize, int row, int col) {
+		return toCanonical(boardSize, row, col) == IDENTITY;
+	}
+}
@@ -14,6 +14,9 @@ public class ChessBoard {
 	private Knight currentKnight; // Reference to the knight currently on the
 									// board
 	private final int BOARD_SIZE; // Dimension of the board, e.g., 8 x 8
+	private final KnightGraph knightGraph; // Knight moves that stay on the
+											// board, shared by boards of the
+											// same size
 
 	// ************************************************
 	// Method: ChessBoard(Knight)
@@ -22,7 +25,7 @@ public class ChessBoard {
 	// ************************************************
 	public ChessBoard(Knight knight) {
 		BOARD_SIZE = 8;
-		playingBoard = new Square[BOARD_SIZE][BOARD_SIZE];
+		knightGraph = KnightGraph.forSize(BOARD_SIZE);
 		currentKnight = knight;
 
 		createSquares();
@@ -36,7 +39,7 @@ public class ChessBoard {
 	// ************************************************
 	public ChessBoard(Knight knight, int dimension) {
 		BOARD_SIZE = dimension;
-		playingBoard = new Square[BOARD_SIZE][BOARD_SIZE];
+		knightGraph = KnightGraph.forSize(BOARD_SIZE);
 		currentKnight = knight;
 
 		createSquares();
@@ -47,8 +50,12 @@ public class ChessBoard {
 	// Method: createSquares()
 	//
 	// Purpose: Creates squares in array.
+	// Subclasses that store squares differently
+	// override this to allocate their own storage.
 	// ************************************************
 	public void createSquares() {
+		playingBoard = new Square[BOARD_SIZE][BOARD_SIZE];
+
 		for (int row = 0; row < BOARD_SIZE; row++) {
 			for (int col = 0; col < BOARD_SIZE; col++) {
 				playingBoard[row][col] = new Square();
@@ -56,6 +63,23 @@ public class ChessBoard {
 		}
 	}
 
+	// ************************************************
+	// Method: resetBoard()
+	//
+	// Purpose: Returns every square to its unplayed
+	// state so the board can be used for
+	// another tour without reallocating it.
+	// ************************************************
+	public void resetBoard() {
+		for (int row = 0; row < BOARD_SIZE; row++) {
+			for (int col = 0; col < BOARD_SIZE; col++) {
+				unmarkBoardSquare(row, col);
+			}
+		}
+
+		createHeuristics();
+	}
+
 	// ************************************************
 	// Method: addKnight()
 	//
@@ -74,6 +98,16 @@ public class ChessBoard {
 		return BOARD_SIZE;
 	}
 
+	// ************************************************
+	// Method: getKnightGraph()
+	//
+	// Purpose: Returns the table of knight moves that
+	// stay on the board.
+	// ************************************************
+	public KnightGraph getKnightGraph() {
+		return knightGraph;
+	}
+
 	// ************************************************
 	// Method: getSquareAt()
 	//
@@ -94,6 +128,16 @@ public class ChessBoard {
 		playingBoard[row][col].setVisited(true);
 	}
 
+	// ************************************************
+	// Method: clearSquareVisited(int, int)
+	//
+	// Purpose: Sets the boolean value false on a square
+	// to indicate that it has not been visited.
+	// ************************************************
+	public void clearSquareVisited(int row, int col) {
+		playingBoard[row][col].setVisited(false);
+	}
+
 	// ************************************************
 	// Method: isSquareVisited(int, int)
 	//
@@ -104,6 +148,16 @@ public class ChessBoard {
 		return playingBoard[row][col].isVisited();
 	}
 
+	// ************************************************
+	// Method: isSquareVisited(int)
+	//
+	// Purpose: Returns true if the square with the
+	// index row * size + col has been visited.
+	// ************************************************
+	public boolean isSquareVisited(int square) {
+		return isSquareVisited(square / BOARD_SIZE, square % BOARD_SIZE);
+	}
+
 	// ************************************************
 	// Method: setSquareAccessibility(int, int, int)
 	//
@@ -125,6 +179,16 @@ public class ChessBoard {
 		return playingBoard[row][col].getAccessibility();
 	}
 
+	// ************************************************
+	// Method: getSquareAccessibility(int)
+	//
+	// Purpose: Returns the accessibility level of the
+	// square with the index row * size + col.
+	// ************************************************
+	public int getSquareAccessibility(int square) {
+		return getSquareAccessibility(square / BOARD_SIZE, square % BOARD_SIZE);
+	}
+
 	// ************************************************
 	// Method: decrSquareAccessibility(int, int)
 	//
@@ -136,6 +200,37 @@ public class ChessBoard {
 		playingBoard[row][col].decrAccessibility();
 	}
 
+	// ************************************************
+	// Method: decrSquareAccessibility(int)
+	//
+	// Purpose: Decreases the accessibility of the
+	// square with the index row * size + col by 1.
+	// ************************************************
+	public void decrSquareAccessibility(int square) {
+		decrSquareAccessibility(square / BOARD_SIZE, square % BOARD_SIZE);
+	}
+
+	// ************************************************
+	// Method: incrSquareAccessibility(int, int)
+	//
+	// Purpose: Increases the accessibility of the
+	// square by 1 at the row and column
+	// specified by the parameters.
+	// ************************************************
+	public void incrSquareAccessibility(int row, int col) {
+		playingBoard[row][col].incrAccessibility();
+	}
+
+	// ************************************************
+	// Method: incrSquareAccessibility(int)
+	//
+	// Purpose: Increases the accessibility of the
+	// square with the index row * size + col by 1.
+	// ************************************************
+	public void incrSquareAccessibility(int square) {
+		incrSquareAccessibility(square / BOARD_SIZE, square % BOARD_SIZE);
+	}
+
 	// ************************************************
 	// Method: setSquareMoveNumber(int, int, int)
 	//
@@ -171,6 +266,19 @@ public class ChessBoard {
 		setSquareMoveNumber(curRow, curCol, moveCounter);
 	}
 
+	// ************************************************
+	// Method: unmarkBoardSquare(int, int)
+	//
+	// Purpose: Reverses markBoardSquare. Clears the
+	// move number and the visited status of the
+	// square at the row and column supplied by
+	// the parameters.
+	// ************************************************
+	public void unmarkBoardSquare(int curRow, int curCol) {
+		clearSquareVisited(curRow, curCol);
+		setSquareMoveNumber(curRow, curCol, 0);
+	}
+
 	// ************************************************
 	// Method: showGameBoard()
 	//
@@ -180,8 +288,7 @@ public class ChessBoard {
 	public void showGameBoard() {
 		for (int row = 0; row < BOARD_SIZE; row++) {
 			for (int col = 0; col < BOARD_SIZE; col++) {
-				System.out
-						.printf("%3d", playingBoard[row][col].getMoveNumber());
+				System.out.printf("%3d", getSquareMoveNumber(row, col));
 				if (col == BOARD_SIZE - 1) {
 					System.out.println();
 				}
@@ -206,39 +313,19 @@ public class ChessBoard {
 	}
 
 	// ************************************************
-	// Method: createHeuristics(Knight)
+	// Method: createHeuristics()
 	//
-	// Purpose: Uses a dummy Knight object to play
-	// through all possible moves for every
-	// square on the game board.
-	// The number of possible moves from each
-	// square is recorded in the
-	// m_aiAccessibility array.
-	// ************************************************
-	private void createHeuristics() {
-		int linkCount = 0, // Stores the number of linking squares for a
-							// particular square
-		testRow, // Knight's current row plus a move number value
-		testCol; // Knight's current column plus a move number value
-
-		// Adds a move number value to the knight's current row and tests
-		// whether it is a move candidate.
-		// If the location is on the game board, it increments the link count
+	// Purpose: Sets the accessibility of every square
+	// to the number of knight moves from it
+	// that stay on the board, as listed in
+	// the knight graph. Subclasses that store
+	// accessibility in an array copy it in bulk.
+	// ************************************************
+	protected void createHeuristics() {
 		for (int row = 0; row < BOARD_SIZE; row++) {
 			for (int col = 0; col < BOARD_SIZE; col++) {
-				for (int moveNum = 0; moveNum < Knight.NUM_ALLOWED_MOVES; moveNum++) {
-					testRow = row + currentKnight.getVerticalMoveValue(moveNum);
-					testCol = col
-							+ currentKnight.getHorizontalMoveValue(moveNum);
-
-					if (checkSquareExistsAndIsUnVisted(testRow, testCol) == true) {
-						linkCount++;
-					}
-				}
-
-				// Set accessibility and reset link count for next column
-				setSquareAccessibility(row, col, linkCount);
-				linkCount = 0;
+				setSquareAccessibility(row, col,
+						knightGraph.getDegree(row * BOARD_SIZE + col));
 			}
 		}
 	}
@@ -267,32 +354,20 @@ public class ChessBoard {
 	}
 
 	// ************************************************
-	// Method: lowerAccessibility(Knight)
+	// Method: lowerAccessibility()
 	//
 	// Purpose: Checks all the squares that are
 	// accessible from the current square
 	// and reduces their accessibility by 1.
 	// ************************************************
 	public void lowerAccessibility() {
-		int[] possibleMoves;
-		int numOfPossibleMoves, curRow = currentKnight.getCurrentRow(), curCol = currentKnight
-				.getCurrentCol(), changeRow, changeCol;
-
-		// Get the number of possible moves
-		numOfPossibleMoves = currentKnight.findNumOfPossibleMoves(this);
-
-		// Create an array with the size of the number of possible moves
-		possibleMoves = new int[numOfPossibleMoves];
-
-		// Get the move numbers of the possible moves
-		possibleMoves = currentKnight.findPossibleMoves(this, numOfPossibleMoves);
+		int square = currentKnight.getCurrentSquare(this), neighborSquare;
 
-		for (int moveNum = 0; moveNum < possibleMoves.length; moveNum++) {
-			changeRow = curRow + currentKnight.getVerticalMoveValue(possibleMoves[moveNum]);
-			changeCol = curCol + currentKnight.getHorizontalMoveValue(possibleMoves[moveNum]);
+		for (int moves = knightGraph.getMoveMask(square); moves != 0; moves &= moves - 1) {
+			neighborSquare = knightGraph.getNeighbor(square, moves);
 
-			if (isSquareVisited(changeRow, changeCol) == false) {
-				decrSquareAccessibility(changeRow, changeCol);
+			if (isSquareVisited(neighborSquare) == false) {
+				decrSquareAccessibility(neighborSquare);
 			}
 		}
 	}
@@ -0,0 +1,418 @@
+//****************************************************
+//File: ClosedTour
+//
+//Purpose: Builds a closed knight's tour: a path that
+//		   visits every square once and ends a knight
+//		   move away from where it started, so it can
+//		   be started from any of its squares. A greedy
+//		   accessibility pass builds a long path that
+//		   keeps the neighbors of the start square for
+//		   last, and Posa rotations then extend it to
+//		   every square and bend its end back round to
+//		   its start. Squares are numbered
+//		   row * size + col.
+//****************************************************
+
+package thesecretsquad.Chess;
+
+import java.util.Random;
+
+public class ClosedTour {
+	public static final long DEFAULT_ROTATION_BUDGET = 100000; // Default
+																// limit on
+																// rotations
+
+	private final KnightGraph knightGraph; // Knight moves on the board
+	private final int boardSize; // Dimension of the board
+	private final int numSquares; // Number of squares on the board
+	private final int[] path; // Square at each position of the path
+	private final int[] position; // Position of each square on the path, or
+									// -1 if it is not on the path
+	private final int[] accessibility; // Unvisited neighbors of each square
+	private final Random random = new Random(1); // Picks rotations when no
+													// rotation helps directly
+	private int pathLength; // Number of squares on the path
+	private long rotationBudget = DEFAULT_ROTATION_BUDGET; // Rotations allowed
+															// per build
+	private long rotations; // Rotations made by the last build
+	private boolean closed; // Flag: true if the path is a closed tour
+
+	// ************************************************
+	// Method: ClosedTour(int)
+	//
+	// Purpose: Constructor. Nothing is built until
+	// build is called.
+	// ************************************************
+	public ClosedTour(int dimension) {
+		knightGraph = KnightGraph.forSize(dimension);
+		boardSize = dimension;
+		numSquares = dimension * dimension;
+		path = new int[numSquares];
+		position = new int[numSquares];
+		accessibility = new int[numSquares];
+	}
+
+	// ************************************************
+	// Method: setRotationBudget(long)
+	//
+	// Purpose: Sets the number of rotations a build may
+	// make before it gives up.
+	// ************************************************
+	public void setRotationBudget(long rotationBudget) {
+		this.rotationBudget = rotationBudget;
+	}
+
+	// ************************************************
+	// Method: getRotations()
+	//
+	// Purpose: Returns the number of rotations made by
+	// the last build.
+	// ************************************************
+	public long getRotations() {
+		return rotations;
+	}
+
+	// ************************************************
+	// Method: getBoardSize()
+	//
+	// Purpose: Returns the dimension of the board.
+	// ************************************************
+	public int getBoardSize() {
+		return boardSize;
+	}
+
+	// ************************************************
+	// Method: build(int, int)
+	//
+	// Purpose: Builds a closed tour through a start
+	// square and rotates it to begin there.
+	// Returns true if a closed tour was found.
+	// Boards with an odd number of squares and
+	// boards smaller than 6 x 6 have none, so
+	// they fail at once.
+	// ************************************************
+	public boolean build(int startRow, int startCol) {
+		int start = startRow * boardSize + startCol;
+
+		closed = false;
+		rotations = 0;
+		pathLength = 0;
+
+		if (boardSize % 2 == 1 || boardSize < 6) {
+			return false;
+		}
+
+		for (int square = 0; square < numSquares; square++) {
+			position[square] = -1;
+			accessibility[square] = knightGraph.getDegree(square);
+		}
+
+		// The start square is not taken off its neighbors' accessibility,
+		// so the greedy pass leaves them until late and ends next to it
+		addToPath(start, false);
+		extendGreedily();
+
+		while (pathLength < numSquares || isAdjacent(path[pathLength - 1],
+				path[0]) == false) {
+			if (rotations >= rotationBudget) {
+				return false;
+			}
+
+			rotate();
+			rotations++;
+			extendGreedily();
+		}
+
+		closed = true;
+		rotateToStart(start);
+
+		return true;
+	}
+
+	// ************************************************
+	// Method: addToPath(int, boolean)
+	//
+	// Purpose: Appends a square to the path, lowering
+	// the accessibility of its neighbors if
+	// asked to.
+	// ************************************************
+	private void addToPath(int square, boolean lowerNeighbors) {
+		position[square] = pathLength;
+		path[pathLength++] = square;
+
+		if (lowerNeighbors == true) {
+			for (int moves = knightGraph.getMoveMask(square); moves != 0; moves &= moves - 1) {
+				accessibility[knightGraph.getNeighbor(square, moves)]--;
+			}
+		}
+	}
+
+	// ************************************************
+	// Method: extendGreedily()
+	//
+	// Purpose: Extends the end of the path onto the
+	// least accessible square it can reach,
+	// breaking ties toward the square furthest
+	// from the start so the start's surroundings
+	// are visited last, then toward the square
+	// furthest from the center, until the end
+	// has no unvisited neighbor.
+	// ************************************************
+	private void extendGreedily() {
+		int end, best, test;
+
+		while (pathLength < numSquares) {
+			end = path[pathLength - 1];
+			best = -1;
+
+			for (int moves = knightGraph.getMoveMask(end); moves != 0; moves &= moves - 1) {
+				test = knightGraph.getNeighbor(end, moves);
+
+				if (position[test] < 0 && (best < 0 || isBetterSquare(test, best))) {
+					best = test;
+				}
+			}
+
+			if (best < 0) {
+				return;
+			}
+
+			addToPath(best, true);
+		}
+	}
+
+	// ************************************************
+	// Method: isBetterSquare(int, int)
+	//
+	// Purpose: Returns true if the greedy pass should
+	// prefer the first square to the second.
+	// ************************************************
+	private boolean isBetterSquare(int square, int otherSquare) {
+		int distance, otherDistance;
+
+		if (accessibility[square] != accessibility[otherSquare]) {
+			return accessibility[square] < accessibility[otherSquare];
+		}
+
+		distance = findDistance(square, path[0]);
+		otherDistance = findDistance(otherSquare, path[0]);
+
+		if (distance != otherDistance) {
+			return distance > otherDistance;
+		}
+
+		return knightGraph.getDistanceFromCenter(square) > knightGraph
+				.getDistanceFromCenter(otherSquare);
+	}
+
+	// ************************************************
+	// Method: findDistance(int, int)
+	//
+	// Purpose: Returns the squared distance between two
+	// squares.
+	// ************************************************
+	private int findDistance(int square, int otherSquare) {
+		int rowDistance = square / boardSize - otherSquare / boardSize, colDistance = square
+				% boardSize - otherSquare % boardSize;
+
+		return rowDistance * rowDistance + colDistance * colDistance;
+	}
+
+	// ************************************************
+	// Method: rotate()
+	//
+	// Purpose: Makes one Posa rotation. If the end of
+	// the path is a knight move from the square
+	// at position i, reversing the path after i
+	// keeps it a path and makes the square at
+	// i + 1 the new end. A rotation whose new
+	// end closes the path, or can extend it, is
+	// taken first; otherwise one is picked at
+	// random, sometimes after swapping the ends
+	// of the path, so the search does not cycle.
+	// ************************************************
+	private void rotate() {
+		int end, pivot, choice = -1, count = 0;
+
+		if (random.nextInt(4) == 0) {
+			reversePath(0);
+		}
+
+		end = path[pathLength - 1];
+
+		for (int moves = knightGraph.getMoveMask(end); moves != 0; moves &= moves - 1) {
+			pivot = position[knightGraph.getNeighbor(end, moves)];
+
+			if (pivot < 0 || pivot >= pathLength - 2) {
+				continue;
+			}
+
+			if (isAdjacent(path[pivot + 1], path[0]) == true
+					|| hasUnvisitedNeighbor(path[pivot + 1]) == true) {
+				reversePath(pivot + 1);
+				return;
+			}
+
+			// Choose uniformly among the other rotations
+			if (random.nextInt(++count) == 0) {
+				choice = pivot;
+			}
+		}
+
+		if (choice >= 0) {
+			reversePath(choice + 1);
+		}
+	}
+
+	// ************************************************
+	// Method: reversePath(int)
+	//
+	// Purpose: Reverses the path from a position to its
+	// end.
+	// ************************************************
+	private void reversePath(int from) {
+		int to = pathLength - 1, square;
+
+		while (from < to) {
+			square = path[from];
+			path[from] = path[to];
+			path[to] = square;
+			position[path[from]] = from;
+			position[path[to]] = to;
+			from++;
+			to--;
+		}
+	}
+
+	// ************************************************
+	// Method: hasUnvisitedNeighbor(int)
+	//
+	// Purpose: Returns true if a square has a neighbor
+	// that is not on the path.
+	// ************************************************
+	private boolean hasUnvisitedNeighbor(int square) {
+		for (int moves = knightGraph.getMoveMask(square); moves != 0; moves &= moves - 1) {
+			if (position[knightGraph.getNeighbor(square, moves)] < 0) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	// ************************************************
+	// Method: isAdjacent(int, int)
+	//
+	// Purpose: Returns true if two squares are a knight
+	// move apart.
+	// ************************************************
+	private boolean isAdjacent(int square, int otherSquare) {
+		for (int moves = knightGraph.getMoveMask(square); moves != 0; moves &= moves - 1) {
+			if (knightGraph.getNeighbor(square, moves) == otherSquare) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	// ************************************************
+	// Method: rotateToStart(int)
+	//
+	// Purpose: Shifts the closed tour so that it begins
+	// on a square.
+	// ************************************************
+	private void rotateToStart(int start) {
+		int[] shifted = getCycleFrom(start / boardSize, start % boardSize);
+
+		System.arraycopy(shifted, 0, path, 0, numSquares);
+
+		for (int pos = 0; pos < numSquares; pos++) {
+			position[path[pos]] = pos;
+		}
+	}
+
+	// ************************************************
+	// Method: isHamiltonianCycle()
+	//
+	// Purpose: Returns true if the last build produced
+	// a tour that visits every square once and
+	// ends a knight move from its start.
+	// ************************************************
+	public boolean isHamiltonianCycle() {
+		return closed == true && isHamiltonianCycle(boardSize, path);
+	}
+
+	// ************************************************
+	// Method: getCycle()
+	//
+	// Purpose: Returns a copy of the closed tour as
+	// square indices, beginning on the start
+	// square of the last build, or null if the
+	// build failed.
+	// ************************************************
+	public int[] getCycle() {
+		return closed == true ? path.clone() : null;
+	}
+
+	// ************************************************
+	// Method: getCycleFrom(int, int)
+	//
+	// Purpose: Returns a copy of the closed tour rotated
+	// to begin on any square, or null if the
+	// build failed.
+	// ************************************************
+	public int[] getCycleFrom(int startRow, int startCol) {
+		int[] rotated;
+		int offset;
+
+		if (closed == false) {
+			return null;
+		}
+
+		rotated = new int[numSquares];
+		offset = position[startRow * boardSize + startCol];
+
+		System.arraycopy(path, offset, rotated, 0, numSquares - offset);
+		System.arraycopy(path, 0, rotated, numSquares - offset, offset);
+
+		return rotated;
+	}
+
+	// ************************************************
+	// Method: isHamiltonianCycle(int, int[])
+	//
+	// Purpose: Returns true if a list of square indices
+	// visits every square of a board once, each
+	// a knight move from the one before, and the
+	// last a knight move from the first.
+	// ************************************************
+	public static boolean isHamiltonianCycle(int dimension, int[] squares) {
+		boolean[] seen;
+		int numSquares = dimension * dimension, rowChange, colChange, next;
+
+		if (squares == null || squares.length != numSquares || numSquares < 2) {
+			return false;
+		}
+
+		seen = new boolean[numSquares];
+
+		for (int pos = 0; pos < numSquares; pos++) {
+			if (squares[pos] < 0 || squares[pos] >= numSquares
+					|| seen[squares[pos]] == true) {
+				return false;
+			}
+
+			seen[squares[pos]] = true;
+			next = squares[(pos + 1) % numSquares];
+			rowChange = Math.abs(next / dimension - squares[pos] / dimension);
+			colChange = Math.abs(next % dimension - squares[pos] % dimension);
+
+			if (rowChange * colChange != 2) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+}
@@ -0,0 +1,253 @@
+//****************************************************
+//File: CompactChessBoard
+//
+//Purpose: Chess board that stores its squares in flat
+//		   primitive arrays instead of Square objects.
+//		   Every array is indexed by row * size + col.
+//****************************************************
+
+package thesecretsquad.Chess;
+
+import java.util.Arrays;
+
+public class CompactChessBoard extends ChessBoard {
+	private long[] visitedSquares; // Bitset of visited squares, one bit per
+									// square
+	private byte[] accessibility; // Number of possible moves from each square
+									// (never more than 8)
+	private int[] moveNumbers; // Move counter value each square was marked
+								// with
+
+	// ************************************************
+	// Method: CompactChessBoard(Knight)
+	//
+	// Purpose: Constructor
+	// ************************************************
+	public CompactChessBoard(Knight knight) {
+		super(knight);
+	}
+
+	// ************************************************
+	// Method: CompactChessBoard(Knight, int)
+	//
+	// Purpose: Constructor
+	// ************************************************
+	public CompactChessBoard(Knight knight, int dimension) {
+		super(knight, dimension);
+	}
+
+	// ************************************************
+	// Method: createSquares()
+	//
+	// Purpose: Allocates the flat arrays that hold the
+	// state of every square. Called by the
+	// ChessBoard constructor, so the arrays
+	// are assigned here rather than in field
+	// initializers.
+	// ************************************************
+	@Override
+	public void createSquares() {
+		int numSquares = getBoardSize() * getBoardSize();
+
+		visitedSquares = new long[(numSquares + 63) >>> 6];
+		accessibility = new byte[numSquares];
+		moveNumbers = new int[numSquares];
+	}
+
+	// ************************************************
+	// Method: resetBoard()
+	//
+	// Purpose: Clears the visited bits and move numbers
+	// in bulk and restores the accessibility of
+	// every square.
+	// ************************************************
+	@Override
+	public void resetBoard() {
+		Arrays.fill(visitedSquares, 0L);
+		Arrays.fill(moveNumbers, 0);
+		createHeuristics();
+	}
+
+	// ************************************************
+	// Method: createHeuristics()
+	//
+	// Purpose: Copies the starting accessibility of
+	// every square from the shared knight graph
+	// in a single arraycopy.
+	// ************************************************
+	@Override
+	protected void createHeuristics() {
+		getKnightGraph().copyDegrees(accessibility);
+	}
+
+	// ************************************************
+	// Method: getSquareAt()
+	//
+	// Purpose: Returns a Square holding a copy of the
+	// state at a specified row and column.
+	// Changes to the returned square are not
+	// written back to the board.
+	// ************************************************
+	@Override
+	public Square getSquareAt(int row, int col) {
+		Square square = new Square();
+
+		square.setVisited(isSquareVisited(row, col));
+		square.setMoveNumber(getSquareMoveNumber(row, col));
+		square.setAccessibility(getSquareAccessibility(row, col));
+
+		return square;
+	}
+
+	// ************************************************
+	// Method: setSquareVisited(int, int)
+	//
+	// Purpose: Sets the visited bit of a square.
+	// ************************************************
+	@Override
+	public void setSquareVisited(int row, int col) {
+		int index = toIndex(row, col);
+
+		visitedSquares[index >>> 6] |= 1L << index;
+	}
+
+	// ************************************************
+	// Method: clearSquareVisited(int, int)
+	//
+	// Purpose: Clears the visited bit of a square.
+	// ************************************************
+	@Override
+	public void clearSquareVisited(int row, int col) {
+		int index = toIndex(row, col);
+
+		visitedSquares[index >>> 6] &= ~(1L << index);
+	}
+
+	// ************************************************
+	// Method: isSquareVisited(int, int)
+	//
+	// Purpose: Returns true if the visited bit of the
+	// square is set.
+	// ************************************************
+	@Override
+	public boolean isSquareVisited(int row, int col) {
+		return isSquareVisited(toIndex(row, col));
+	}
+
+	// ************************************************
+	// Method: isSquareVisited(int)
+	//
+	// Purpose: Returns true if the visited bit of the
+	// square with the given index is set.
+	// ************************************************
+	@Override
+	public boolean isSquareVisited(int square) {
+		return (visitedSquares[square >>> 6] & (1L << square)) != 0;
+	}
+
+	// ************************************************
+	// Method: setSquareAccessibility(int, int, int)
+	//
+	// Purpose: Sets the accessibility level of a square.
+	// ************************************************
+	@Override
+	public void setSquareAccessibility(int row, int col, int accessibility) {
+		this.accessibility[toIndex(row, col)] = (byte) accessibility;
+	}
+
+	// ************************************************
+	// Method: getSquareAccessibility(int, int)
+	//
+	// Purpose: Returns the accessibility level of a
+	// square.
+	// ************************************************
+	@Override
+	public int getSquareAccessibility(int row, int col) {
+		return accessibility[toIndex(row, col)];
+	}
+
+	// ************************************************
+	// Method: getSquareAccessibility(int)
+	//
+	// Purpose: Returns the accessibility level of the
+	// square with the given index.
+	// ************************************************
+	@Override
+	public int getSquareAccessibility(int square) {
+		return accessibility[square];
+	}
+
+	// ************************************************
+	// Method: decrSquareAccessibility(int, int)
+	//
+	// Purpose: Decreases the accessibility of a square
+	// by 1.
+	// ************************************************
+	@Override
+	public void decrSquareAccessibility(int row, int col) {
+		accessibility[toIndex(row, col)]--;
+	}
+
+	// ************************************************
+	// Method: decrSquareAccessibility(int)
+	//
+	// Purpose: Decreases the accessibility of the
+	// square with the given index by 1.
+	// ************************************************
+	@Override
+	public void decrSquareAccessibility(int square) {
+		accessibility[square]--;
+	}
+
+	// ************************************************
+	// Method: incrSquareAccessibility(int, int)
+	//
+	// Purpose: Increases the accessibility of a square
+	// by 1.
+	// ************************************************
+	@Override
+	public void incrSquareAccessibility(int row, int col) {
+		accessibility[toIndex(row, col)]++;
+	}
+
+	// ************************************************
+	// Method: incrSquareAccessibility(int)
+	//
+	// Purpose: Increases the accessibility of the
+	// square with the given index by 1.
+	// ************************************************
+	@Override
+	public void incrSquareAccessibility(int square) {
+		accessibility[square]++;
+	}
+
+	// ************************************************
+	// Method: setSquareMoveNumber(int, int, int)
+	//
+	// Purpose: Sets the move counter value of a square.
+	// ************************************************
+	@Override
+	public void setSquareMoveNumber(int row, int col, int moveCounter) {
+		moveNumbers[toIndex(row, col)] = moveCounter;
+	}
+
+	// ************************************************
+	// Method: getSquareMoveNumber(int, int)
+	//
+	// Purpose: Returns the move counter value of a square.
+	// ************************************************
+	@Override
+	public int getSquareMoveNumber(int row, int col) {
+		return moveNumbers[toIndex(row, col)];
+	}
+
+	// ************************************************
+	// Method: toIndex(int, int)
+	//
+	// Purpose: Converts a row and column to the index
+	// used by the flat arrays.
+	// ************************************************
+	private int toIndex(int row, int col) {
+		return row * getBoardSize() + col;
+	}
+}
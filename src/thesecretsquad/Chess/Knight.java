@@ -9,10 +9,6 @@
 package thesecretsquad.Chess;
 
 public class Knight {
-	private int[] horizontalMovesAvail; // Horizontal move values that are
-										// available to the knight
-	private int[] verticalMovesAvail; // Vertical move values that are available
-										// to the knight
 	private int currentRow; // Current row location of the knight
 	private int currentCol; // Current column location of the knight
 	private int previousRow; // Row the knight was previously on before moving
@@ -20,23 +16,30 @@ public class Knight {
 								// moving
 	private int moveCounter; // Keeps track of how many moves the knight has
 								// made (1 - 64)
+	private TieBreaker tieBreaker = TieBreaker.MOVE_ORDER; // Rule for choosing
+															// between equally
+															// accessible moves
+	private int[] tieSizes; // Counts of moves chosen from each size of tie,
+							// or null when ties are not counted
 	public static final int NUM_ALLOWED_MOVES = 8; // Number of moves the knight
 													// is allowed to make
 
+	// Move values shared by every knight. Move numbers index both arrays:
+	// horizontal R R L L L L R R, vertical U U U U D D D D.
+	static final int[] HORIZONTAL_MOVES = { 2, 1, -1, -2, -2, -1, 1, 2 };
+	static final int[] VERTICAL_MOVES = { -1, -2, -2, -1, 1, 2, 2, 1 };
+
 	// ************************************************
 	// Method: Knight()
 	//
 	// Purpose: Constructor
 	// ************************************************
 	public Knight() {
-		horizontalMovesAvail = new int[NUM_ALLOWED_MOVES];
-		verticalMovesAvail = new int[NUM_ALLOWED_MOVES];
 		moveCounter = 1;
 		setCurrentRow(0);
 		setCurrentCol(0);
 		setPreviousRow(0);
 		setPreviousCol(0);
-		fillMoves();
 	}
 
 	// ************************************************
@@ -45,14 +48,26 @@ public class Knight {
 	// Purpose: Constructor
 	// ************************************************
 	public Knight(int startRow, int startCol) {
-		horizontalMovesAvail = new int[NUM_ALLOWED_MOVES];
-		verticalMovesAvail = new int[NUM_ALLOWED_MOVES];
 		moveCounter = 1;
 		setCurrentRow(startRow);
 		setCurrentCol(startCol);
 		setPreviousRow(startRow);
 		setPreviousCol(startCol);
-		fillMoves();
+	}
+
+	// ************************************************
+	// Method: resetKnight(int, int)
+	//
+	// Purpose: Puts the knight back on a start square
+	// with no moves made, so it can play another
+	// tour. The tie breaker is kept.
+	// ************************************************
+	public void resetKnight(int startRow, int startCol) {
+		moveCounter = 1;
+		setCurrentRow(startRow);
+		setCurrentCol(startCol);
+		setPreviousRow(startRow);
+		setPreviousCol(startCol);
 	}
 
 	// ************************************************
@@ -69,8 +84,8 @@ public class Knight {
 		} else {
 			setPreviousRow(currentRow);
 			setPreviousCol(currentCol);
-			setCurrentRow(currentRow + verticalMovesAvail[moveNumber]);
-			setCurrentCol(currentCol + horizontalMovesAvail[moveNumber]);
+			setCurrentRow(currentRow + VERTICAL_MOVES[moveNumber]);
+			setCurrentCol(currentCol + HORIZONTAL_MOVES[moveNumber]);
 			incMoveCounter();
 		}
 	}
@@ -79,22 +94,18 @@ public class Knight {
 	// Method: findNumOfPossibleMoves(ChessBoard)
 	//
 	// Purpose: Finds the number of possible moves on
-	// the game board from the starting row
-	// and column supplied by the parameters.
+	// the game board from the knight's current
+	// position.
 	// ************************************************
 	public int findNumOfPossibleMoves(ChessBoard chessBoard) {
+		KnightGraph knightGraph = chessBoard.getKnightGraph();
 		int possibleMoveCounter = 0, // Counts the number of possible moves
-		startRow = getCurrentRow(), startCol = getCurrentCol(), testRow, testCol;
+		square = getCurrentSquare(chessBoard);
 
-		// Adds a move number value to the knight's current row and tests
-		// whether it is a move candidate.
-		// if the location is on the game board and unvisited, the possible move
-		// counter is incremented.
-		for (int moveNum = 0; moveNum < Knight.NUM_ALLOWED_MOVES; moveNum++) {
-			testRow = startRow + getVerticalMoveValue(moveNum);
-			testCol = startCol + getHorizontalMoveValue(moveNum);
-
-			if (chessBoard.checkSquareExistsAndIsUnVisted(testRow, testCol) == true) {
+		// Every move in the mask stays on the board, so only the visited
+		// status needs to be tested.
+		for (int moves = knightGraph.getMoveMask(square); moves != 0; moves &= moves - 1) {
+			if (chessBoard.isSquareVisited(knightGraph.getNeighbor(square, moves)) == false) {
 				possibleMoveCounter++;
 			}
 		}
@@ -110,22 +121,18 @@ public class Knight {
 	// an array of the possible moves.
 	// ************************************************
 	public int[] findPossibleMoves(ChessBoard chessBoard, int numPossibleMoves) {
+		KnightGraph knightGraph = chessBoard.getKnightGraph();
 		int[] possibleMoves = new int[numPossibleMoves];
-		int storeCurRow = getCurrentRow(), // Stores the knight's current row
-		storeCurCol = getCurrentCol(), // Stores the knight's current column
-		testRow, // Knight's current row plus a move number value
-		testCol, // Knight's current column plus a move number value
-		goodMoveCount = 0; // Counts the number of actual moves
-
-		// Adds a move number value to the knight's current row and tests
-		// whether it is a move candidate.
-		// if the location is on the game board and unvisited, it is added to
-		// the array of possible moves.
-		for (int moveNum = 0; moveNum < Knight.NUM_ALLOWED_MOVES; moveNum++) {
-			testRow = storeCurRow + getVerticalMoveValue(moveNum);
-			testCol = storeCurCol + getHorizontalMoveValue(moveNum);
-
-			if (chessBoard.checkSquareExistsAndIsUnVisted(testRow, testCol) == true) {
+		int square = getCurrentSquare(chessBoard), moveNum;
+		int goodMoveCount = 0; // Counts the number of actual moves
+
+		// If the neighbor is unvisited, its move number is added to the array
+		// of possible moves.
+		for (int moves = knightGraph.getMoveMask(square); moves != 0; moves &= moves - 1) {
+			moveNum = Integer.numberOfTrailingZeros(moves);
+
+			if (chessBoard.isSquareVisited(square
+					+ knightGraph.getMoveOffset(moveNum)) == false) {
 				possibleMoves[goodMoveCount++] = moveNum;
 			}
 		}
@@ -136,26 +143,43 @@ public class Knight {
 	// ************************************************
 	// Method: findBestMove(ChessBoard, int[])
 	//
-	// Purpose: Finds the moves on the game board from
-	// the knight's current position, and returns
-	// an array of the possible moves.
+	// Purpose: Finds the move in the array of possible
+	// moves whose square has the lowest
+	// accessibility. Ties are broken by the
+	// knight's tie breaker.
 	// ************************************************
 	public int findBestMove(ChessBoard chessBoard, int[] possibleMoves) {
-		int storeCurRow = getCurrentRow(), // Stores the knight's current row
-		storeCurCol = getCurrentCol(), // Stores the knight's current column
-		testRow, // Knight's current row plus a move number value
-		testCol, // Knight's current column plus a move number value
+		KnightGraph knightGraph = chessBoard.getKnightGraph();
+		int square = getCurrentSquare(chessBoard), // Knight's current square
 		lowestAccessibility, testAccessibility, moveNumWithLowest;
 
+		// Every rule other than the original one compares moves through
+		// isBetterMove
+		if (tieBreaker != TieBreaker.MOVE_ORDER) {
+			moveNumWithLowest = possibleMoves[0];
+
+			for (int moveNum = 1; moveNum < possibleMoves.length; moveNum++) {
+				if (isBetterMove(chessBoard, square
+						+ knightGraph.getMoveOffset(possibleMoves[moveNum]),
+						square + knightGraph.getMoveOffset(moveNumWithLowest))) {
+					moveNumWithLowest = possibleMoves[moveNum];
+				}
+			}
+
+			if (tieSizes != null) {
+				countTie(chessBoard, square, moveNumWithLowest);
+			}
+
+			return moveNumWithLowest;
+		}
+
 		// If the array of possible moves is greater than one, then there are at
 		// least
 		// two moves to compare accessibility with.
 		if (possibleMoves.length > 1) {
 			// Give iLowestAccessibility a starting value to compare the rest to
-			testRow = storeCurRow + getVerticalMoveValue(possibleMoves[0]);
-			testCol = storeCurCol + getHorizontalMoveValue(possibleMoves[0]);
-			lowestAccessibility = chessBoard.getSquareAccessibility(testRow,
-					testCol);
+			lowestAccessibility = chessBoard.getSquareAccessibility(square
+					+ knightGraph.getMoveOffset(possibleMoves[0]));
 			moveNumWithLowest = possibleMoves[0];
 
 			// Test each move in the array against the lowest value
@@ -166,13 +190,8 @@ public class Knight {
 			 * the loop
 			 */
 			for (int moveNum = 1; moveNum < possibleMoves.length; moveNum++) {
-				testRow = storeCurRow
-						+ getVerticalMoveValue(possibleMoves[moveNum]);
-				testCol = storeCurCol
-						+ getHorizontalMoveValue(possibleMoves[moveNum]);
-
-				testAccessibility = chessBoard.getSquareAccessibility(testRow,
-						testCol);
+				testAccessibility = chessBoard.getSquareAccessibility(square
+						+ knightGraph.getMoveOffset(possibleMoves[moveNum]));
 
 				// If the tested value is lower than the current lowest value
 				// store the accessibility value and store the move number with
@@ -186,13 +205,211 @@ public class Knight {
 				}
 			}
 
+			if (tieSizes != null) {
+				countTie(chessBoard, square, moveNumWithLowest);
+			}
+
 			return moveNumWithLowest;
 		}
 		// Return the first value in the array if the array length is 1, because
 		// there are
 		// no other moves to compare with
-		else
+		else {
+			if (tieSizes != null) {
+				tieSizes[1]++;
+			}
+
 			return possibleMoves[0];
+		}
+	}
+
+	// ************************************************
+	// Method: lowerAccessibilityAndFindBestMove(ChessBoard)
+	//
+	// Purpose: Lowers the accessibility of every
+	// unvisited square reachable from the
+	// knight's current position by 1 and
+	// returns the best move the same way
+	// findBestMove would, or -1 if there is no
+	// possible move. With the original tie
+	// breaker this is a single pass; the other
+	// rules look at the settled accessibility
+	// of nearby squares, so they make a second
+	// pass to choose. Allocates nothing.
+	// ************************************************
+	public int lowerAccessibilityAndFindBestMove(ChessBoard chessBoard) {
+		KnightGraph knightGraph = chessBoard.getKnightGraph();
+		int square = getCurrentSquare(chessBoard), moveMask = knightGraph
+				.getMoveMask(square), moveNum, neighborSquare, testAccessibility;
+		int lowestAccessibility = 0, moveNumWithLowest = -1, bestSquare = -1;
+
+		for (int moves = moveMask; moves != 0; moves &= moves - 1) {
+			moveNum = Integer.numberOfTrailingZeros(moves);
+			neighborSquare = square + knightGraph.getMoveOffset(moveNum);
+
+			if (chessBoard.isSquareVisited(neighborSquare) == false) {
+				chessBoard.decrSquareAccessibility(neighborSquare);
+				testAccessibility = chessBoard
+						.getSquareAccessibility(neighborSquare);
+
+				// The first possible move gives the starting value, after that
+				// the rules match findBestMove
+				if (moveNumWithLowest < 0
+						|| testAccessibility < lowestAccessibility
+						|| lowestAccessibility < 1) {
+					lowestAccessibility = testAccessibility;
+					moveNumWithLowest = moveNum;
+				}
+			}
+		}
+
+		if (tieBreaker != TieBreaker.MOVE_ORDER && moveNumWithLowest >= 0) {
+			for (int moves = moveMask; moves != 0; moves &= moves - 1) {
+				moveNum = Integer.numberOfTrailingZeros(moves);
+				neighborSquare = square + knightGraph.getMoveOffset(moveNum);
+
+				if (chessBoard.isSquareVisited(neighborSquare) == false
+						&& (bestSquare < 0 || isBetterMove(chessBoard,
+								neighborSquare, bestSquare))) {
+					bestSquare = neighborSquare;
+					moveNumWithLowest = moveNum;
+				}
+			}
+		}
+
+		if (tieSizes != null && moveNumWithLowest >= 0) {
+			countTie(chessBoard, square, moveNumWithLowest);
+		}
+
+		return moveNumWithLowest;
+	}
+
+	// ************************************************
+	// Method: countTie(ChessBoard, int, int)
+	//
+	// Purpose: Counts the size of the tie a move was
+	// chosen from: the number of possible moves
+	// whose square is as accessible as the
+	// chosen one, itself included.
+	// ************************************************
+	private void countTie(ChessBoard chessBoard, int square, int moveNumber) {
+		KnightGraph knightGraph = chessBoard.getKnightGraph();
+		int neighborSquare, size = 0, accessibility = chessBoard
+				.getSquareAccessibility(square
+						+ knightGraph.getMoveOffset(moveNumber));
+
+		for (int moves = knightGraph.getMoveMask(square); moves != 0; moves &= moves - 1) {
+			neighborSquare = knightGraph.getNeighbor(square, moves);
+
+			if (chessBoard.isSquareVisited(neighborSquare) == false
+					&& chessBoard.getSquareAccessibility(neighborSquare) == accessibility) {
+				size++;
+			}
+		}
+
+		tieSizes[size]++;
+	}
+
+	// ************************************************
+	// Method: isBetterMove(ChessBoard, int, int)
+	//
+	// Purpose: Returns true if moving to the first
+	// square is better than moving to the
+	// second under a tie breaker other than
+	// the original one. A square with no onward
+	// moves ranks below every other square.
+	// ************************************************
+	private boolean isBetterMove(ChessBoard chessBoard, int square,
+			int otherSquare) {
+		KnightGraph knightGraph = chessBoard.getKnightGraph();
+		int accessibility = chessBoard.getSquareAccessibility(square), otherAccessibility = chessBoard
+				.getSquareAccessibility(otherSquare);
+
+		if (accessibility == 0) {
+			accessibility = NUM_ALLOWED_MOVES + 1;
+		}
+
+		if (otherAccessibility == 0) {
+			otherAccessibility = NUM_ALLOWED_MOVES + 1;
+		}
+
+		if (accessibility != otherAccessibility) {
+			return accessibility < otherAccessibility;
+		}
+
+		switch (tieBreaker) {
+		case FURTHEST_FROM_CENTER:
+			return knightGraph.getDistanceFromCenter(square) > knightGraph
+					.getDistanceFromCenter(otherSquare);
+		case SECONDARY_DEGREE:
+			return findSecondaryDegree(chessBoard, square) < findSecondaryDegree(
+					chessBoard, otherSquare);
+		default:
+			return false;
+		}
+	}
+
+	// ************************************************
+	// Method: findSecondaryDegree(ChessBoard, int)
+	//
+	// Purpose: Returns the total accessibility of the
+	// unvisited squares reachable from a square.
+	// ************************************************
+	private int findSecondaryDegree(ChessBoard chessBoard, int square) {
+		KnightGraph knightGraph = chessBoard.getKnightGraph();
+		int total = 0, neighborSquare;
+
+		for (int moves = knightGraph.getMoveMask(square); moves != 0; moves &= moves - 1) {
+			neighborSquare = knightGraph.getNeighbor(square, moves);
+
+			if (chessBoard.isSquareVisited(neighborSquare) == false) {
+				total += chessBoard.getSquareAccessibility(neighborSquare);
+			}
+		}
+
+		return total;
+	}
+
+	// ************************************************
+	// Method: setTieSizes(int[])
+	//
+	// Purpose: Sets an array, indexed by tie size, that
+	// every move chosen from then on is counted
+	// in, or null to stop counting. The array
+	// needs NUM_ALLOWED_MOVES + 1 entries.
+	// ************************************************
+	public void setTieSizes(int[] tieSizes) {
+		this.tieSizes = tieSizes;
+	}
+
+	// ************************************************
+	// Method: getCurrentSquare(ChessBoard)
+	//
+	// Purpose: Returns the index of the knight's
+	// current square on the board.
+	// ************************************************
+	public int getCurrentSquare(ChessBoard chessBoard) {
+		return currentRow * chessBoard.getBoardSize() + currentCol;
+	}
+
+	// ************************************************
+	// Method: setTieBreaker(TieBreaker)
+	//
+	// Purpose: Sets the rule used to choose between
+	// equally accessible moves.
+	// ************************************************
+	public void setTieBreaker(TieBreaker tieBreaker) {
+		this.tieBreaker = tieBreaker;
+	}
+
+	// ************************************************
+	// Method: getTieBreaker()
+	//
+	// Purpose: Returns the rule used to choose between
+	// equally accessible moves.
+	// ************************************************
+	public TieBreaker getTieBreaker() {
+		return tieBreaker;
 	}
 
 	// ************************************************
@@ -281,6 +498,16 @@ public class Knight {
 		moveCounter++;
 	}
 
+	// ************************************************
+	// Method: setMoveCounter(int)
+	//
+	// Purpose: Receives an int value and sets the
+	// move counter. Used when moves are undone.
+	// ************************************************
+	public void setMoveCounter(int moveCounter) {
+		this.moveCounter = moveCounter;
+	}
+
 	// ************************************************
 	// Method: getMoveCounter()
 	//
@@ -297,7 +524,7 @@ public class Knight {
 	// value of the horizontal movement.
 	// ************************************************
 	public int getHorizontalMoveValue(int moveNumber) {
-		return horizontalMovesAvail[moveNumber];
+		return HORIZONTAL_MOVES[moveNumber];
 	}
 
 	// ************************************************
@@ -307,32 +534,6 @@ public class Knight {
 	// value of the vertical movement.
 	// ************************************************
 	public int getVerticalMoveValue(int moveNumber) {
-		return verticalMovesAvail[moveNumber];
-	}
-
-	// ************************************************
-	// Method: fillMoves()
-	//
-	// Purpose: Maps the possible horizontal and
-	// vertical moves of the knight.
-	// ************************************************
-	private void fillMoves() {
-		horizontalMovesAvail[0] = 2; // R
-		horizontalMovesAvail[1] = 1; // R
-		horizontalMovesAvail[2] = -1; // L
-		horizontalMovesAvail[3] = -2; // L
-		horizontalMovesAvail[4] = -2; // L
-		horizontalMovesAvail[5] = -1; // L
-		horizontalMovesAvail[6] = 1; // R
-		horizontalMovesAvail[7] = 2; // R
-
-		verticalMovesAvail[0] = -1; // U
-		verticalMovesAvail[1] = -2; // U
-		verticalMovesAvail[2] = -2; // U
-		verticalMovesAvail[3] = -1; // U
-		verticalMovesAvail[4] = 1; // D
-		verticalMovesAvail[5] = 2; // D
-		verticalMovesAvail[6] = 2; // D
-		verticalMovesAvail[7] = 1; // D
+		return VERTICAL_MOVES[moveNumber];
 	}
 }
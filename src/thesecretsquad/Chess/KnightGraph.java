@@ -0,0 +1,207 @@
+//****************************************************
+//File: KnightGraph
+//
+//Purpose: Precomputed table of the knight moves that
+//		   stay on a board of a given size. Each square
+//		   has a mask with bit m set if knight move
+//		   number m stays on the board; the square it
+//		   lands on is the square plus
+//		   getMoveOffset(m). Squares are numbered
+//		   row * size + col. Walking the set bits from
+//		   the lowest visits the moves in move number
+//		   order:
+//
+//		     for (int moves = graph.getMoveMask(square);
+//		          moves != 0; moves &= moves - 1) {
+//		       int neighbor = graph.getNeighbor(square, moves);
+//		     }
+//
+//		   A graph also holds the starting degree of
+//		   every square, so a graph costs two bytes a
+//		   square. It never changes once built, so one
+//		   graph per size is shared by every board and
+//		   thread, and a board sets up its
+//		   accessibility by copying the degrees in one
+//		   arraycopy. Graphs are only softly held by
+//		   the cache, so sizes no board uses any more
+//		   can be collected when memory runs short.
+//****************************************************
+
+package thesecretsquad.Chess;
+
+import java.lang.ref.SoftReference;
+import java.util.concurrent.ConcurrentHashMap;
+
+public final class KnightGraph {
+	public static final int LIGHT = 0; // Color of the corner squares
+	public static final int DARK = 1; // Color of the squares next to them
+	// Largest board whose squares can be numbered by an int and held in
+	// arrays; larger boards need MappedChessBoard
+	public static final int MAX_BOARD_SIZE = 46340;
+
+	// Graph of each size built so far, while something still uses it or
+	// memory allows
+	private static final ConcurrentHashMap<Integer, SoftReference<KnightGraph>> graphsBySize = new ConcurrentHashMap<Integer, SoftReference<KnightGraph>>();
+
+	private final int boardSize; // Dimension of the board, e.g., 8 x 8
+	private final int[] moveOffsets; // Change in square index made by each
+										// move number
+	private final byte[] moveMasks; // Bit m set for each move number m
+									// that stays on the board
+	private final byte[] degrees; // Number of neighbors of each square,
+									// the accessibility of an unplayed board
+
+	// ************************************************
+	// Method: forSize(int)
+	//
+	// Purpose: Returns the graph for a board size,
+	// building it if no graph of the size is
+	// held. Looking up a held size takes no
+	// lock. Two threads asking for a new size
+	// at once may both build it; the graphs are
+	// the same and the last one built is kept.
+	// ************************************************
+	public static KnightGraph forSize(int dimension) {
+		SoftReference<KnightGraph> reference = graphsBySize.get(dimension);
+		KnightGraph graph = reference == null ? null : reference.get();
+
+		if (graph == null) {
+			graph = new KnightGraph(dimension);
+			graphsBySize.put(dimension, new SoftReference<KnightGraph>(graph));
+		}
+
+		return graph;
+	}
+
+	// ************************************************
+	// Method: KnightGraph(int)
+	//
+	// Purpose: Constructor. Walks every square once and
+	// records the knight moves that land on the
+	// board.
+	// ************************************************
+	private KnightGraph(int dimension) {
+		int numSquares, mask, testRow, testCol;
+
+		if (dimension < 0 || dimension > MAX_BOARD_SIZE) {
+			throw new IllegalArgumentException("Board size " + dimension
+					+ " is not between 0 and " + MAX_BOARD_SIZE);
+		}
+
+		numSquares = dimension * dimension;
+		boardSize = dimension;
+		moveOffsets = new int[Knight.NUM_ALLOWED_MOVES];
+		moveMasks = new byte[numSquares];
+		degrees = new byte[numSquares];
+
+		for (int moveNum = 0; moveNum < Knight.NUM_ALLOWED_MOVES; moveNum++) {
+			moveOffsets[moveNum] = Knight.VERTICAL_MOVES[moveNum] * dimension
+					+ Knight.HORIZONTAL_MOVES[moveNum];
+		}
+
+		for (int row = 0; row < dimension; row++) {
+			for (int col = 0; col < dimension; col++) {
+				mask = 0;
+
+				for (int moveNum = 0; moveNum < Knight.NUM_ALLOWED_MOVES; moveNum++) {
+					testRow = row + Knight.VERTICAL_MOVES[moveNum];
+					testCol = col + Knight.HORIZONTAL_MOVES[moveNum];
+
+					if (testRow >= 0 && testRow < dimension && testCol >= 0
+							&& testCol < dimension) {
+						mask |= 1 << moveNum;
+					}
+				}
+
+				moveMasks[row * dimension + col] = (byte) mask;
+				degrees[row * dimension + col] = (byte) Integer.bitCount(mask);
+			}
+		}
+	}
+
+	// ************************************************
+	// Method: getBoardSize()
+	//
+	// Purpose: Returns the dimension of the board.
+	// ************************************************
+	public int getBoardSize() {
+		return boardSize;
+	}
+
+	// ************************************************
+	// Method: getMoveMask(int)
+	//
+	// Purpose: Returns the moves from a square that stay
+	// on the board, bit m set for move number m.
+	// ************************************************
+	public int getMoveMask(int square) {
+		return moveMasks[square] & 0xFF;
+	}
+
+	// ************************************************
+	// Method: getNeighbor(int, int)
+	//
+	// Purpose: Returns the square reached from a square
+	// by the lowest numbered move in a mask of
+	// its moves.
+	// ************************************************
+	public int getNeighbor(int square, int moves) {
+		return square + moveOffsets[Integer.numberOfTrailingZeros(moves)];
+	}
+
+	// ************************************************
+	// Method: getDegree(int)
+	//
+	// Purpose: Returns the number of on-board knight
+	// moves from a square.
+	// ************************************************
+	public int getDegree(int square) {
+		return degrees[square];
+	}
+
+	// ************************************************
+	// Method: copyDegrees(byte[])
+	//
+	// Purpose: Copies the degree of every square into an
+	// array of at least as many entries, setting
+	// up the accessibility of an unplayed board.
+	// ************************************************
+	public void copyDegrees(byte[] destination) {
+		System.arraycopy(degrees, 0, destination, 0, degrees.length);
+	}
+
+	// ************************************************
+	// Method: getSquareColor(int)
+	//
+	// Purpose: Returns LIGHT or DARK. A knight always
+	// moves to the other color.
+	// ************************************************
+	public int getSquareColor(int square) {
+		return (square / boardSize + square % boardSize) % 2 == 0 ? LIGHT
+				: DARK;
+	}
+
+	// ************************************************
+	// Method: getMoveOffset(int)
+	//
+	// Purpose: Returns the change in square index made
+	// by a knight move number.
+	// ************************************************
+	public int getMoveOffset(int moveNumber) {
+		return moveOffsets[moveNumber];
+	}
+
+	// ************************************************
+	// Method: getDistanceFromCenter(int)
+	//
+	// Purpose: Returns four times the squared distance
+	// of a square from the center of the board,
+	// which keeps the value an integer.
+	// ************************************************
+	public int getDistanceFromCenter(int square) {
+		int rowDistance = 2 * (square / boardSize) - (boardSize - 1), colDistance = 2
+				* (square % boardSize) - (boardSize - 1);
+
+		return rowDistance * rowDistance + colDistance * colDistance;
+	}
+}
@@ -3,6 +3,19 @@
 //
 //Purpose: Application window for Knight's Tour
 //
+//		   Tours are solved on a background thread
+//		   into a move buffer, so a slow solve never
+//		   holds up the window. The timer only
+//		   replays the finished moves.
+//
+//		   The timer fires once a frame and replays as
+//		   many moves as the chosen speed calls for
+//		   since the replay began, drawing them all
+//		   with one repaint. The speed is a number of
+//		   moves per second or a time for the whole
+//		   tour, set from the Animation menu, which
+//		   can also jump straight to the end.
+//
 //Written By: Peter DiSalvo 
 //****************************************************
 
@@ -10,13 +23,29 @@ package thesecretsquad.Chess.KnightsTour;
 
 import java.awt.*;
 import java.awt.event.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.function.IntConsumer;
 import javax.swing.*;
 
+import thesecretsquad.Chess.Knight;
+
 public class AppWindow extends JFrame {
 	private static final long serialVersionUID = -7445150193712167589L;
-	private Tour knightsTour; // Tour object
+	private static final int FRAME_DELAY = 16; // Milliseconds between frames
+	public static final double DEFAULT_MOVES_PER_SECOND = 20; // Speed of the
+																// original one
+																// move every
+																// 50 ms
+	private Tour knightsTour; // Last tour solved, or null until one is. Only
+								// read once its solve has finished
+	private final TourPool tourPool = new TourPool(1); // Tours kept for
+														// the next game
 	private int boardSize; // Board dimension
-	private GUISquare guiSquares[][]; // Array of JPanels representing squares
+	private BoardCanvas boardCanvas; // Component that draws the squares
 	private boolean isTourRunning = false; // Flag: true if tour is running,
 											// false if tour is not running
 	private boolean isTourFinished = false; // Flag: true if tour completed run,
@@ -26,6 +55,37 @@ public class AppWindow extends JFrame {
 												// user wants the same as
 												// previous game
 	private Timer timer; // Times the movement of the knight
+	// Thread tours are solved on
+	private final ExecutorService solver = Executors
+			.newSingleThreadExecutor(new ThreadFactory() {
+				@Override
+				public Thread newThread(Runnable task) {
+					Thread thread = new Thread(task, "Tour solver");
+
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+	private SolveTask pendingSolve; // Solve running in the background, or
+									// null
+	private Future<?> pendingResult; // Result of the pending solve
+	private MoveBuffer solvedMoves; // Moves being replayed, or null while
+									// solving
+	private int startRow; // Row the knight starts on
+	private int startCol; // Column the knight starts on
+	private int replayRow; // Row of the square being replayed
+	private int replayCol; // Column of the square being replayed
+	private int replayPosition; // Moves replayed so far
+	private double movesPerSecond = DEFAULT_MOVES_PER_SECOND; // Replay
+																// speed, or 0
+																// to use
+																// animationSeconds
+	private double animationSeconds; // Time a whole tour takes to replay
+										// when movesPerSecond is 0
+	private boolean jumpToEnd = false; // Flag: true if the rest of the tour is
+										// drawn on the next frame
+	private long clockStartTime; // Time the replay clock was last started
+	private int clockStartPosition; // Moves replayed when it was started
 	private final int MAX_BOARD_SIZE = 100; // Maximum board size
 
 	// ****************************************************
@@ -37,6 +97,13 @@ public class AppWindow extends JFrame {
 	public AppWindow() {
 		setDefaultCloseOperation(EXIT_ON_CLOSE);
 
+		// Create the board, which draws every square and takes
+		// every click, and let it fill the window
+		boardCanvas = new BoardCanvas();
+		boardCanvas.addMouseListener(new SquareClickHandler());
+		add(boardCanvas, BorderLayout.CENTER);
+
+		createMenu();
 		newGame();
 		createTimer();
 	}
@@ -47,15 +114,8 @@ public class AppWindow extends JFrame {
 	// Purpose: Sets parameters for a new knight's tour game.
 	// ****************************************************
 	private void newGame() {
-		// If the board size is greater than zero, then the board
-		// must be cleared before starting again.
-		if (boardSize > 0) {
-			// Remove current squares from the board
-			removeSquares();
-
-			// Repaint the window
-			repaint();
-		}
+		// Stop any solve of the last game
+		cancelSolve();
 
 		// If user selected to enter new game parameters
 		// prompt the user for the new board size and set
@@ -72,80 +132,18 @@ public class AppWindow extends JFrame {
 			setSize(boardSize * 35, boardSize * 35);
 		}
 
-		// Set grid layout, rows and columns are equal to the board size,
-		// with a 1 pixel gap between them (board size divided by board size =
-		// 1)
-		setLayout(new GridLayout(boardSize, boardSize, boardSize / boardSize,
-				boardSize / boardSize));
-
-		// Create new tour object with board size
-		knightsTour = new Tour(boardSize);
-
-		// Draw the squares in the window
-		drawSquares();
-	}
-
-	// ****************************************************
-	// Method: drawSquares
-	//
-	// Purpose: Draws the squares on the screen.
-	// ****************************************************
-	private void drawSquares() {
-		// Create new array with size of the board
-		guiSquares = new GUISquare[boardSize][boardSize];
-
-		// Nested loop iterates through all squares
-		for (int row = 0; row < guiSquares.length; row++) {
-			for (int col = 0; col < guiSquares.length; col++) {
-				// Create new GUISquare object
-				guiSquares[row][col] = new GUISquare();
-
-				// Add mouse GUISquare in the array
-				guiSquares[row][col].addMouseListener(new SquareClickHandler());
-
-				// Alternate square color
-				setCorrectSquareColor(row, col);
-
-				// Add square to Frame
-				add(guiSquares[row][col]);
-			}
+		// Hand the last tour back, so the next solve of this size
+		// reuses its board
+		if (knightsTour != null) {
+			tourPool.release(knightsTour);
+			knightsTour = null;
 		}
 
-		// Cause container to lay out its subcomponents again.
-		// It should be invoked when this container's subcomponents are modified
-		// (added to or removed from the container, or layout-related
-		// information changed)
-		// after the container has been displayed.
-		validate();
-	}
+		solvedMoves = null;
+		jumpToEnd = false;
 
-	// ****************************************************
-	// Method: setCorrectSquareColor
-	//
-	// Purpose: Determines the square color based on its
-	// position on the board.
-	// ****************************************************
-	private void setCorrectSquareColor(int row, int col) {
-		if ((row + col) % 2 == 0) {
-			guiSquares[row][col].setBackground(Color.lightGray);
-		} else {
-			guiSquares[row][col].setBackground(Color.darkGray);
-		}
-	}
-
-	// ****************************************************
-	// Method: removeSquares
-	//
-	// Purpose: Removes squares from their container
-	// ****************************************************
-	private void removeSquares() {
-		// Nested loop iterates through all squares
-		for (int row = 0; row < guiSquares.length; row++) {
-			for (int col = 0; col < guiSquares.length; col++) {
-				// Call remove to remove square from Frame
-				remove(guiSquares[row][col]);
-			}
-		}
+		// Clear the squares, drawing them for the new size
+		boardCanvas.setBoardSize(boardSize);
 	}
 
 	// ****************************************************
@@ -215,14 +213,211 @@ public class AppWindow extends JFrame {
 		return boardSize;
 	}
 
+	// ****************************************************
+	// Method: startSolve
+	//
+	// Purpose: Starts solving the tour from the start
+	// square in the background. Replay begins on
+	// the first timer tick after it finishes.
+	// ****************************************************
+	private void startSolve() {
+		cancelSolve();
+		pendingSolve = new SolveTask(boardSize, startRow, startCol);
+		pendingResult = solver.submit(pendingSolve);
+	}
+
+	// ****************************************************
+	// Method: cancelSolve
+	//
+	// Purpose: Stops the solve running in the background,
+	// if any. Its tour goes back to the pool
+	// and its moves are never replayed.
+	// ****************************************************
+	private void cancelSolve() {
+		if (pendingSolve != null) {
+			pendingResult.cancel(true);
+			pendingSolve = null;
+			pendingResult = null;
+		}
+	}
+
+	// ****************************************************
+	// Method: solveFinished
+	//
+	// Purpose: Called on the event dispatch thread when a
+	// background solve ends. Keeps the tour and
+	// its moves for replay, unless the solve was
+	// cancelled or replaced in the meantime.
+	// ****************************************************
+	private void solveFinished(SolveTask task, Tour tour) {
+		if (task != pendingSolve) {
+			tourPool.release(tour);
+			return;
+		}
+
+		pendingSolve = null;
+		pendingResult = null;
+
+		if (knightsTour != null) {
+			tourPool.release(knightsTour);
+		}
+
+		knightsTour = tour;
+		solvedMoves = task.moves;
+		replayRow = startRow;
+		replayCol = startCol;
+		replayPosition = 0;
+		startReplayClock();
+	}
+
+	// ****************************************************
+	// Method: createMenu
+	//
+	// Purpose: Creates the Animation menu, which sets the
+	// replay speed and jumps to the end of the
+	// tour.
+	// ****************************************************
+	private void createMenu() {
+		JMenuBar menuBar = new JMenuBar();
+		JMenu animationMenu = new JMenu("Animation");
+		JMenuItem defaultSpeedItem = new JMenuItem("Default Speed");
+		JMenuItem rateItem = new JMenuItem("Moves per Second...");
+		JMenuItem durationItem = new JMenuItem("Total Duration...");
+		JMenuItem jumpItem = new JMenuItem("Jump to End");
+
+		defaultSpeedItem.addActionListener(new ActionListener() {
+			public void actionPerformed(ActionEvent evt) {
+				setReplaySpeed(DEFAULT_MOVES_PER_SECOND, 0);
+			}
+		});
+
+		rateItem.addActionListener(new ActionListener() {
+			public void actionPerformed(ActionEvent evt) {
+				double rate = promptPositive("Moves to replay per second:",
+						movesPerSecond > 0 ? movesPerSecond
+								: DEFAULT_MOVES_PER_SECOND);
+
+				if (rate > 0) {
+					setReplaySpeed(rate, 0);
+				}
+			}
+		});
+
+		durationItem.addActionListener(new ActionListener() {
+			public void actionPerformed(ActionEvent evt) {
+				double seconds = promptPositive(
+						"Seconds to replay the whole tour in:",
+						animationSeconds > 0 ? animationSeconds : 10);
+
+				if (seconds > 0) {
+					setReplaySpeed(0, seconds);
+				}
+			}
+		});
+
+		jumpItem.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_E, Toolkit
+				.getDefaultToolkit().getMenuShortcutKeyMaskEx()));
+		jumpItem.addActionListener(new ActionListener() {
+			public void actionPerformed(ActionEvent evt) {
+				jumpToEnd = true;
+			}
+		});
+
+		animationMenu.add(defaultSpeedItem);
+		animationMenu.add(rateItem);
+		animationMenu.add(durationItem);
+		animationMenu.addSeparator();
+		animationMenu.add(jumpItem);
+		menuBar.add(animationMenu);
+		setJMenuBar(menuBar);
+	}
+
+	// ****************************************************
+	// Method: promptPositive
+	//
+	// Purpose: Prompts the user for a number greater than
+	// zero. Returns 0 if the user cancels.
+	// ****************************************************
+	private double promptPositive(String message, double currentValue) {
+		String userValue; // String value to hold user input
+		double value; // Number entered
+
+		do {
+			userValue = JOptionPane.showInputDialog(this, message,
+					Double.toString(currentValue));
+
+			// Cancelling leaves the speed as it was
+			if (userValue == null) {
+				return 0;
+			}
+
+			try {
+				value = Double.parseDouble(userValue.trim());
+			} catch (NumberFormatException numberFormatException) {
+				value = 0;
+			}
+
+			if (value > 0 == false || Double.isInfinite(value) == true) {
+				JOptionPane.showMessageDialog(this,
+						"You must enter a number greater than zero.",
+						"Invalid Number", JOptionPane.WARNING_MESSAGE);
+			}
+		} while (value > 0 == false || Double.isInfinite(value) == true);
+
+		return value;
+	}
+
+	// ****************************************************
+	// Method: setReplaySpeed
+	//
+	// Purpose: Sets the replay speed as moves per second,
+	// or if that is 0, as the time for the whole
+	// tour. A replay under way carries on from
+	// where it is at the new speed.
+	// ****************************************************
+	private void setReplaySpeed(double movesPerSecond, double animationSeconds) {
+		this.movesPerSecond = movesPerSecond;
+		this.animationSeconds = animationSeconds;
+		startReplayClock();
+	}
+
+	// ****************************************************
+	// Method: startReplayClock
+	//
+	// Purpose: Counts replay time from now and the moves
+	// due from the moves replayed so far, so a
+	// pause or a change of speed does not make
+	// the replay jump ahead.
+	// ****************************************************
+	private void startReplayClock() {
+		clockStartTime = System.nanoTime();
+		clockStartPosition = replayPosition;
+	}
+
+	// ****************************************************
+	// Method: getMovesDue
+	//
+	// Purpose: Returns the number of squares that should
+	// be numbered by now at the replay speed.
+	// ****************************************************
+	private int getMovesDue() {
+		double rate = movesPerSecond > 0 ? movesPerSecond
+				: (solvedMoves.size() + 1) / animationSeconds;
+		double due = clockStartPosition + (System.nanoTime() - clockStartTime)
+				* rate / 1e9;
+
+		return jumpToEnd == true ? Integer.MAX_VALUE : (int) Math.min(
+				Integer.MAX_VALUE, due);
+	}
+
 	// ****************************************************
 	// Method: createTimer
 	//
-	// Purpose: Create action listener that performs
-	// a knight's move at an interval.
+	// Purpose: Create action listener that replays the
+	// moves due once every frame.
 	// ****************************************************
 	private void createTimer() {
-		int delay = 50; // Delay in milliseconds
+		int delay = FRAME_DELAY; // Delay in milliseconds
 
 		// Set flag indicating tour is finished to false.
 		isTourFinished = false;
@@ -232,15 +427,24 @@ public class AppWindow extends JFrame {
 		// moveKnight
 		ActionListener taskPerformer = new ActionListener() {
 			public void actionPerformed(ActionEvent evt) {
-				// Set correct square color
-				setCorrectSquareColor(knightsTour.getKnight().getCurrentRow(),
-						knightsTour.getKnight().getCurrentCol());
+				// Wait until the tour has been solved
+				if (solvedMoves == null) {
+					return;
+				}
 
-				// Move the knight
-				moveKnight();
+				// Move the knight as far as it is due, drawing every
+				// square it lands on in one repaint
+				int due = getMovesDue();
+
+				boardCanvas.beginBatch();
+
+				while (replayPosition < due && isTourFinished == false) {
+					moveKnight();
+				}
 
 				// Set flash color
 				flashColor();
+				boardCanvas.endBatch();
 			}
 		};
 
@@ -253,14 +457,11 @@ public class AppWindow extends JFrame {
 	// Method: flashColor
 	//
 	// Purpose: Changes the color of the current square.
+	// The square flashed before gets its own
+	// color back.
 	// ****************************************************
 	private void flashColor() {
-		int currentRow = knightsTour.getKnight().getCurrentRow();
-		int currentCol = knightsTour.getKnight().getCurrentCol();
-		GUISquare currentSquare = guiSquares[currentRow][currentCol];
-		Color flashColor = Color.orange;
-
-		currentSquare.setBackground(flashColor);
+		boardCanvas.setHighlightedSquare(replayRow, replayCol);
 	}
 
 	// ****************************************************
@@ -269,6 +470,7 @@ public class AppWindow extends JFrame {
 	// Purpose: Starts the timer
 	// ****************************************************
 	private void startTimer() {
+		startReplayClock();
 		timer.start();
 	}
 
@@ -284,37 +486,31 @@ public class AppWindow extends JFrame {
 	// ****************************************************
 	// Method: moveKnight
 	//
-	// Purpose: Moves the knight, and sets the text on the
-	// label of the current square
+	// Purpose: Replays the next solved move, and sets the
+	// number on the current square
 	// ****************************************************
 	private void moveKnight() {
-		GUISquare currentSquare; // Stores the current square (position of
-									// knight)
-		int currentRow; // Current row position of knight
-		int currentCol; // Current column position of knight
-
-		// Get current row and column of knight
-		currentRow = knightsTour.getKnight().getCurrentRow();
-		currentCol = knightsTour.getKnight().getCurrentCol();
+		Knight knight = knightsTour.getKnight();
+		int moveNumber;
 
-		// Set current square
-		currentSquare = guiSquares[currentRow][currentCol];
+		// Show the move number on the current square
+		boardCanvas.setSquareNumber(replayRow, replayCol, replayPosition + 1);
 
-		// Set the text label on the current square
-		currentSquare.setText(Integer.toString(knightsTour.getKnight()
-				.getMoveCounter()));
-
-		// Move the knight
-		knightsTour.move();
-
-		// If the knight has no more moves,
+		// If every move has been replayed,
 		// stop the timer, set running flag to false
 		// and tour finished flag to true.
-		if (knightsTour.hasMove() == false) {
+		if (replayPosition == solvedMoves.size()) {
 			timer.stop();
 			isTourRunning = false;
 			isTourFinished = true;
 		}
+		// Otherwise move the knight to its next square
+		else {
+			moveNumber = solvedMoves.get(replayPosition);
+			replayRow += knight.getVerticalMoveValue(moveNumber);
+			replayCol += knight.getHorizontalMoveValue(moveNumber);
+			replayPosition++;
+		}
 	}
 
 	// ****************************************************
@@ -360,6 +556,9 @@ public class AppWindow extends JFrame {
 		// Stop the time, which pauses the tour
 		stopTimer();
 
+		// Stop solving too; the solve starts again if the tour resumes
+		cancelSolve();
+
 		// Set tour running flag to false
 		isTourRunning = false;
 
@@ -374,9 +573,6 @@ public class AppWindow extends JFrame {
 			// Preferences are stored in class member variables
 			askNewParam();
 
-			// Call resetTour on the knight, to clear current state
-			knightsTour.resetTour();
-
 			// Setup a new game
 			newGame();
 		}
@@ -388,6 +584,11 @@ public class AppWindow extends JFrame {
 			// and restart the timer.
 
 			isTourRunning = true;
+
+			if (solvedMoves == null) {
+				startSolve();
+			}
+
 			startTimer();
 		}
 		// If cancel, program exits
@@ -402,12 +603,15 @@ public class AppWindow extends JFrame {
 	// Purpose: Displays the accessibility heuristics
 	// ************************************************
 	public void showHeuristics() {
+		if (knightsTour == null) {
+			return;
+		}
+
 		for (int rowNumber = 0; rowNumber < boardSize; rowNumber++) {
 			for (int columnNumber = 0; columnNumber < boardSize; columnNumber++) {
-				guiSquares[rowNumber][columnNumber].setText(Integer
-						.toString(knightsTour
-								.getSquare(rowNumber, columnNumber)
-								.getAccessibility()));
+				boardCanvas.setSquareNumber(rowNumber, columnNumber,
+						knightsTour.getSquare(rowNumber, columnNumber)
+								.getAccessibility());
 			}
 		}
 	}
@@ -434,7 +638,7 @@ public class AppWindow extends JFrame {
 	// ****************************************************
 	// Class: SquareClickHandler
 	//
-	// Purpose: Mouse listener for squares. Listens for mouse clicks.
+	// Purpose: Mouse listener for the board. Listens for mouse clicks.
 	// ****************************************************
 	class SquareClickHandler extends MouseAdapter {
 		// ****************************************************
@@ -460,31 +664,24 @@ public class AppWindow extends JFrame {
 					// Setup a new game
 					newGame();
 				}
-
-				// Nested loops iterate through all squares
-				for (int rowNumber = 0; rowNumber < boardSize; rowNumber++) {
-					for (int columnNumber = 0; columnNumber < boardSize; columnNumber++) {
-						// Compare the square to the event source, to figure
-						// out which square was clicked
-						if (meEvent.getSource() == guiSquares[rowNumber][columnNumber]) {
-							// If the current square in the loop and the event
-							// source are equal, then
-							// the current square in the loop is the event
-							// source.
-
-							// Set the start position
-							knightsTour.setStartPosition(rowNumber,
-									columnNumber);
-
-							// Set tour running flag to true
-							isTourRunning = true;
-
-							// Start the timer
-							startTimer();
-
-							// No need to continue the loop at this point
-							break;
-						}
+				// Otherwise the click picks the start square
+				else {
+					// Find the square under the mouse
+					int square = boardCanvas.getSquareAt(meEvent.getX(),
+							meEvent.getY());
+
+					// Clicks off the board are ignored
+					if (square >= 0) {
+						// Set the start position and solve from it
+						startRow = square / boardSize;
+						startCol = square % boardSize;
+						startSolve();
+
+						// Set tour running flag to true
+						isTourRunning = true;
+
+						// Start the timer
+						startTimer();
 					}
 				}
 			}
@@ -494,4 +691,76 @@ public class AppWindow extends JFrame {
 			}
 		}
 	}
-}
\ No newline at end of file
+
+	// ****************************************************
+	// Class: SolveTask
+	//
+	// Purpose: Solves one tour on the solver thread into
+	// a move buffer and hands it to the event
+	// dispatch thread. Checks every 4096 moves
+	// whether it has been cancelled.
+	// ****************************************************
+	class SolveTask implements Runnable, IntConsumer {
+		private static final int CANCEL_CHECK_MASK = 4095; // Moves between
+															// checks, less one
+		private final int size; // Dimension of the board
+		private final int row; // Row the knight starts on
+		private final int col; // Column the knight starts on
+		private final MoveBuffer moves; // Moves of the tour
+
+		// ****************************************************
+		// Method: SolveTask
+		//
+		// Purpose: Constructor. Stores the solve parameters.
+		// ****************************************************
+		SolveTask(int size, int row, int col) {
+			this.size = size;
+			this.row = row;
+			this.col = col;
+			moves = new MoveBuffer(size * size - 1);
+		}
+
+		// ****************************************************
+		// Method: run
+		//
+		// Purpose: Solves the tour on a pooled board. A
+		// cancelled solve gives its tour straight
+		// back to the pool.
+		// ****************************************************
+		@Override
+		public void run() {
+			final Tour tour = tourPool.acquire(row, col, size);
+
+			try {
+				tour.setMoveListener(this);
+				tour.solve();
+			} catch (CancellationException cancellationException) {
+				tourPool.release(tour);
+				return;
+			}
+
+			SwingUtilities.invokeLater(new Runnable() {
+				@Override
+				public void run() {
+					solveFinished(SolveTask.this, tour);
+				}
+			});
+		}
+
+		// ****************************************************
+		// Method: accept
+		//
+		// Purpose: Adds a move to the buffer, stopping the
+		// solve if it has been cancelled.
+		// ****************************************************
+		@Override
+		public void accept(int moveNumber) {
+			if ((moves.size() & CANCEL_CHECK_MASK) == 0
+					&& Thread.currentThread().isInterrupted() == true) {
+				throw new CancellationException();
+			}
+
+			moves.accept(moveNumber);
+		}
+	}
+}
@@ -0,0 +1,387 @@
+//****************************************************
+//File: BoardCanvas
+//
+//Purpose: Single component that paints the whole
+//		   chess board itself, in place of one panel
+//		   and label per square. Squares are laid out
+//		   by arithmetic: the square under a pixel is
+//		   found by two divisions, a changed square
+//		   repaints only its own rectangle, and a
+//		   repaint only visits the squares in the clip.
+//		   Move numbers are drawn from ten digit images
+//		   that are built again only when the squares
+//		   change size.
+//
+//		   Between beginBatch and endBatch, changed
+//		   squares are only noted, and endBatch asks
+//		   for one repaint of the rectangle around all
+//		   of them, so many moves drawn in one frame
+//		   cost one repaint.
+//****************************************************
+
+package thesecretsquad.Chess.KnightsTour;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import javax.swing.*;
+
+public class BoardCanvas extends JComponent {
+	private static final long serialVersionUID = 3486016311473552470L;
+	public static final int NO_NUMBER = -1; // Number of a square showing none
+	private static final int MIN_FONT_SIZE = 6; // Smallest font numbers are
+												// drawn in
+	private static final Color LIGHT_COLOR = Color.lightGray; // Color of
+																// squares on
+																// the corner
+																// color
+	private static final Color DARK_COLOR = Color.darkGray; // Color of the
+															// other squares
+	private static final Color HIGHLIGHT_COLOR = Color.orange; // Color of the
+																// knight's
+																// square
+	private static final Color TEXT_COLOR = Color.white; // Color of numbers
+
+	private int boardSize = 0; // Dimension of the board
+	private int[] squareNumbers = new int[0]; // Number shown on each square,
+												// or NO_NUMBER
+	private int highlightedSquare = -1; // Square drawn in the highlight
+										// color, or -1
+	private transient BufferedImage[] digitGlyphs; // Image of each digit, or
+													// null if numbers are
+													// too small to draw
+	private int glyphWidth; // Width of every digit image
+	private int glyphHeight; // Height of every digit image
+	private int glyphSquareWidth = -1; // Square width the digits were built
+										// for
+	private int glyphSquareHeight = -1; // Square height the digits were built
+										// for
+	private boolean batching = false; // Flag: true between beginBatch and
+										// endBatch
+	private int dirtyFirstRow; // First row changed in the batch
+	private int dirtyLastRow = -1; // Last row changed in the batch, or -1
+	private int dirtyFirstCol; // First column changed in the batch
+	private int dirtyLastCol; // Last column changed in the batch
+
+	// ****************************************************
+	// Method: BoardCanvas
+	//
+	// Purpose: Constructor. Creates an empty canvas that
+	// paints every pixel itself.
+	// ****************************************************
+	public BoardCanvas() {
+		setOpaque(true);
+		setBackground(UIManager.getColor("Panel.background"));
+		setFont(UIManager.getFont("Label.font"));
+	}
+
+	// ****************************************************
+	// Method: setBoardSize
+	//
+	// Purpose: Sets the dimension of the board and clears
+	// every number and the highlight.
+	// ****************************************************
+	public void setBoardSize(int dimension) {
+		if (dimension != boardSize) {
+			boardSize = dimension;
+			squareNumbers = new int[dimension * dimension];
+		}
+
+		Arrays.fill(squareNumbers, NO_NUMBER);
+		highlightedSquare = -1;
+		dirtyLastRow = -1;
+		repaint();
+	}
+
+	// ****************************************************
+	// Method: getBoardSize
+	//
+	// Purpose: Returns the dimension of the board.
+	// ****************************************************
+	public int getBoardSize() {
+		return boardSize;
+	}
+
+	// ****************************************************
+	// Method: setSquareNumber
+	//
+	// Purpose: Shows a number on a square, or none for
+	// NO_NUMBER, and repaints that square only.
+	// ****************************************************
+	public void setSquareNumber(int row, int col, int number) {
+		int square = row * boardSize + col;
+
+		if (squareNumbers[square] != number) {
+			squareNumbers[square] = number;
+			repaintSquare(square);
+		}
+	}
+
+	// ****************************************************
+	// Method: setHighlightedSquare
+	//
+	// Purpose: Draws a square in the highlight color, and
+	// the square highlighted before in its own.
+	// ****************************************************
+	public void setHighlightedSquare(int row, int col) {
+		int square = row * boardSize + col;
+
+		if (square != highlightedSquare) {
+			clearHighlightedSquare();
+			highlightedSquare = square;
+			repaintSquare(square);
+		}
+	}
+
+	// ****************************************************
+	// Method: clearHighlightedSquare
+	//
+	// Purpose: Draws the highlighted square, if any, in
+	// its own color again.
+	// ****************************************************
+	public void clearHighlightedSquare() {
+		int square = highlightedSquare;
+
+		if (square >= 0) {
+			highlightedSquare = -1;
+			repaintSquare(square);
+		}
+	}
+
+	// ****************************************************
+	// Method: beginBatch
+	//
+	// Purpose: Holds back repaints of changed squares
+	// until endBatch.
+	// ****************************************************
+	public void beginBatch() {
+		batching = true;
+	}
+
+	// ****************************************************
+	// Method: endBatch
+	//
+	// Purpose: Asks for one repaint covering every square
+	// changed since beginBatch.
+	// ****************************************************
+	public void endBatch() {
+		int width = getWidth(), height = getHeight(), x, y;
+
+		batching = false;
+
+		if (dirtyLastRow >= 0) {
+			x = edge(dirtyFirstCol, width);
+			y = edge(dirtyFirstRow, height);
+			repaint(x, y, edge(dirtyLastCol + 1, width) - x,
+					edge(dirtyLastRow + 1, height) - y);
+			dirtyLastRow = -1;
+		}
+	}
+
+	// ****************************************************
+	// Method: getSquareAt
+	//
+	// Purpose: Returns the index, row * size + col, of the
+	// square under a pixel, or -1 if the pixel is
+	// off the board.
+	// ****************************************************
+	public int getSquareAt(int x, int y) {
+		int width = getWidth(), height = getHeight();
+
+		if (boardSize == 0 || x < 0 || x >= width || y < 0 || y >= height) {
+			return -1;
+		}
+
+		return (y * boardSize / height) * boardSize + x * boardSize / width;
+	}
+
+	// ****************************************************
+	// Method: paintComponent
+	//
+	// Purpose: Paints the squares that meet the clip, with
+	// a one pixel gap between squares.
+	// ****************************************************
+	@Override
+	protected void paintComponent(Graphics graphics) {
+		Rectangle clip = graphics.getClipBounds();
+		int width = getWidth(), height = getHeight(), firstRow, lastRow, firstCol, lastCol, x, y, square;
+
+		if (clip == null) {
+			clip = new Rectangle(0, 0, width, height);
+		}
+
+		graphics.setColor(getBackground());
+		graphics.fillRect(clip.x, clip.y, clip.width, clip.height);
+
+		if (boardSize == 0 || width < boardSize || height < boardSize) {
+			return;
+		}
+
+		buildGlyphs(width / boardSize, height / boardSize);
+
+		firstRow = Math.max(0, clip.y) * boardSize / height;
+		lastRow = Math.min(height - 1, clip.y + clip.height - 1) * boardSize
+				/ height;
+		firstCol = Math.max(0, clip.x) * boardSize / width;
+		lastCol = Math.min(width - 1, clip.x + clip.width - 1) * boardSize
+				/ width;
+
+		for (int row = firstRow; row <= lastRow; row++) {
+			y = edge(row, height);
+
+			for (int col = firstCol; col <= lastCol; col++) {
+				x = edge(col, width);
+				square = row * boardSize + col;
+
+				if (square == highlightedSquare) {
+					graphics.setColor(HIGHLIGHT_COLOR);
+				} else {
+					graphics.setColor((row + col) % 2 == 0 ? LIGHT_COLOR
+							: DARK_COLOR);
+				}
+
+				graphics.fillRect(x, y, edge(col + 1, width) - x - 1,
+						edge(row + 1, height) - y - 1);
+
+				if (squareNumbers[square] != NO_NUMBER && digitGlyphs != null) {
+					drawNumber(graphics, squareNumbers[square], x, y,
+							edge(col + 1, width) - x - 1, edge(row + 1, height)
+									- y - 1);
+				}
+			}
+		}
+	}
+
+	// ****************************************************
+	// Method: drawNumber
+	//
+	// Purpose: Draws a number centered in a square, one
+	// digit image at a time, right to left.
+	// ****************************************************
+	private void drawNumber(Graphics graphics, int number, int x, int y,
+			int width, int height) {
+		int digits = 1, digitX;
+
+		for (int rest = number / 10; rest > 0; rest /= 10) {
+			digits++;
+		}
+
+		digitX = x + (width + digits * glyphWidth) / 2 - glyphWidth;
+		y += (height - glyphHeight) / 2;
+
+		do {
+			graphics.drawImage(digitGlyphs[number % 10], digitX, y, null);
+			digitX -= glyphWidth;
+			number /= 10;
+		} while (number > 0);
+	}
+
+	// ****************************************************
+	// Method: buildGlyphs
+	//
+	// Purpose: Draws the ten digits into images, in the
+	// largest font that fits the longest move
+	// number into a square. Does nothing if the
+	// squares have not changed size.
+	// ****************************************************
+	private void buildGlyphs(int squareWidth, int squareHeight) {
+		BufferedImage scratch;
+		Graphics2D glyphGraphics;
+		FontMetrics metrics;
+		Font font;
+		int maxDigits = Integer.toString(boardSize * boardSize).length();
+
+		if (squareWidth == glyphSquareWidth && squareHeight == glyphSquareHeight) {
+			return;
+		}
+
+		glyphSquareWidth = squareWidth;
+		glyphSquareHeight = squareHeight;
+		digitGlyphs = null;
+		scratch = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB);
+		glyphGraphics = scratch.createGraphics();
+
+		try {
+			for (float fontSize = squareHeight * 0.6f;; fontSize--) {
+				if (fontSize < MIN_FONT_SIZE) {
+					return;
+				}
+
+				font = getFont().deriveFont(fontSize);
+				metrics = glyphGraphics.getFontMetrics(font);
+
+				if (maxDigits * metrics.charWidth('0') <= squareWidth - 2
+						&& metrics.getAscent() + metrics.getDescent() <= squareHeight - 1) {
+					break;
+				}
+			}
+		} finally {
+			glyphGraphics.dispose();
+		}
+
+		glyphWidth = metrics.charWidth('0');
+		glyphHeight = metrics.getAscent() + metrics.getDescent();
+		digitGlyphs = new BufferedImage[10];
+
+		for (int digit = 0; digit < 10; digit++) {
+			digitGlyphs[digit] = new BufferedImage(glyphWidth, glyphHeight,
+					BufferedImage.TYPE_INT_ARGB);
+			glyphGraphics = digitGlyphs[digit].createGraphics();
+
+			try {
+				glyphGraphics.setRenderingHint(
+						RenderingHints.KEY_TEXT_ANTIALIASING,
+						RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+				glyphGraphics.setFont(font);
+				glyphGraphics.setColor(TEXT_COLOR);
+				glyphGraphics.drawString(Character.toString((char) ('0' + digit)),
+						0, metrics.getAscent());
+			} finally {
+				glyphGraphics.dispose();
+			}
+		}
+	}
+
+	// ****************************************************
+	// Method: repaintSquare
+	//
+	// Purpose: Asks for only one square to be repainted,
+	// or in a batch, adds it to the squares to
+	// repaint at the end.
+	// ****************************************************
+	private void repaintSquare(int square) {
+		int width = getWidth(), height = getHeight(), row = square / boardSize, col = square
+				% boardSize, x, y;
+
+		if (batching == true) {
+			if (dirtyLastRow < 0) {
+				dirtyFirstRow = dirtyLastRow = row;
+				dirtyFirstCol = dirtyLastCol = col;
+			} else {
+				dirtyFirstRow = Math.min(dirtyFirstRow, row);
+				dirtyLastRow = Math.max(dirtyLastRow, row);
+				dirtyFirstCol = Math.min(dirtyFirstCol, col);
+				dirtyLastCol = Math.max(dirtyLastCol, col);
+			}
+
+			return;
+		}
+
+		x = edge(col, width);
+		y = edge(row, height);
+		repaint(x, y, edge(col + 1, width) - x, edge(row + 1, height) - y);
+	}
+
+	// ****************************************************
+	// Method: edge
+	//
+	// Purpose: Returns the first pixel of a row or column
+	// of squares along a side of the given
+	// length. It is the smallest pixel whose
+	// square, by getSquareAt, is that row or
+	// column, so painting and hit testing agree.
+	// ****************************************************
+	private int edge(int index, int length) {
+		return (index * length + boardSize - 1) / boardSize;
+	}
+}
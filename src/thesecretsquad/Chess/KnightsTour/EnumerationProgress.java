@@ -0,0 +1,280 @@
+//****************************************************
+//File: EnumerationProgress
+//
+//Purpose: Handle on a running TourEnumerator count.
+//		   The totals grow while the count runs and can
+//		   be read at any time from any thread; they
+//		   are kept in LongAdders that the workers add
+//		   their own counts to every so often. The
+//		   count can be cancelled, after which the
+//		   workers stop at their next check and the
+//		   totals are left as they were.
+//****************************************************
+
+package thesecretsquad.Chess.KnightsTour;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.LongAdder;
+
+public class EnumerationProgress {
+	private final int rows; // Rows on the board
+	private final int cols; // Columns on the board
+	private final int startRow; // Row every tour starts on
+	private final int startCol; // Column every tour starts on
+	private final boolean closedOnly; // Flag: true if only closed tours are
+										// searched for
+	private final long startNanos = System.nanoTime(); // When the count began
+	// Running totals, added to by every worker
+	private final LongAdder nodesVisited = new LongAdder(); // Squares entered
+	private final LongAdder openTours = new LongAdder(); // Tours found
+	private final LongAdder closedTours = new LongAdder(); // Tours found that
+															// end a knight
+															// move from the
+															// start
+	private final LongAdder subtreesDone = new LongAdder(); // Finished
+															// subtrees
+	private volatile int subtreeCount = 0; // Subtrees the search was split
+											// into, or 0 while splitting
+	private volatile boolean cancelled = false; // Flag: true once cancelled
+	private volatile long finishNanos = 0; // When the count ended, or 0
+	private ForkJoinTask<?> task; // Task running the count
+
+	// ****************************************************
+	// Method: EnumerationProgress
+	//
+	// Purpose: Constructor. Stores what is being counted.
+	// ****************************************************
+	EnumerationProgress(int rows, int cols, int startRow, int startCol,
+			boolean closedOnly) {
+		this.rows = rows;
+		this.cols = cols;
+		this.startRow = startRow;
+		this.startCol = startCol;
+		this.closedOnly = closedOnly;
+	}
+
+	// ****************************************************
+	// Method: setTask
+	//
+	// Purpose: Stores the task running the count.
+	// ****************************************************
+	void setTask(ForkJoinTask<?> task) {
+		this.task = task;
+	}
+
+	// ****************************************************
+	// Method: setSubtreeCount
+	//
+	// Purpose: Stores the number of subtrees the search
+	// was split into.
+	// ****************************************************
+	void setSubtreeCount(int subtreeCount) {
+		this.subtreeCount = subtreeCount;
+	}
+
+	// ****************************************************
+	// Method: add
+	//
+	// Purpose: Adds a worker's counts to the totals.
+	// ****************************************************
+	void add(long nodes, long open, long closed) {
+		nodesVisited.add(nodes);
+		openTours.add(open);
+		closedTours.add(closed);
+	}
+
+	// ****************************************************
+	// Method: subtreeFinished
+	//
+	// Purpose: Records that a subtree has been searched.
+	// ****************************************************
+	void subtreeFinished() {
+		subtreesDone.increment();
+	}
+
+	// ****************************************************
+	// Method: finish
+	//
+	// Purpose: Records the time the count ended.
+	// ****************************************************
+	void finish() {
+		finishNanos = System.nanoTime();
+	}
+
+	// ****************************************************
+	// Method: cancel
+	//
+	// Purpose: Asks the workers to stop. Counts made so
+	// far stay available but are incomplete.
+	// ****************************************************
+	public void cancel() {
+		cancelled = true;
+	}
+
+	// ****************************************************
+	// Method: isCancelled
+	//
+	// Purpose: Returns true if the count was cancelled.
+	// ****************************************************
+	public boolean isCancelled() {
+		return cancelled;
+	}
+
+	// ****************************************************
+	// Method: isDone
+	//
+	// Purpose: Returns true once every worker has
+	// stopped, whether finished or cancelled.
+	// ****************************************************
+	public boolean isDone() {
+		return task.isDone();
+	}
+
+	// ****************************************************
+	// Method: isComplete
+	//
+	// Purpose: Returns true if the count ran to the end,
+	// so the totals are exact.
+	// ****************************************************
+	public boolean isComplete() {
+		return task.isDone() && cancelled == false
+				&& task.isCompletedAbnormally() == false;
+	}
+
+	// ****************************************************
+	// Method: await
+	//
+	// Purpose: Waits until every worker has stopped and
+	// returns this handle. Rethrows any error a
+	// worker failed with.
+	// ****************************************************
+	public EnumerationProgress await() {
+		try {
+			task.join();
+		} catch (CancellationException cancellationException) {
+			// Totals stay as they were
+		}
+
+		return this;
+	}
+
+	// ****************************************************
+	// Method: getFractionDone
+	//
+	// Purpose: Returns the fraction of the subtrees that
+	// have been searched, from 0 to 1. Subtrees
+	// differ in size, so this is a rough guide.
+	// ****************************************************
+	public double getFractionDone() {
+		int count = subtreeCount;
+
+		if (isComplete() == true) {
+			return 1.0;
+		}
+
+		return count == 0 ? 0.0 : (double) subtreesDone.sum() / count;
+	}
+
+	// ****************************************************
+	// Method: getSubtreeCount
+	//
+	// Purpose: Returns the number of subtrees the search
+	// was split into, or 0 while it is splitting.
+	// ****************************************************
+	public int getSubtreeCount() {
+		return subtreeCount;
+	}
+
+	// ****************************************************
+	// Method: getNodesVisited
+	//
+	// Purpose: Returns the number of squares entered by
+	// the search so far.
+	// ****************************************************
+	public long getNodesVisited() {
+		return nodesVisited.sum();
+	}
+
+	// ****************************************************
+	// Method: getOpenTours
+	//
+	// Purpose: Returns the number of tours found so far
+	// from the start square, closed or not, each
+	// counted in the direction it was found. Zero
+	// when only closed tours are searched for.
+	// ****************************************************
+	public long getOpenTours() {
+		return closedOnly == true ? 0 : openTours.sum();
+	}
+
+	// ****************************************************
+	// Method: getClosedTours
+	//
+	// Purpose: Returns the number of tours found so far
+	// that end a knight move from the start. Each
+	// closed tour is found once in each direction.
+	// ****************************************************
+	public long getClosedTours() {
+		return closedTours.sum();
+	}
+
+	// ****************************************************
+	// Method: getElapsedNanos
+	//
+	// Purpose: Returns the time the count has run, in
+	// nanoseconds.
+	// ****************************************************
+	public long getElapsedNanos() {
+		long finish = finishNanos;
+
+		return (finish == 0 ? System.nanoTime() : finish) - startNanos;
+	}
+
+	// ****************************************************
+	// Method: getRows
+	//
+	// Purpose: Returns the number of rows on the board.
+	// ****************************************************
+	public int getRows() {
+		return rows;
+	}
+
+	// ****************************************************
+	// Method: getCols
+	//
+	// Purpose: Returns the number of columns on the board.
+	// ****************************************************
+	public int getCols() {
+		return cols;
+	}
+
+	// ****************************************************
+	// Method: getStartRow
+	//
+	// Purpose: Returns the row every tour starts on.
+	// ****************************************************
+	public int getStartRow() {
+		return startRow;
+	}
+
+	// ****************************************************
+	// Method: getStartCol
+	//
+	// Purpose: Returns the column every tour starts on.
+	// ****************************************************
+	public int getStartCol() {
+		return startCol;
+	}
+
+	// ****************************************************
+	// Method: isClosedOnly
+	//
+	// Purpose: Returns true if only closed tours are
+	// searched for.
+	// ****************************************************
+	public boolean isClosedOnly() {
+		return closedOnly;
+	}
+
+}
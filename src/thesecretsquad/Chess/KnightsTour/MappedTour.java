@@ -0,0 +1,242 @@
+//****************************************************
+//File: MappedTour
+//
+//Purpose: Plays the greedy knight's tour on a
+//		   MappedChessBoard, for boards too large for
+//		   Tour. Moves are chosen by the same rules as
+//		   Knight, including the tie breakers, so on
+//		   boards both can hold the two make the same
+//		   tour. Each move can be passed to a listener
+//		   as it is made, e.g. a TourWriter.
+//****************************************************
+
+package thesecretsquad.Chess.KnightsTour;
+
+import java.util.function.IntConsumer;
+
+import thesecretsquad.Chess.Knight;
+import thesecretsquad.Chess.MappedChessBoard;
+import thesecretsquad.Chess.TieBreaker;
+
+public class MappedTour {
+	private final MappedChessBoard chessBoard; // Board the knight moves on
+	private final Knight knight = new Knight(); // Supplies the move values
+	// Square reached by each move from the knight, or -1 if it is off the
+	// board or visited
+	private final long[] neighbors = new long[Knight.NUM_ALLOWED_MOVES];
+	private int currentRow; // Row the knight is on
+	private int currentCol; // Column the knight is on
+	private long moveCounter = 1; // Move number of the current square
+	private TieBreaker tieBreaker = TieBreaker.MOVE_ORDER; // Rule for equally
+															// accessible moves
+	private IntConsumer moveListener; // Told every move made, or null
+
+	// ****************************************************
+	// Method: MappedTour
+	//
+	// Purpose: Constructor. Places the knight on its start
+	// square of an unplayed board.
+	// ****************************************************
+	public MappedTour(MappedChessBoard chessBoard, int startRow, int startCol) {
+		this.chessBoard = chessBoard;
+		currentRow = startRow;
+		currentCol = startCol;
+	}
+
+	// ****************************************************
+	// Method: setTieBreaker
+	//
+	// Purpose: Sets the rule for choosing between moves
+	// with the same accessibility.
+	// ****************************************************
+	public void setTieBreaker(TieBreaker tieBreaker) {
+		this.tieBreaker = tieBreaker;
+	}
+
+	// ****************************************************
+	// Method: setMoveListener
+	//
+	// Purpose: Sets a listener that is passed the knight
+	// move number of every move as it is made.
+	// ****************************************************
+	public void setMoveListener(IntConsumer moveListener) {
+		this.moveListener = moveListener;
+	}
+
+	// ****************************************************
+	// Method: getMoveCounter
+	//
+	// Purpose: Returns the number of squares visited.
+	// ****************************************************
+	public long getMoveCounter() {
+		return moveCounter;
+	}
+
+	// ****************************************************
+	// Method: getCurrentRow
+	//
+	// Purpose: Returns the row the knight is on.
+	// ****************************************************
+	public int getCurrentRow() {
+		return currentRow;
+	}
+
+	// ****************************************************
+	// Method: getCurrentCol
+	//
+	// Purpose: Returns the column the knight is on.
+	// ****************************************************
+	public int getCurrentCol() {
+		return currentCol;
+	}
+
+	// ****************************************************
+	// Method: isComplete
+	//
+	// Purpose: Returns true if every square is visited.
+	// ****************************************************
+	public boolean isComplete() {
+		return moveCounter == chessBoard.getNumSquares();
+	}
+
+	// ****************************************************
+	// Method: solve
+	//
+	// Purpose: Moves the knight until it is stuck. Returns
+	// true if it visited every square.
+	// ****************************************************
+	public boolean solve() {
+		while (move() == true) {
+			// Keep moving
+		}
+
+		return isComplete();
+	}
+
+	// ****************************************************
+	// Method: move
+	//
+	// Purpose: Marks the current square, lowers the
+	// accessibility of the unvisited squares
+	// around it and moves to the best of them.
+	// Returns false if there was no move.
+	// ****************************************************
+	public boolean move() {
+		long square = chessBoard.toSquare(currentRow, currentCol);
+		int boardSize = chessBoard.getBoardSize(), bestMove = -1, lowestAccessibility = 0, testAccessibility, testRow, testCol;
+
+		chessBoard.markBoardSquare(square, moveCounter);
+
+		for (int moveNum = 0; moveNum < Knight.NUM_ALLOWED_MOVES; moveNum++) {
+			testRow = currentRow + knight.getVerticalMoveValue(moveNum);
+			testCol = currentCol + knight.getHorizontalMoveValue(moveNum);
+			neighbors[moveNum] = -1;
+
+			if (testRow < 0 || testRow >= boardSize || testCol < 0
+					|| testCol >= boardSize) {
+				continue;
+			}
+
+			long neighbor = chessBoard.toSquare(testRow, testCol);
+
+			if (chessBoard.isSquareVisited(neighbor) == true) {
+				continue;
+			}
+
+			neighbors[moveNum] = neighbor;
+			chessBoard.decrSquareAccessibility(neighbor);
+			testAccessibility = chessBoard.getSquareAccessibility(neighbor);
+
+			// Same rule as Knight.lowerAccessibilityAndFindBestMove
+			if (bestMove < 0 || testAccessibility < lowestAccessibility
+					|| lowestAccessibility < 1) {
+				lowestAccessibility = testAccessibility;
+				bestMove = moveNum;
+			}
+		}
+
+		if (bestMove < 0) {
+			return false;
+		}
+
+		if (tieBreaker != TieBreaker.MOVE_ORDER) {
+			bestMove = -1;
+
+			for (int moveNum = 0; moveNum < Knight.NUM_ALLOWED_MOVES; moveNum++) {
+				if (neighbors[moveNum] >= 0
+						&& (bestMove < 0 || isBetterMove(neighbors[moveNum],
+								neighbors[bestMove]))) {
+					bestMove = moveNum;
+				}
+			}
+		}
+
+		currentRow += knight.getVerticalMoveValue(bestMove);
+		currentCol += knight.getHorizontalMoveValue(bestMove);
+		moveCounter++;
+
+		if (moveListener != null) {
+			moveListener.accept(bestMove);
+		}
+
+		return true;
+	}
+
+	// ****************************************************
+	// Method: isBetterMove
+	//
+	// Purpose: Returns true if the first square is a
+	// better move than the second under the tie
+	// breaker, ranking them as Knight does.
+	// ****************************************************
+	private boolean isBetterMove(long square, long otherSquare) {
+		int accessibility = chessBoard.getSquareAccessibility(square), otherAccessibility = chessBoard
+				.getSquareAccessibility(otherSquare);
+
+		if (accessibility == 0) {
+			accessibility = Knight.NUM_ALLOWED_MOVES + 1;
+		}
+
+		if (otherAccessibility == 0) {
+			otherAccessibility = Knight.NUM_ALLOWED_MOVES + 1;
+		}
+
+		if (accessibility != otherAccessibility) {
+			return accessibility < otherAccessibility;
+		}
+
+		if (tieBreaker == TieBreaker.FURTHEST_FROM_CENTER) {
+			return chessBoard.getDistanceFromCenter(square) > chessBoard
+					.getDistanceFromCenter(otherSquare);
+		}
+
+		return findSecondaryDegree(square) < findSecondaryDegree(otherSquare);
+	}
+
+	// ****************************************************
+	// Method: findSecondaryDegree
+	//
+	// Purpose: Returns the total accessibility of the
+	// unvisited squares reachable from a square.
+	// ****************************************************
+	private int findSecondaryDegree(long square) {
+		int boardSize = chessBoard.getBoardSize(), row = (int) (square / boardSize), col = (int) (square % boardSize), total = 0, testRow, testCol;
+		long neighbor;
+
+		for (int moveNum = 0; moveNum < Knight.NUM_ALLOWED_MOVES; moveNum++) {
+			testRow = row + knight.getVerticalMoveValue(moveNum);
+			testCol = col + knight.getHorizontalMoveValue(moveNum);
+
+			if (testRow >= 0 && testRow < boardSize && testCol >= 0
+					&& testCol < boardSize) {
+				neighbor = chessBoard.toSquare(testRow, testCol);
+
+				if (chessBoard.isSquareVisited(neighbor) == false) {
+					total += chessBoard.getSquareAccessibility(neighbor);
+				}
+			}
+		}
+
+		return total;
+	}
+}
@@ -0,0 +1,99 @@
+//****************************************************
+//File: MoveBuffer
+//
+//Purpose: Collects the move numbers of a tour as it
+//		   is played, one byte per move, in an array
+//		   that grows as needed. Set as a Tour's move
+//		   listener to keep a tour without its board.
+//****************************************************
+
+package thesecretsquad.Chess.KnightsTour;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+public class MoveBuffer implements IntConsumer {
+	private static final int INITIAL_CAPACITY = 64; // Moves held before the
+													// first growth
+
+	private byte[] moves; // Move numbers, in the order they were made
+	private int size = 0; // Number of moves held
+
+	// ****************************************************
+	// Method: MoveBuffer
+	//
+	// Purpose: Constructor. Creates an empty buffer.
+	// ****************************************************
+	public MoveBuffer() {
+		this(INITIAL_CAPACITY);
+	}
+
+	// ****************************************************
+	// Method: MoveBuffer
+	//
+	// Purpose: Constructor. Creates an empty buffer with
+	// room for a number of moves, e.g. one less
+	// than the number of squares of the board.
+	// ****************************************************
+	public MoveBuffer(int capacity) {
+		moves = new byte[Math.max(1, capacity)];
+	}
+
+	// ****************************************************
+	// Method: accept
+	//
+	// Purpose: Adds a move, growing the array if it is
+	// full.
+	// ****************************************************
+	@Override
+	public void accept(int moveNumber) {
+		if (size == moves.length) {
+			moves = Arrays.copyOf(moves, (int) Math.min(Integer.MAX_VALUE - 8,
+					(long) size * 2));
+		}
+
+		moves[size++] = (byte) moveNumber;
+	}
+
+	// ****************************************************
+	// Method: size
+	//
+	// Purpose: Returns the number of moves held.
+	// ****************************************************
+	public int size() {
+		return size;
+	}
+
+	// ****************************************************
+	// Method: get
+	//
+	// Purpose: Returns the move number at a position.
+	// ****************************************************
+	public int get(int position) {
+		if (position >= size) {
+			throw new IndexOutOfBoundsException("Move " + position + " of "
+					+ size);
+		}
+
+		return moves[position];
+	}
+
+	// ****************************************************
+	// Method: toArray
+	//
+	// Purpose: Returns a copy of the moves held.
+	// ****************************************************
+	public byte[] toArray() {
+		return Arrays.copyOf(moves, size);
+	}
+
+	// ****************************************************
+	// Method: clear
+	//
+	// Purpose: Removes every move, keeping the array for
+	// the next tour.
+	// ****************************************************
+	public void clear() {
+		size = 0;
+	}
+}
@@ -0,0 +1,846 @@
+//****************************************************
+//File: RunHeadless
+//
+//Purpose: Runs knight's tours from the command line
+//		   without opening a window. Solves a single
+//		   job given on the command line, or every
+//		   job listed in a manifest file. Only Tour and
+//		   the board classes are used, so no AWT or
+//		   Swing classes are loaded.
+//
+//		   Usage:
+//		     RunHeadless size startRow startCol [options]
+//		     RunHeadless --manifest file [options]
+//		     RunHeadless --validate file [--closed]
+//
+//		   Options:
+//		     --output file  Write results to a file
+//		                    instead of standard output
+//		     --workers n    Number of worker threads
+//		     --queue n      Maximum number of jobs that
+//		                    may be waiting or running
+//		     --board        Also print each finished board
+//		     --moves file   Stream the moves of a single job
+//		                    to a file as they are made
+//		     --format f     Encoding of the moves file,
+//		                    text or binary (default)
+//		     --flush n      Write the moves file at least
+//		                    every n moves
+//		     --blocks       Build a single job's tour by
+//		                    divide and conquer; the start
+//		                    square must be 0 0
+//		     --mapped dir   Play a single job on a board
+//		                    kept in memory-mapped files in
+//		                    dir, for boards too large for
+//		                    the heap
+//		     --tie-breaker rule
+//		                    MOVE_ORDER (default),
+//		                    FURTHEST_FROM_CENTER or
+//		                    SECONDARY_DEGREE
+//		     --validate file
+//		                    Check that a moves file holds a
+//		                    legal tour of the whole board
+//		                    instead of solving; exits with
+//		                    status 2 if it does not
+//		     --closed       With --validate, also require
+//		                    the tour to be closed
+//		     --cache dir    Keep solved tours in dir and
+//		                    reuse them instead of solving
+//		                    again
+//		     --cache-mb n   Megabytes of tours the cache
+//		                    holds in memory (default 64)
+//		     --symmetry     Solve only canonical start
+//		                    squares and rotate or reflect
+//		                    their tours for the others;
+//		                    keeps a memory cache if --cache
+//		                    is not given. The tie breakers
+//		                    are not symmetric, so a derived
+//		                    tour can differ from the one
+//		                    played from that start, and
+//		                    even be complete when it is not
+//		                    or the other way round; its
+//		                    result line ends "by-symmetry"
+//		     --metrics      Record solver metrics, publish
+//		                    them over JMX while running and
+//		                    print them to standard error
+//		                    at the end
+//
+//		   Manifest files hold one job per line as
+//		   "size startRow startCol". Blank lines and
+//		   lines starting with # are ignored. One
+//		   result line "size startRow startCol moves
+//		   complete|incomplete" is written per job, in
+//		   manifest order, followed by " by-symmetry"
+//		   for a tour derived by --symmetry. A line
+//		   that is not a job, or whose job fails, is
+//		   reported on standard error with its line
+//		   number and the remaining jobs still run.
+//
+//		   Solves, searches and moves file writes emit
+//		   flight recorder events in the "Knight's
+//		   Tour" category, e.g. with
+//		     java -XX:StartFlightRecording=filename=run.jfr
+//		   Backtrack events are off unless the
+//		   recording settings turn them on.
+//****************************************************
+
+package thesecretsquad.Chess.KnightsTour;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.IntConsumer;
+
+import javax.management.JMException;
+
+import thesecretsquad.Chess.BlockTourBuilder;
+import thesecretsquad.Chess.KnightGraph;
+import thesecretsquad.Chess.MappedChessBoard;
+import thesecretsquad.Chess.SolverMetrics;
+import thesecretsquad.Chess.TieBreaker;
+
+public class RunHeadless {
+	private String manifestFile; // Manifest to read jobs from, or null
+	private String outputFile; // File to write results to, or null for stdout
+	// Number of worker threads
+	private int workers = Runtime.getRuntime().availableProcessors();
+	private int queueCapacity; // Maximum jobs waiting or running at once
+	private boolean printBoard = false; // Flag: true if finished boards are
+										// written after the result line
+	private String[] singleJob; // Size, start row and start column of a
+								// single command line job
+	private String movesFile; // File to stream a single job's moves to, or
+								// null
+	private TourFormat movesFormat = TourFormat.BINARY; // Encoding of the
+														// moves file
+	private long flushInterval = 0; // Moves between writes of the moves file,
+									// or 0 to write when the buffer fills
+	private boolean useBlocks = false; // Flag: true if the single job is
+										// built by BlockTourBuilder
+	private String mappedDirectory; // Directory for a mapped board, or null
+	private TieBreaker tieBreaker = TieBreaker.MOVE_ORDER; // Rule for equally
+															// accessible moves
+	private String validateFile; // Moves file to check instead of solving,
+									// or null
+	private boolean requireClosed = false; // Flag: true if a validated tour
+											// must be closed
+	private boolean invalidTour = false; // Flag: true if a validated tour
+											// was not legal
+	private String cacheDirectory; // Directory of the tour cache, or null
+	private long cacheBytes = TourCache.DEFAULT_MAX_BYTES; // Memory the
+															// cache may use
+	private TourCache cache; // Solved tours, or null
+	private TourPool tourPool; // Boards reused from job to job
+	private boolean useSymmetry = false; // Flag: true if tours come from
+											// canonical start squares
+	private boolean recordMetrics = false; // Flag: true if solver metrics
+											// are recorded and printed
+
+	// ****************************************************
+	// Method: main
+	//
+	// Purpose: Parses the arguments and runs the jobs.
+	// Exits with status 1 on invalid arguments or
+	// an I/O error.
+	// ****************************************************
+	public static void main(String[] args) {
+		RunHeadless runner = new RunHeadless();
+
+		try {
+			runner.parseArguments(args);
+			runner.run();
+
+			if (runner.invalidTour == true) {
+				System.exit(2);
+			}
+		} catch (IllegalArgumentException illegalArgumentException) {
+			System.err.println("ERROR: " + illegalArgumentException.getMessage());
+			System.err.println("Usage: RunHeadless size startRow startCol [options]");
+			System.err.println("       RunHeadless --manifest file [options]");
+			System.err.println("       RunHeadless --validate file [--closed]");
+			System.err.println("Options: --output file, --workers n, --queue n, --board,");
+			System.err.println("         --moves file, --format text|binary, --flush n, --blocks,");
+			System.err.println("         --mapped dir, --tie-breaker rule, --cache dir,");
+			System.err.println("         --cache-mb n, --symmetry, --metrics");
+			System.err.println("--symmetry rotates or reflects canonical tours, which can differ");
+			System.err.println("from the tours played from the other starts (\"by-symmetry\")");
+			System.exit(1);
+		} catch (IOException ioException) {
+			System.err.println("ERROR: " + ioException.getMessage());
+			System.exit(1);
+		}
+	}
+
+	// ****************************************************
+	// Method: parseArguments
+	//
+	// Purpose: Sets the members from the command line
+	// arguments.
+	// ****************************************************
+	private void parseArguments(String[] args) {
+		String[] positional = new String[3];
+		int numPositional = 0;
+
+		for (int argNum = 0; argNum < args.length; argNum++) {
+			String arg = args[argNum];
+
+			if (arg.equals("--board")) {
+				printBoard = true;
+			} else if (arg.equals("--blocks")) {
+				useBlocks = true;
+			} else if (arg.equals("--closed")) {
+				requireClosed = true;
+			} else if (arg.equals("--symmetry")) {
+				useSymmetry = true;
+			} else if (arg.equals("--metrics")) {
+				recordMetrics = true;
+			} else if (arg.startsWith("--")) {
+				if (argNum + 1 >= args.length) {
+					throw new IllegalArgumentException("Missing value for "
+							+ arg);
+				}
+
+				String value = args[++argNum];
+
+				if (arg.equals("--manifest")) {
+					manifestFile = value;
+				} else if (arg.equals("--output")) {
+					outputFile = value;
+				} else if (arg.equals("--workers")) {
+					workers = parsePositive(value, arg);
+				} else if (arg.equals("--queue")) {
+					queueCapacity = parsePositive(value, arg);
+				} else if (arg.equals("--moves")) {
+					movesFile = value;
+				} else if (arg.equals("--format")) {
+					movesFormat = parseFormat(value);
+				} else if (arg.equals("--flush")) {
+					flushInterval = parsePositive(value, arg);
+				} else if (arg.equals("--mapped")) {
+					mappedDirectory = value;
+				} else if (arg.equals("--tie-breaker")) {
+					tieBreaker = parseTieBreaker(value);
+				} else if (arg.equals("--validate")) {
+					validateFile = value;
+				} else if (arg.equals("--cache")) {
+					cacheDirectory = value;
+				} else if (arg.equals("--cache-mb")) {
+					cacheBytes = (long) parsePositive(value, arg) << 20;
+				} else {
+					throw new IllegalArgumentException("Unknown option " + arg);
+				}
+			} else if (numPositional < positional.length) {
+				positional[numPositional++] = arg;
+			} else {
+				throw new IllegalArgumentException("Unexpected argument "
+						+ arg);
+			}
+		}
+
+		if (validateFile != null) {
+			if (numPositional != 0 || manifestFile != null) {
+				throw new IllegalArgumentException(
+						"--validate can not be combined with a job");
+			}
+
+			return;
+		}
+
+		if (requireClosed == true) {
+			throw new IllegalArgumentException(
+					"--closed only applies to --validate");
+		}
+
+		if (manifestFile == null && numPositional != 3) {
+			throw new IllegalArgumentException(
+					"Expected size, startRow and startCol, or --manifest");
+		}
+
+		if (manifestFile != null && numPositional != 0) {
+			throw new IllegalArgumentException(
+					"A single job can not be combined with --manifest");
+		}
+
+		if (manifestFile != null
+				&& (movesFile != null || useBlocks == true || mappedDirectory != null)) {
+			throw new IllegalArgumentException(
+					"--moves, --blocks and --mapped only apply to a single job");
+		}
+
+		if ((useBlocks == true || mappedDirectory != null) && printBoard == true) {
+			throw new IllegalArgumentException(
+					"--blocks and --mapped do not keep a board to print");
+		}
+
+		if ((cacheDirectory != null || useSymmetry == true)
+				&& (useBlocks == true || mappedDirectory != null)) {
+			throw new IllegalArgumentException(
+					"--cache and --symmetry can not be combined with --blocks or --mapped");
+		}
+
+		if (useBlocks == true && mappedDirectory != null) {
+			throw new IllegalArgumentException(
+					"--blocks can not be combined with --mapped");
+		}
+
+		if (manifestFile == null) {
+			singleJob = positional;
+		}
+
+		// Default to enough queued jobs to keep every worker busy
+		if (queueCapacity == 0) {
+			queueCapacity = workers * 4;
+		}
+	}
+
+	// ****************************************************
+	// Method: parsePositive
+	//
+	// Purpose: Parses an option value that must be a
+	// positive integer.
+	// ****************************************************
+	private static int parsePositive(String value, String option) {
+		try {
+			int number = Integer.parseInt(value);
+
+			if (number > 0) {
+				return number;
+			}
+		} catch (NumberFormatException numberFormatException) {
+			// Reported below
+		}
+
+		throw new IllegalArgumentException(option
+				+ " must be a positive integer");
+	}
+
+	// ****************************************************
+	// Method: parseFormat
+	//
+	// Purpose: Parses the encoding of the moves file.
+	// ****************************************************
+	private static TourFormat parseFormat(String value) {
+		if (value.equalsIgnoreCase("text")) {
+			return TourFormat.TEXT;
+		} else if (value.equalsIgnoreCase("binary")) {
+			return TourFormat.BINARY;
+		}
+
+		throw new IllegalArgumentException("--format must be text or binary");
+	}
+
+	// ****************************************************
+	// Method: parseTieBreaker
+	//
+	// Purpose: Parses the name of a tie breaker.
+	// ****************************************************
+	private static TieBreaker parseTieBreaker(String value) {
+		for (TieBreaker rule : TieBreaker.values()) {
+			if (rule.name().equalsIgnoreCase(value)) {
+				return rule;
+			}
+		}
+
+		throw new IllegalArgumentException(
+				"--tie-breaker must be MOVE_ORDER, FURTHEST_FROM_CENTER or SECONDARY_DEGREE");
+	}
+
+	// ****************************************************
+	// Method: run
+	//
+	// Purpose: Runs the single job or the manifest and
+	// writes the results, then the solver metrics
+	// if they were asked for.
+	// ****************************************************
+	private void run() throws IOException {
+		Writer output;
+
+		tourPool = new TourPool(workers);
+
+		if (recordMetrics == true) {
+			startMetrics();
+		}
+
+		if ((cacheDirectory != null || useSymmetry == true)
+				&& validateFile == null) {
+			cache = new TourCache(cacheBytes, cacheDirectory == null ? null
+					: Paths.get(cacheDirectory));
+		}
+
+		if (outputFile == null) {
+			output = new BufferedWriter(new OutputStreamWriter(System.out,
+					StandardCharsets.UTF_8));
+		} else {
+			output = Files.newBufferedWriter(Paths.get(outputFile),
+					StandardCharsets.UTF_8);
+		}
+
+		try {
+			if (validateFile != null) {
+				output.write(runValidation());
+			} else if (singleJob != null) {
+				output.write(runSingleJob(createJob(singleJob, "command line")));
+			} else {
+				BufferedReader manifest = Files.newBufferedReader(
+						Paths.get(manifestFile), StandardCharsets.UTF_8);
+
+				try {
+					runManifest(manifest, output);
+				} finally {
+					manifest.close();
+				}
+			}
+		} finally {
+			if (outputFile == null) {
+				output.flush();
+			} else {
+				output.close();
+			}
+		}
+
+		if (recordMetrics == true) {
+			System.err.print(SolverMetrics.getInstance().snapshot());
+		}
+	}
+
+	// ****************************************************
+	// Method: startMetrics
+	//
+	// Purpose: Turns the solver metrics on and publishes
+	// them over JMX, so they can be watched in
+	// JConsole while the jobs run.
+	// ****************************************************
+	private void startMetrics() throws IOException {
+		SolverMetrics.getInstance().setEnabled(true);
+
+		try {
+			SolverMetrics.registerMBean();
+		} catch (JMException jmException) {
+			throw new IOException("Can not publish solver metrics: "
+					+ jmException.getMessage(), jmException);
+		}
+	}
+
+	// ****************************************************
+	// Method: runValidation
+	//
+	// Purpose: Checks the moves file given to --validate
+	// and returns the result line, "valid" or
+	// "invalid" followed by the first error.
+	// ****************************************************
+	private String runValidation() throws IOException {
+		TourValidator validator = TourValidator.validate(
+				Paths.get(validateFile), requireClosed);
+
+		if (validator.isValid() == true) {
+			return "valid " + validator.getBoardSize() + " "
+					+ validator.getSquaresVisited()
+					+ (validator.isClosed() ? " closed" : " open") + "\n";
+		}
+
+		invalidTour = true;
+
+		return "invalid " + validator.getError() + "\n";
+	}
+
+	// ****************************************************
+	// Method: runSingleJob
+	//
+	// Purpose: Solves the command line job, streaming its
+	// moves to the moves file if one was given.
+	// Returns the result text.
+	// ****************************************************
+	private String runSingleJob(TourJob job) throws IOException {
+		TourWriter writer;
+		MoveCounter counter;
+		boolean isComplete;
+
+		if (useBlocks == true && (job.startRow != 0 || job.startCol != 0)) {
+			throw new IllegalArgumentException(
+					"--blocks tours start on square 0 0");
+		}
+
+		if (movesFile == null && useBlocks == false && mappedDirectory == null) {
+			return job.call();
+		}
+
+		writer = movesFile == null ? null : new TourWriter(
+				Paths.get(movesFile), movesFormat, job.size, job.startRow,
+				job.startCol);
+		counter = new MoveCounter(writer);
+
+		try {
+			if (writer != null) {
+				writer.setFlushInterval(flushInterval);
+			}
+
+			if (useBlocks == true) {
+				isComplete = new BlockTourBuilder(job.size).build(counter);
+
+				return job.size + " 0 0 " + (counter.moves + 1) + " "
+						+ (isComplete ? "complete" : "incomplete") + "\n";
+			}
+
+			if (mappedDirectory != null) {
+				return runMappedJob(job, counter);
+			}
+
+			if (cache != null) {
+				SolvedTour solvedTour = cache.solve(createKey(job.size,
+						job.startRow, job.startCol));
+
+				solvedTour.replay(counter);
+
+				return formatResult(solvedTour);
+			}
+
+			Tour tour = tourPool.acquire(job.startRow, job.startCol, job.size);
+
+			try {
+				tour.setTieBreaker(tieBreaker);
+				tour.setMoveListener(counter);
+				isComplete = tour.solve();
+
+				return formatResult(tour, job.size, job.startRow,
+						job.startCol, isComplete);
+			} finally {
+				tourPool.release(tour);
+			}
+		} catch (UncheckedIOException uncheckedIOException) {
+			throw uncheckedIOException.getCause();
+		} finally {
+			if (writer != null) {
+				writer.close();
+			}
+		}
+	}
+
+	// ****************************************************
+	// Method: runMappedJob
+	//
+	// Purpose: Plays the command line job on a board in
+	// memory-mapped files and returns the result
+	// line. The board's files are deleted when it
+	// is finished.
+	// ****************************************************
+	private String runMappedJob(TourJob job, MoveCounter counter)
+			throws IOException {
+		MappedChessBoard chessBoard = new MappedChessBoard(job.size,
+				Paths.get(mappedDirectory), false);
+
+		try {
+			MappedTour tour = new MappedTour(chessBoard, job.startRow,
+					job.startCol);
+			boolean isComplete;
+
+			tour.setTieBreaker(tieBreaker);
+			tour.setMoveListener(counter);
+			isComplete = tour.solve();
+
+			return job.size + " " + job.startRow + " " + job.startCol + " "
+					+ tour.getMoveCounter() + " "
+					+ (isComplete ? "complete" : "incomplete") + "\n";
+		} finally {
+			chessBoard.close();
+		}
+	}
+
+	// ****************************************************
+	// Method: runManifest
+	//
+	// Purpose: Reads jobs from the manifest and passes
+	// them to the worker threads. At most
+	// queueCapacity jobs are in flight; once the
+	// limit is reached, reading waits for the
+	// oldest job to finish and writes its result,
+	// so results come out in manifest order.
+	// ****************************************************
+	private void runManifest(BufferedReader manifest, Writer output)
+			throws IOException {
+		ExecutorService workerPool = Executors.newFixedThreadPool(workers);
+		ArrayDeque<Future<String>> inFlight = new ArrayDeque<Future<String>>(
+				queueCapacity);
+		// Manifest line of each job in flight, in the same order
+		ArrayDeque<String> inFlightSources = new ArrayDeque<String>(
+				queueCapacity);
+		String line, source;
+		int lineNumber = 0;
+
+		try {
+			while ((line = manifest.readLine()) != null) {
+				lineNumber++;
+				line = line.trim();
+
+				if (line.isEmpty() || line.startsWith("#")) {
+					continue;
+				}
+
+				TourJob job;
+
+				source = "line " + lineNumber;
+
+				try {
+					job = createJob(line.split("\\s+"), source);
+				} catch (IllegalArgumentException illegalArgumentException) {
+					System.err.println("ERROR: "
+							+ illegalArgumentException.getMessage());
+					continue;
+				}
+
+				if (inFlight.size() == queueCapacity) {
+					writeResult(output, inFlight.removeFirst(),
+							inFlightSources.removeFirst());
+				}
+
+				inFlight.addLast(workerPool.submit(job));
+				inFlightSources.addLast(source);
+			}
+
+			while (inFlight.isEmpty() == false) {
+				writeResult(output, inFlight.removeFirst(),
+						inFlightSources.removeFirst());
+			}
+		} finally {
+			workerPool.shutdownNow();
+		}
+	}
+
+	// ****************************************************
+	// Method: writeResult
+	//
+	// Purpose: Waits for a job to finish and writes its
+	// result text. A job that failed is reported
+	// with its manifest line instead, and the
+	// remaining jobs carry on.
+	// ****************************************************
+	private static void writeResult(Writer output, Future<String> result,
+			String source) throws IOException {
+		Throwable cause;
+
+		try {
+			output.write(result.get());
+		} catch (InterruptedException interruptedException) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while waiting for a job");
+		} catch (ExecutionException executionException) {
+			cause = executionException.getCause();
+			System.err.println("ERROR: "
+					+ source
+					+ ": "
+					+ (cause.getMessage() == null ? cause.toString() : cause
+							.getMessage()));
+		}
+	}
+
+	// ****************************************************
+	// Method: createJob
+	//
+	// Purpose: Validates a job's fields and returns a
+	// task that solves it. Only --blocks and
+	// --mapped jobs may be larger than a board
+	// with a KnightGraph.
+	// ****************************************************
+	private TourJob createJob(String[] fields, String source) {
+		int size, startRow, startCol;
+
+		if (fields.length != 3) {
+			throw new IllegalArgumentException(source
+					+ ": expected size startRow startCol");
+		}
+
+		try {
+			size = Integer.parseInt(fields[0]);
+			startRow = Integer.parseInt(fields[1]);
+			startCol = Integer.parseInt(fields[2]);
+		} catch (NumberFormatException numberFormatException) {
+			throw new IllegalArgumentException(source
+					+ ": fields must be integers");
+		}
+
+		if (size <= 0 || startRow < 0 || startRow >= size || startCol < 0
+				|| startCol >= size) {
+			throw new IllegalArgumentException(source
+					+ ": start square is not on the board");
+		}
+
+		if (size > KnightGraph.MAX_BOARD_SIZE && useBlocks == false
+				&& mappedDirectory == null) {
+			throw new IllegalArgumentException(source + ": size is larger than "
+					+ KnightGraph.MAX_BOARD_SIZE);
+		}
+
+		return new TourJob(size, startRow, startCol);
+	}
+
+	// ****************************************************
+	// Method: createKey
+	//
+	// Purpose: Returns the cache key of a job: the greedy
+	// tour, or with --symmetry the tour derived
+	// from the canonical start square.
+	// ****************************************************
+	private SolvedTour.Key createKey(int size, int startRow, int startCol) {
+		SolvedTour.Key key = SolvedTour.Key.greedy(size, startRow, startCol,
+				tieBreaker);
+
+		return useSymmetry == true ? key.bySymmetry() : key;
+	}
+
+	// ****************************************************
+	// Method: formatResult
+	//
+	// Purpose: Returns the result line of a finished tour
+	// and, if requested, the board.
+	// ****************************************************
+	private String formatResult(Tour tour, int size, int startRow,
+			int startCol, boolean isComplete) {
+		StringBuilder result = new StringBuilder();
+
+		result.append(size).append(' ').append(startRow).append(' ')
+				.append(startCol).append(' ')
+				.append(tour.getKnight().getMoveCounter()).append(' ')
+				.append(isComplete ? "complete" : "incomplete").append('\n');
+
+		if (printBoard == true) {
+			for (int row = 0; row < size; row++) {
+				for (int col = 0; col < size; col++) {
+					result.append(String.format("%3d", tour.getChessBoard()
+							.getSquareMoveNumber(row, col)));
+				}
+
+				result.append('\n');
+			}
+		}
+
+		return result.toString();
+	}
+
+	// ****************************************************
+	// Method: formatResult
+	//
+	// Purpose: Returns the result line of a tour from the
+	// cache and, if requested, the board, in the
+	// same form as for a tour just solved.
+	// ****************************************************
+	private String formatResult(SolvedTour tour) {
+		SolvedTour.Key key = tour.getKey();
+		StringBuilder result = new StringBuilder();
+		int[] moveNumbers;
+
+		result.append(key.getSize()).append(' ').append(key.getStartRow())
+				.append(' ').append(key.getStartCol()).append(' ')
+				.append(tour.getSquareCount()).append(' ')
+				.append(tour.isComplete() ? "complete" : "incomplete")
+				.append(key.isBySymmetry() ? " by-symmetry\n" : "\n");
+
+		if (printBoard == true) {
+			moveNumbers = tour.getMoveNumbers();
+
+			for (int row = 0; row < key.getSize(); row++) {
+				for (int col = 0; col < key.getSize(); col++) {
+					result.append(String.format("%3d", moveNumbers[row
+							* key.getSize() + col]));
+				}
+
+				result.append('\n');
+			}
+		}
+
+		return result.toString();
+	}
+
+	// ****************************************************
+	// Class: MoveCounter
+	//
+	// Purpose: Counts the moves of a tour and passes them
+	// on to a tour writer, if there is one.
+	// ****************************************************
+	static class MoveCounter implements IntConsumer {
+		private final TourWriter writer; // Writer moves go to, or null
+		private long moves = 0; // Number of moves made
+
+		// ****************************************************
+		// Method: MoveCounter
+		//
+		// Purpose: Constructor. Stores the writer.
+		// ****************************************************
+		MoveCounter(TourWriter writer) {
+			this.writer = writer;
+		}
+
+		// ****************************************************
+		// Method: accept
+		//
+		// Purpose: Counts a move and passes it on.
+		// ****************************************************
+		@Override
+		public void accept(int moveNumber) {
+			moves++;
+
+			if (writer != null) {
+				writer.accept(moveNumber);
+			}
+		}
+	}
+
+	// ****************************************************
+	// Class: TourJob
+	//
+	// Purpose: Solves one tour and returns its result text.
+	// ****************************************************
+	class TourJob implements Callable<String> {
+		private final int size; // Dimension of the board
+		private final int startRow; // Row the knight starts on
+		private final int startCol; // Column the knight starts on
+
+		// ****************************************************
+		// Method: TourJob
+		//
+		// Purpose: Constructor. Stores the job parameters.
+		// ****************************************************
+		TourJob(int size, int startRow, int startCol) {
+			this.size = size;
+			this.startRow = startRow;
+			this.startCol = startCol;
+		}
+
+		// ****************************************************
+		// Method: call
+		//
+		// Purpose: Solves the tour and formats the result.
+		// ****************************************************
+		@Override
+		public String call() throws IOException {
+			Tour tour;
+			boolean isComplete;
+
+			if (cache != null) {
+				return formatResult(cache.solve(createKey(size, startRow,
+						startCol)));
+			}
+
+			tour = tourPool.acquire(startRow, startCol, size);
+
+			try {
+				tour.setTieBreaker(tieBreaker);
+				isComplete = tour.solve();
+
+				return formatResult(tour, size, startRow, startCol, isComplete);
+			} finally {
+				tourPool.release(tour);
+			}
+		}
+	}
+}
@@ -0,0 +1,420 @@
+//****************************************************
+//File: SolvedTour
+//
+//Purpose: A finished tour kept as its move numbers,
+//		   one byte per move, together with the board
+//		   and solver settings that produced it. It
+//		   can not be changed once made, so one copy
+//		   is shared by every thread that asks for it,
+//		   and it can be replayed or drawn without a
+//		   ChessBoard.
+//****************************************************
+
+package thesecretsquad.Chess.KnightsTour;
+
+import java.util.function.IntConsumer;
+
+import thesecretsquad.Chess.BoardSymmetry;
+import thesecretsquad.Chess.Knight;
+import thesecretsquad.Chess.TieBreaker;
+
+public final class SolvedTour {
+	private static final int OVERHEAD_BYTES = 96; // Rough size of a tour and
+													// its key besides the moves
+
+	private final Key key; // Settings the tour was solved with
+	private final byte[] moves; // Move numbers, in the order they were made
+	private final boolean complete; // Flag: true if every square is visited
+
+	// ****************************************************
+	// Method: SolvedTour
+	//
+	// Purpose: Constructor. Takes ownership of the moves,
+	// which must not be changed afterwards.
+	// ****************************************************
+	SolvedTour(Key key, byte[] moves) {
+		this.key = key;
+		this.moves = moves;
+		complete = (long) moves.length + 1 == (long) key.size * key.size;
+	}
+
+	// ****************************************************
+	// Method: getKey
+	//
+	// Purpose: Returns the settings the tour was solved
+	// with.
+	// ****************************************************
+	public Key getKey() {
+		return key;
+	}
+
+	// ****************************************************
+	// Method: getMoveCount
+	//
+	// Purpose: Returns the number of moves made.
+	// ****************************************************
+	public int getMoveCount() {
+		return moves.length;
+	}
+
+	// ****************************************************
+	// Method: getSquareCount
+	//
+	// Purpose: Returns the number of squares visited,
+	// counting the start square.
+	// ****************************************************
+	public int getSquareCount() {
+		return moves.length + 1;
+	}
+
+	// ****************************************************
+	// Method: getMove
+	//
+	// Purpose: Returns the move number at a position.
+	// ****************************************************
+	public int getMove(int position) {
+		return moves[position];
+	}
+
+	// ****************************************************
+	// Method: isComplete
+	//
+	// Purpose: Returns true if every square is visited.
+	// ****************************************************
+	public boolean isComplete() {
+		return complete;
+	}
+
+	// ****************************************************
+	// Method: getByteSize
+	//
+	// Purpose: Returns roughly how many bytes of memory
+	// the tour takes.
+	// ****************************************************
+	public long getByteSize() {
+		return moves.length + OVERHEAD_BYTES;
+	}
+
+	// ****************************************************
+	// Method: replay
+	//
+	// Purpose: Passes every move, in order, to a listener
+	// such as a TourWriter.
+	// ****************************************************
+	public void replay(IntConsumer moveListener) {
+		for (byte moveNumber : moves) {
+			moveListener.accept(moveNumber);
+		}
+	}
+
+	// ****************************************************
+	// Method: getMoveNumbers
+	//
+	// Purpose: Returns the move number of every square,
+	// as ChessBoard.getSquareMoveNumber would
+	// give it, indexed by row * size + col.
+	// Unvisited squares hold 0.
+	// ****************************************************
+	public int[] getMoveNumbers() {
+		Knight knight = new Knight();
+		int[] moveNumbers = new int[key.size * key.size];
+		int row = key.startRow, col = key.startCol;
+
+		moveNumbers[row * key.size + col] = 1;
+
+		for (int position = 0; position < moves.length; position++) {
+			row += knight.getVerticalMoveValue(moves[position]);
+			col += knight.getHorizontalMoveValue(moves[position]);
+			moveNumbers[row * key.size + col] = position + 2;
+		}
+
+		return moveNumbers;
+	}
+
+	// ****************************************************
+	// Method: transform
+	//
+	// Purpose: Returns the tour rotated or reflected by a
+	// symmetry: the same tour seen from the image
+	// of its start square, made by renumbering
+	// every move. It is as long as this one but
+	// need not be the tour the solver would find
+	// from that square, since tie breakers are not
+	// symmetric, so it is given the key's
+	// BY_SYMMETRY strategy rather than the
+	// solver's.
+	// ****************************************************
+	public SolvedTour transform(BoardSymmetry symmetry) {
+		byte[] newMoves;
+
+		if (symmetry == BoardSymmetry.IDENTITY) {
+			return this;
+		}
+
+		newMoves = new byte[moves.length];
+
+		for (int position = 0; position < moves.length; position++) {
+			newMoves[position] = (byte) symmetry.transformMove(moves[position]);
+		}
+
+		return new SolvedTour(key.transform(symmetry).bySymmetry(), newMoves);
+	}
+
+	// ****************************************************
+	// Method: moves
+	//
+	// Purpose: Returns the move array itself, for writing
+	// it out. Callers must not change it.
+	// ****************************************************
+	byte[] moves() {
+		return moves;
+	}
+
+	// ****************************************************
+	// Class: Key
+	//
+	// Purpose: Board size, start square and solver that
+	// together decide a tour, since every solver
+	// used is deterministic. A tour made by
+	// rotating or reflecting the tour from the
+	// canonical start square has the solver's
+	// strategy followed by BY_SYMMETRY, since it
+	// can differ from the tour the solver plays.
+	// ****************************************************
+	public static final class Key {
+		public static final String CLOSED = "CLOSED"; // Strategy of tours
+														// from solveClosed
+		public static final String BY_SYMMETRY = "_BY_SYMMETRY"; // Ending of
+																	// the strategy
+																	// of derived
+																	// tours
+
+		private final int size; // Dimension of the board
+		private final int startRow; // Row the tour starts on
+		private final int startCol; // Column the tour starts on
+		private final String strategy; // Tie breaker name or CLOSED,
+										// then BY_SYMMETRY if derived
+
+		// ****************************************************
+		// Method: Key
+		//
+		// Purpose: Constructor. Stores the settings.
+		// ****************************************************
+		private Key(int size, int startRow, int startCol, String strategy) {
+			if (size <= 0 || startRow < 0 || startRow >= size || startCol < 0
+					|| startCol >= size) {
+				throw new IllegalArgumentException(
+						"Start square is not on the board");
+			}
+
+			this.size = size;
+			this.startRow = startRow;
+			this.startCol = startCol;
+			this.strategy = strategy;
+		}
+
+		// ****************************************************
+		// Method: greedy
+		//
+		// Purpose: Returns the key of a tour from Tour.solve
+		// with a tie breaker.
+		// ****************************************************
+		public static Key greedy(int size, int startRow, int startCol,
+				TieBreaker tieBreaker) {
+			return new Key(size, startRow, startCol, tieBreaker.name());
+		}
+
+		// ****************************************************
+		// Method: closed
+		//
+		// Purpose: Returns the key of a tour from
+		// Tour.solveClosed.
+		// ****************************************************
+		public static Key closed(int size, int startRow, int startCol) {
+			return new Key(size, startRow, startCol, CLOSED);
+		}
+
+		// ****************************************************
+		// Method: transform
+		//
+		// Purpose: Returns the key with its start square
+		// moved by a symmetry.
+		// ****************************************************
+		public Key transform(BoardSymmetry symmetry) {
+			return new Key(size, symmetry.transformRow(startRow, startCol,
+					size), symmetry.transformCol(startRow, startCol, size),
+					strategy);
+		}
+
+		// ****************************************************
+		// Method: toCanonical
+		//
+		// Purpose: Returns the key with its start square
+		// moved to its canonical image.
+		// ****************************************************
+		public Key toCanonical() {
+			return transform(BoardSymmetry.toCanonical(size, startRow,
+					startCol));
+		}
+
+		// ****************************************************
+		// Method: bySymmetry
+		//
+		// Purpose: Returns the key of the tour derived by
+		// symmetry from the canonical start square's
+		// tour, rather than solved from this start.
+		// ****************************************************
+		public Key bySymmetry() {
+			if (isBySymmetry() == true) {
+				return this;
+			}
+
+			return new Key(size, startRow, startCol, strategy + BY_SYMMETRY);
+		}
+
+		// ****************************************************
+		// Method: toSolved
+		//
+		// Purpose: Returns the key of the tour the solver
+		// plays from this start, without BY_SYMMETRY.
+		// ****************************************************
+		public Key toSolved() {
+			if (isBySymmetry() == false) {
+				return this;
+			}
+
+			return new Key(size, startRow, startCol, getSolver());
+		}
+
+		// ****************************************************
+		// Method: isBySymmetry
+		//
+		// Purpose: Returns true if the tour is derived by
+		// symmetry instead of solved from its start.
+		// ****************************************************
+		public boolean isBySymmetry() {
+			return strategy.endsWith(BY_SYMMETRY);
+		}
+
+		// ****************************************************
+		// Method: getSolver
+		//
+		// Purpose: Returns the strategy without BY_SYMMETRY.
+		// ****************************************************
+		private String getSolver() {
+			if (isBySymmetry() == true) {
+				return strategy.substring(0, strategy.length()
+						- BY_SYMMETRY.length());
+			}
+
+			return strategy;
+		}
+
+		// ****************************************************
+		// Method: getSize
+		//
+		// Purpose: Returns the dimension of the board.
+		// ****************************************************
+		public int getSize() {
+			return size;
+		}
+
+		// ****************************************************
+		// Method: getStartRow
+		//
+		// Purpose: Returns the row the tour starts on.
+		// ****************************************************
+		public int getStartRow() {
+			return startRow;
+		}
+
+		// ****************************************************
+		// Method: getStartCol
+		//
+		// Purpose: Returns the column the tour starts on.
+		// ****************************************************
+		public int getStartCol() {
+			return startCol;
+		}
+
+		// ****************************************************
+		// Method: getStrategy
+		//
+		// Purpose: Returns the tie breaker name or CLOSED,
+		// followed by BY_SYMMETRY for a derived tour.
+		// ****************************************************
+		public String getStrategy() {
+			return strategy;
+		}
+
+		// ****************************************************
+		// Method: isClosed
+		//
+		// Purpose: Returns true if the tour comes from
+		// Tour.solveClosed, or is derived from one.
+		// ****************************************************
+		public boolean isClosed() {
+			return getSolver().equals(CLOSED);
+		}
+
+		// ****************************************************
+		// Method: getTieBreaker
+		//
+		// Purpose: Returns the tie breaker of a greedy tour,
+		// or of the tour a derived one came from.
+		// ****************************************************
+		public TieBreaker getTieBreaker() {
+			return TieBreaker.valueOf(getSolver());
+		}
+
+		// ****************************************************
+		// Method: getFileName
+		//
+		// Purpose: Returns the name the tour is stored under
+		// on disk.
+		// ****************************************************
+		public String getFileName() {
+			return "tour-" + size + "-" + startRow + "-" + startCol + "-"
+					+ strategy + ".ktr";
+		}
+
+		// ****************************************************
+		// Method: equals
+		//
+		// Purpose: Returns true if both keys hold the same
+		// settings.
+		// ****************************************************
+		@Override
+		public boolean equals(Object other) {
+			if (other instanceof Key == false) {
+				return false;
+			}
+
+			Key key = (Key) other;
+
+			return size == key.size && startRow == key.startRow
+					&& startCol == key.startCol && strategy.equals(key.strategy);
+		}
+
+		// ****************************************************
+		// Method: hashCode
+		//
+		// Purpose: Returns a hash of the settings.
+		// ****************************************************
+		@Override
+		public int hashCode() {
+			return ((size * 31 + startRow) * 31 + startCol) * 31
+					+ strategy.hashCode();
+		}
+
+		// ****************************************************
+		// Method: toString
+		//
+		// Purpose: Returns the settings as text.
+		// ****************************************************
+		@Override
+		public String toString() {
+			return size + " " + startRow + " " + startCol + " " + strategy;
+		}
+	}
+}
@@ -0,0 +1,238 @@
+//****************************************************
+//File: SweepResult
+//
+//Purpose: Outcome of a tour from every start square
+//		   of a board. Each start square has its own
+//		   slot that is written by exactly one worker,
+//		   and the totals are kept in LongAdders, so
+//		   workers never wait on each other.
+//
+//		   Start squares whose outcome was derived by
+//		   symmetry rather than played are counted
+//		   apart, since the tour rotated or reflected
+//		   onto them need not be the one Tour.solve
+//		   plays from there. Only played tours count
+//		   towards getMoveCount, isComplete and the
+//		   totals.
+//****************************************************
+
+package thesecretsquad.Chess.KnightsTour;
+
+import java.util.concurrent.atomic.LongAdder;
+
+public class SweepResult {
+	private final int boardSize; // Dimension of the board
+	private final int[] moveCounts; // Number of squares visited from each
+									// start square played, or 0
+	private final int[] derivedMoveCounts; // Length of the tour derived for
+											// each start square not played,
+											// or 0
+	private final long[] solveNanos; // Time taken by the tour from each start
+										// square
+	// Running totals, updated by every worker
+	private final LongAdder playedTours = new LongAdder(); // Tours played
+	private final LongAdder completeTours = new LongAdder(); // Full tours
+	private final LongAdder derivedTours = new LongAdder(); // Tours derived
+	private final LongAdder derivedComplete = new LongAdder(); // Full tours
+																// derived
+	private final LongAdder totalMoves = new LongAdder(); // Squares visited
+	private final LongAdder totalNanos = new LongAdder(); // Time taken
+	private long wallClockNanos; // Time taken by the whole sweep
+
+	// ****************************************************
+	// Method: SweepResult
+	//
+	// Purpose: Constructor. Creates a slot for every start
+	// square of the board.
+	// ****************************************************
+	SweepResult(int boardSize) {
+		this.boardSize = boardSize;
+		moveCounts = new int[boardSize * boardSize];
+		derivedMoveCounts = new int[boardSize * boardSize];
+		solveNanos = new long[boardSize * boardSize];
+	}
+
+	// ****************************************************
+	// Method: record
+	//
+	// Purpose: Stores the outcome of the tour from one
+	// start square.
+	// ****************************************************
+	void record(int startSquare, int moveCount, long nanos) {
+		moveCounts[startSquare] = moveCount;
+		solveNanos[startSquare] = nanos;
+		playedTours.increment();
+
+		if (moveCount == moveCounts.length) {
+			completeTours.increment();
+		}
+
+		totalMoves.add(moveCount);
+		totalNanos.add(nanos);
+	}
+
+	// ****************************************************
+	// Method: recordDerived
+	//
+	// Purpose: Stores the length of the tour derived by
+	// symmetry for a start square not played.
+	// ****************************************************
+	void recordDerived(int startSquare, int moveCount) {
+		derivedMoveCounts[startSquare] = moveCount;
+		derivedTours.increment();
+
+		if (moveCount == derivedMoveCounts.length) {
+			derivedComplete.increment();
+		}
+	}
+
+	// ****************************************************
+	// Method: setWallClockNanos
+	//
+	// Purpose: Sets the time taken by the whole sweep.
+	// ****************************************************
+	void setWallClockNanos(long wallClockNanos) {
+		this.wallClockNanos = wallClockNanos;
+	}
+
+	// ****************************************************
+	// Method: getBoardSize
+	//
+	// Purpose: Returns the dimension of the board.
+	// ****************************************************
+	public int getBoardSize() {
+		return boardSize;
+	}
+
+	// ****************************************************
+	// Method: getMoveCount
+	//
+	// Purpose: Returns the number of squares visited by
+	// the tour from a start square, or 0 if it was
+	// not played.
+	// ****************************************************
+	public int getMoveCount(int startRow, int startCol) {
+		return moveCounts[startRow * boardSize + startCol];
+	}
+
+	// ****************************************************
+	// Method: isPlayed
+	//
+	// Purpose: Returns true if the tour from a start
+	// square was played rather than derived.
+	// ****************************************************
+	public boolean isPlayed(int startRow, int startCol) {
+		return getMoveCount(startRow, startCol) != 0;
+	}
+
+	// ****************************************************
+	// Method: getDerivedMoveCount
+	//
+	// Purpose: Returns the length of the tour derived by
+	// symmetry for a start square, or 0 if it was
+	// played.
+	// ****************************************************
+	public int getDerivedMoveCount(int startRow, int startCol) {
+		return derivedMoveCounts[startRow * boardSize + startCol];
+	}
+
+	// ****************************************************
+	// Method: isComplete
+	//
+	// Purpose: Returns true if the tour played from a
+	// start square visited every square.
+	// ****************************************************
+	public boolean isComplete(int startRow, int startCol) {
+		return getMoveCount(startRow, startCol) == moveCounts.length;
+	}
+
+	// ****************************************************
+	// Method: getSolveNanos
+	//
+	// Purpose: Returns the time taken by the tour from a
+	// start square, in nanoseconds.
+	// ****************************************************
+	public long getSolveNanos(int startRow, int startCol) {
+		return solveNanos[startRow * boardSize + startCol];
+	}
+
+	// ****************************************************
+	// Method: getCompleteCount
+	//
+	// Purpose: Returns the number of start squares whose
+	// played tour visited every square.
+	// ****************************************************
+	public long getCompleteCount() {
+		return completeTours.sum();
+	}
+
+	// ****************************************************
+	// Method: getPlayedCount
+	//
+	// Purpose: Returns the number of start squares whose
+	// tour was played.
+	// ****************************************************
+	public long getPlayedCount() {
+		return playedTours.sum();
+	}
+
+	// ****************************************************
+	// Method: getDerivedCount
+	//
+	// Purpose: Returns the number of start squares whose
+	// tour was derived by symmetry.
+	// ****************************************************
+	public long getDerivedCount() {
+		return derivedTours.sum();
+	}
+
+	// ****************************************************
+	// Method: getDerivedCompleteCount
+	//
+	// Purpose: Returns the number of start squares whose
+	// derived tour visits every square.
+	// ****************************************************
+	public long getDerivedCompleteCount() {
+		return derivedComplete.sum();
+	}
+
+	// ****************************************************
+	// Method: getIncompleteCount
+	//
+	// Purpose: Returns the number of start squares whose
+	// played tour got stuck.
+	// ****************************************************
+	public long getIncompleteCount() {
+		return playedTours.sum() - completeTours.sum();
+	}
+
+	// ****************************************************
+	// Method: getTotalMoves
+	//
+	// Purpose: Returns the number of squares visited by
+	// all of the tours played.
+	// ****************************************************
+	public long getTotalMoves() {
+		return totalMoves.sum();
+	}
+
+	// ****************************************************
+	// Method: getTotalSolveNanos
+	//
+	// Purpose: Returns the time taken by all of the tours
+	// played added together, in nanoseconds.
+	// ****************************************************
+	public long getTotalSolveNanos() {
+		return totalNanos.sum();
+	}
+
+	// ****************************************************
+	// Method: getWallClockNanos
+	//
+	// Purpose: Returns the time taken by the whole sweep,
+	// in nanoseconds.
+	// ****************************************************
+	public long getWallClockNanos() {
+		return wallClockNanos;
+	}
+}
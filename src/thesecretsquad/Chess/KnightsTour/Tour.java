@@ -9,15 +9,36 @@
 
 package thesecretsquad.Chess.KnightsTour;
 
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+import jdk.jfr.FlightRecorder;
+
+import thesecretsquad.Chess.BacktrackingSearch;
+import thesecretsquad.Chess.BitboardEngine;
 import thesecretsquad.Chess.ChessBoard;
+import thesecretsquad.Chess.ClosedTour;
+import thesecretsquad.Chess.CompactChessBoard;
 import thesecretsquad.Chess.Knight;
+import thesecretsquad.Chess.SolveProgress;
+import thesecretsquad.Chess.SolverMetrics;
 import thesecretsquad.Chess.Square;
+import thesecretsquad.Chess.TieBreaker;
 
 public class Tour {
 	private ChessBoard chessBoard; // Chess board on which the knight moves
 	private Knight knightPiece; // Knight that is moved
 	private boolean foundMove = false; // Flag: true if Knight has a move
 										// available, otherwise false
+	private int startRow; // Row the tour starts on
+	private int startCol; // Column the tour starts on
+	private ClosedTour closedTour; // Closed tour found by solveClosed, or null
+	private IntConsumer moveListener; // Told the number of every move made,
+										// or null
+	private int[] bitboardPath; // Squares of a tour found by the bitboard
+								// engine, kept for the next solve
+	private int[] tieSizes; // Moves chosen from each size of tie by the
+							// last solve with metrics on, kept for the next
 
 	// ****************************************************
 	// Method: Tour
@@ -29,6 +50,8 @@ public class Tour {
 		knightPiece = knight;
 		this.chessBoard = chessBoard;
 		this.chessBoard.addKnight(knightPiece);
+		startRow = knight.getCurrentRow();
+		startCol = knight.getCurrentCol();
 	}
 
 	// ****************************************************
@@ -36,11 +59,12 @@ public class Tour {
 	//
 	// Purpose: Constructor. Empty parameters.
 	// Creates knight, and passes knight to
-	// the chess board.
+	// the chess board. Tours create their own
+	// boards as compact boards.
 	// ****************************************************
 	public Tour() {
 		knightPiece = new Knight();
-		chessBoard = new ChessBoard(knightPiece);
+		chessBoard = new CompactChessBoard(knightPiece);
 	}
 
 	// ****************************************************
@@ -52,7 +76,7 @@ public class Tour {
 	// ****************************************************
 	public Tour(int dimension) {
 		knightPiece = new Knight();
-		chessBoard = new ChessBoard(knightPiece, dimension);
+		chessBoard = new CompactChessBoard(knightPiece, dimension);
 	}
 
 	// ****************************************************
@@ -64,7 +88,9 @@ public class Tour {
 	// ****************************************************
 	public Tour(int startRow, int startCol) {
 		knightPiece = new Knight(startRow, startCol);
-		chessBoard = new ChessBoard(knightPiece);
+		chessBoard = new CompactChessBoard(knightPiece);
+		this.startRow = startRow;
+		this.startCol = startCol;
 	}
 
 	// ****************************************************
@@ -76,18 +102,39 @@ public class Tour {
 	// ****************************************************
 	public Tour(int startRow, int startCol, int dimension) {
 		knightPiece = new Knight(startRow, startCol);
-		chessBoard = new ChessBoard(knightPiece, dimension);
+		chessBoard = new CompactChessBoard(knightPiece, dimension);
+		this.startRow = startRow;
+		this.startCol = startCol;
 	}
 
 	// ****************************************************
 	// Method: resetTour
 	//
-	// Purpose: Clears the knight and chess board members
-	// by pointing them to null.
+	// Purpose: Returns the board and knight to their
+	// state before the first move, with the
+	// knight back on the start square, so the
+	// tour can be played again without
+	// allocating. The tie breaker and move
+	// listener are kept.
 	// ****************************************************
 	public void resetTour() {
-		knightPiece = null;
-		chessBoard = null;
+		resetTour(startRow, startCol);
+	}
+
+	// ****************************************************
+	// Method: resetTour
+	//
+	// Purpose: Returns the board and knight to their
+	// state before the first move, with the
+	// knight on a new start square.
+	// ****************************************************
+	public void resetTour(int startRow, int startCol) {
+		chessBoard.resetBoard();
+		knightPiece.resetKnight(startRow, startCol);
+		this.startRow = startRow;
+		this.startCol = startCol;
+		foundMove = false;
+		closedTour = null;
 	}
 
 	// ****************************************************
@@ -101,6 +148,46 @@ public class Tour {
 		knightPiece.setCurrentCol(startCol);
 		knightPiece.setPreviousRow(startRow);
 		knightPiece.setPreviousCol(startCol);
+		this.startRow = startRow;
+		this.startCol = startCol;
+	}
+
+	// ****************************************************
+	// Method: setTieBreaker
+	//
+	// Purpose: Sets the rule the knight uses to choose
+	// between moves with the same accessibility.
+	// FURTHEST_FROM_CENTER lets large boards
+	// finish in a single greedy pass far more
+	// often than the original MOVE_ORDER rule.
+	// ****************************************************
+	public void setTieBreaker(TieBreaker tieBreaker) {
+		knightPiece.setTieBreaker(tieBreaker);
+	}
+
+	// ****************************************************
+	// Method: getTieBreaker
+	//
+	// Purpose: Returns the rule the knight uses to choose
+	// between moves with the same accessibility.
+	// ****************************************************
+	public TieBreaker getTieBreaker() {
+		return knightPiece.getTieBreaker();
+	}
+
+	// ****************************************************
+	// Method: setMoveListener
+	//
+	// Purpose: Sets a listener that is passed the knight
+	// move number of every move as it is made,
+	// for example a TourWriter streaming the tour
+	// to a file. Moves found by backtracking are
+	// passed on once the whole tour is found,
+	// since until then they may be undone. Null
+	// removes the listener.
+	// ****************************************************
+	public void setMoveListener(IntConsumer moveListener) {
+		this.moveListener = moveListener;
 	}
 
 	// ****************************************************
@@ -143,6 +230,463 @@ public class Tour {
 		return foundMove;
 	}
 
+	// ****************************************************
+	// Method: isComplete
+	//
+	// Purpose: Returns true if the knight has visited
+	// every square on the board.
+	// ****************************************************
+	public boolean isComplete() {
+		int boardSize = chessBoard.getBoardSize();
+
+		return knightPiece.getMoveCounter() == boardSize * boardSize;
+	}
+
+	// ****************************************************
+	// Method: solve
+	//
+	// Purpose: Plays the knight's tour game without any
+	// output. Returns true if the tour visited
+	// every square. Boards of up to 8 x 8 are
+	// solved by the bitboard engine, which makes
+	// the same moves as move() would.
+	// ****************************************************
+	public boolean solve() {
+		TourSolveEvent event = beginSolveEvent();
+		String strategy = SolveProgress.STRATEGY_GREEDY;
+		boolean complete;
+
+		if (SolverMetrics.isEnabled() == false) {
+			complete = solveGreedy(null);
+		} else {
+			complete = solveWithMetrics();
+		}
+
+		if (chessBoard.getBoardSize() <= BitboardEngine.MAX_BOARD_SIZE) {
+			strategy = SolveProgress.STRATEGY_BITBOARD;
+		}
+
+		commitSolveEvent(event, strategy, complete, 0, 0);
+
+		return complete;
+	}
+
+	// ****************************************************
+	// Method: solveWithMetrics
+	//
+	// Purpose: Solves as solve() does, timing the solve
+	// and counting its tie sizes, then adds them
+	// to the solver metrics once at the end.
+	// ****************************************************
+	private boolean solveWithMetrics() {
+		SolverMetrics metrics;
+		int boardSize = chessBoard.getBoardSize(), startMoves;
+		long startTime, movesMade;
+		boolean complete;
+
+		if (tieSizes == null) {
+			tieSizes = new int[Knight.NUM_ALLOWED_MOVES + 1];
+		} else {
+			Arrays.fill(tieSizes, 0);
+		}
+
+		startMoves = knightPiece.getMoveCounter();
+		startTime = System.nanoTime();
+
+		complete = solveGreedy(tieSizes);
+
+		movesMade = knightPiece.getMoveCounter() - startMoves;
+		metrics = SolverMetrics.getInstance();
+		metrics.recordSolve(boardSize, movesMade, complete, System.nanoTime()
+				- startTime);
+		metrics.recordTieSizes(tieSizes);
+		// The greedy rule never backs up, so it visits one square per move
+		// and ends in a dead end unless the tour is complete
+		metrics.recordSearch(movesMade, 0, complete == true ? 0 : 1);
+
+		return complete;
+	}
+
+	// ****************************************************
+	// Method: solveGreedy
+	//
+	// Purpose: Plays the rest of the tour by the greedy
+	// rule, counting the size of every tie a
+	// move is chosen from into tieSizes unless
+	// it is null. Progress is kept for the flight
+	// recorder if a recording wants it.
+	// ****************************************************
+	private boolean solveGreedy(int[] tieSizes) {
+		SolveProgress progress;
+
+		if (chessBoard.getBoardSize() <= BitboardEngine.MAX_BOARD_SIZE) {
+			return solveWithBitboard(tieSizes);
+		}
+
+		knightPiece.setTieSizes(tieSizes);
+		progress = SolveProgress.start(SolveProgress.STRATEGY_GREEDY,
+				chessBoard.getBoardSize());
+
+		if (progress != null) {
+			progress.update(knightPiece.getMoveCounter(),
+					knightPiece.getMoveCounter());
+		}
+
+		try {
+			do {
+				move();
+
+				if (progress != null
+						&& (knightPiece.getMoveCounter() & SolveProgress.UPDATE_MASK) == 0) {
+					progress.update(knightPiece.getMoveCounter(),
+							knightPiece.getMoveCounter());
+				}
+			} while (foundMove == true);
+		} finally {
+			knightPiece.setTieSizes(null);
+
+			if (progress != null) {
+				progress.finish();
+			}
+		}
+
+		return isComplete();
+	}
+
+	// ****************************************************
+	// Method: beginSolveEvent
+	//
+	// Purpose: Starts timing a solve for the flight
+	// recorder, or returns null if it has never
+	// been started. The first event object made
+	// starts up parts of the recorder, so none
+	// is made without it.
+	// ****************************************************
+	private static TourSolveEvent beginSolveEvent() {
+		TourSolveEvent event;
+
+		if (FlightRecorder.isInitialized() == false) {
+			return null;
+		}
+
+		event = new TourSolveEvent();
+		event.begin();
+
+		return event;
+	}
+
+	// ****************************************************
+	// Method: commitSolveEvent
+	//
+	// Purpose: Emits the flight recorder event for a
+	// finished solve, if a recording wants it.
+	// ****************************************************
+	private void commitSolveEvent(TourSolveEvent event, String strategy,
+			boolean complete, long nodes, long backtracks) {
+		if (event != null && event.shouldCommit() == true) {
+			event.strategy = strategy;
+			event.tieBreaker = knightPiece.getTieBreaker().name();
+			event.boardSize = chessBoard.getBoardSize();
+			event.startRow = startRow;
+			event.startCol = startCol;
+			event.complete = complete;
+			event.squaresVisited = knightPiece.getMoveCounter();
+			event.nodes = nodes;
+			event.backtracks = backtracks;
+			event.commit();
+		}
+	}
+
+	// ****************************************************
+	// Method: solveWithBitboard
+	//
+	// Purpose: Finds the rest of the tour with the
+	// bitboard engine, then copies it onto the
+	// board: every square gets the move number
+	// and accessibility that move() would have
+	// left on it, and the knight and move
+	// listener see every move. Tie sizes are
+	// counted into tieSizes unless it is null.
+	// ****************************************************
+	private boolean solveWithBitboard(int[] tieSizes) {
+		int boardSize = chessBoard.getBoardSize(), numSquares = boardSize
+				* boardSize, length, square, moveNum;
+		BitboardEngine engine = BitboardEngine.forSize(boardSize);
+		long visited = 0;
+
+		if (bitboardPath == null || bitboardPath.length < numSquares) {
+			bitboardPath = new int[numSquares];
+		}
+
+		for (square = 0; square < numSquares; square++) {
+			if (chessBoard.isSquareVisited(square) == true) {
+				visited |= 1L << square;
+			}
+		}
+
+		length = engine.solve(knightPiece.getCurrentSquare(chessBoard),
+				visited, knightPiece.getTieBreaker(), bitboardPath);
+
+		for (int step = 0; step < length; step++) {
+			square = bitboardPath[step];
+
+			// A square's accessibility stops changing once it is visited
+			chessBoard.setSquareAccessibility(square / boardSize, square
+					% boardSize, engine.getAccessibility(square, visited));
+			chessBoard.markBoardSquare(square / boardSize, square % boardSize,
+					knightPiece.getMoveCounter());
+			visited |= 1L << square;
+
+			if (step + 1 < length) {
+				if (tieSizes != null) {
+					countTie(engine, square, bitboardPath[step + 1], visited,
+							tieSizes);
+				}
+
+				moveNum = engine.getMoveNumber(square, bitboardPath[step + 1]);
+				knightPiece.move(moveNum);
+
+				if (moveListener != null) {
+					moveListener.accept(moveNum);
+				}
+			}
+		}
+
+		for (square = 0; square < numSquares; square++) {
+			if ((visited & (1L << square)) == 0) {
+				chessBoard.setSquareAccessibility(square / boardSize, square
+						% boardSize, engine.getAccessibility(square, visited));
+			}
+		}
+
+		foundMove = false;
+
+		return isComplete();
+	}
+
+	// ****************************************************
+	// Method: countTie
+	//
+	// Purpose: Counts the size of the tie a bitboard move
+	// was chosen from, as Knight counts its own:
+	// the unvisited squares a knight move away
+	// that are as accessible as the chosen one.
+	// ****************************************************
+	private void countTie(BitboardEngine engine, int square, int nextSquare,
+			long visited, int[] tieSizes) {
+		long moves = engine.getAttacks(square) & ~visited;
+		int accessibility = engine.getAccessibility(nextSquare, visited), size = 0;
+
+		while (moves != 0) {
+			if (engine.getAccessibility(Long.numberOfTrailingZeros(moves),
+					visited) == accessibility) {
+				size++;
+			}
+
+			moves &= moves - 1;
+		}
+
+		tieSizes[size]++;
+	}
+
+	// ****************************************************
+	// Method: solveWithBacktracking
+	//
+	// Purpose: Searches for a complete tour from the
+	// start position, undoing moves when the
+	// knight gets stuck. Gives up after the
+	// number of squares in nodeBudget has been
+	// visited. Returns true if a complete tour
+	// was found; otherwise the board is left
+	// unplayed. Must be called before any moves
+	// are made.
+	// ****************************************************
+	public boolean solveWithBacktracking(long nodeBudget) {
+		BacktrackingSearch search = new BacktrackingSearch(chessBoard,
+				knightPiece, nodeBudget);
+		TourSolveEvent event = beginSolveEvent();
+		int startRow = knightPiece.getCurrentRow(), startCol = knightPiece
+				.getCurrentCol(), boardSize = chessBoard.getBoardSize();
+		long startTime = System.nanoTime();
+		boolean found;
+
+		foundMove = false;
+		found = search.search();
+		commitSolveEvent(event, SolveProgress.STRATEGY_BACKTRACKING, found,
+				search.getNodesExpanded(), search.getBacktracks());
+
+		if (SolverMetrics.isEnabled() == true) {
+			SolverMetrics.getInstance().recordSolve(boardSize,
+					knightPiece.getMoveCounter() - 1, found,
+					System.nanoTime() - startTime);
+		}
+
+		if (found == false) {
+			return false;
+		}
+
+		if (moveListener != null) {
+			reportMoves(startRow, startCol);
+		}
+
+		return true;
+	}
+
+	// ****************************************************
+	// Method: reportMoves
+	//
+	// Purpose: Passes every move of a finished tour to the
+	// move listener by following the move numbers
+	// marked on the board from the start square.
+	// ****************************************************
+	private void reportMoves(int startRow, int startCol) {
+		int boardSize = chessBoard.getBoardSize(), row = startRow, col = startCol, testRow, testCol;
+
+		for (int moveCounter = 2; moveCounter <= knightPiece.getMoveCounter(); moveCounter++) {
+			for (int moveNum = 0; moveNum < Knight.NUM_ALLOWED_MOVES; moveNum++) {
+				testRow = row + knightPiece.getVerticalMoveValue(moveNum);
+				testCol = col + knightPiece.getHorizontalMoveValue(moveNum);
+
+				if (testRow >= 0 && testRow < boardSize && testCol >= 0
+						&& testCol < boardSize
+						&& chessBoard.getSquareMoveNumber(testRow, testCol) == moveCounter) {
+					moveListener.accept(moveNum);
+					row = testRow;
+					col = testCol;
+					break;
+				}
+			}
+		}
+	}
+
+	// ****************************************************
+	// Method: solveClosed
+	//
+	// Purpose: Builds a closed tour through the start
+	// position and plays it on the board. Returns
+	// true if one was found; otherwise the board
+	// is left unplayed. Boards with an odd number
+	// of squares, or smaller than 6 x 6, have no
+	// closed tour. Must be called before any
+	// moves are made.
+	// ****************************************************
+	public boolean solveClosed() {
+		TourSolveEvent event = beginSolveEvent();
+		int boardSize = chessBoard.getBoardSize();
+		int[] cycle;
+		long startTime = System.nanoTime();
+
+		foundMove = false;
+		closedTour = new ClosedTour(boardSize);
+
+		if (closedTour.build(knightPiece.getCurrentRow(),
+				knightPiece.getCurrentCol()) == false) {
+			recordClosedSolve(boardSize, false, startTime);
+			commitSolveEvent(event, SolveProgress.STRATEGY_CLOSED, false, 0, 0);
+			return false;
+		}
+
+		cycle = closedTour.getCycle();
+
+		for (int step = 0; step < cycle.length; step++) {
+			chessBoard.markBoardSquare(knightPiece.getCurrentRow(),
+					knightPiece.getCurrentCol(), knightPiece.getMoveCounter());
+			chessBoard.lowerAccessibility();
+
+			if (step + 1 < cycle.length) {
+				int moveNum = findMoveNumber(cycle[step], cycle[step + 1],
+						boardSize);
+
+				knightPiece.move(moveNum);
+
+				if (moveListener != null) {
+					moveListener.accept(moveNum);
+				}
+			}
+		}
+
+		recordClosedSolve(boardSize, true, startTime);
+		commitSolveEvent(event, SolveProgress.STRATEGY_CLOSED, true, 0, 0);
+
+		return true;
+	}
+
+	// ****************************************************
+	// Method: recordClosedSolve
+	//
+	// Purpose: Adds a closed tour solve to the solver
+	// metrics, if they are enabled.
+	// ****************************************************
+	private void recordClosedSolve(int boardSize, boolean found, long startTime) {
+		if (SolverMetrics.isEnabled() == true) {
+			SolverMetrics.getInstance().recordSolve(boardSize,
+					found == true ? boardSize * boardSize - 1 : 0, found,
+					System.nanoTime() - startTime);
+		}
+	}
+
+	// ****************************************************
+	// Method: findMoveNumber
+	//
+	// Purpose: Returns the knight move number that takes
+	// the knight between two squares.
+	// ****************************************************
+	private int findMoveNumber(int from, int to, int boardSize) {
+		int rowChange = to / boardSize - from / boardSize, colChange = to
+				% boardSize - from % boardSize;
+
+		for (int moveNum = 0; moveNum < Knight.NUM_ALLOWED_MOVES; moveNum++) {
+			if (knightPiece.getVerticalMoveValue(moveNum) == rowChange
+					&& knightPiece.getHorizontalMoveValue(moveNum) == colChange) {
+				return moveNum;
+			}
+		}
+
+		return -1;
+	}
+
+	// ****************************************************
+	// Method: getClosedTour
+	//
+	// Purpose: Returns the closed tour found by the last
+	// call to solveClosed, or null. Its cycle can
+	// be rotated to start from any square.
+	// ****************************************************
+	public ClosedTour getClosedTour() {
+		return closedTour;
+	}
+
+	// ****************************************************
+	// Method: isClosed
+	//
+	// Purpose: Returns true if the knight has visited
+	// every square and stands a knight move away
+	// from the square it started on, however the
+	// tour was played.
+	// ****************************************************
+	public boolean isClosed() {
+		int row, col;
+
+		if (isComplete() == false) {
+			return false;
+		}
+
+		for (int moveNum = 0; moveNum < Knight.NUM_ALLOWED_MOVES; moveNum++) {
+			row = knightPiece.getCurrentRow()
+					+ knightPiece.getVerticalMoveValue(moveNum);
+			col = knightPiece.getCurrentCol()
+					+ knightPiece.getHorizontalMoveValue(moveNum);
+
+			if (row >= 0 && row < chessBoard.getBoardSize() && col >= 0
+					&& col < chessBoard.getBoardSize()
+					&& chessBoard.getSquareMoveNumber(row, col) == 1) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
 	// ****************************************************
 	// Method: playGame
 	//
@@ -150,10 +694,7 @@ public class Tour {
 	// the board to the console.
 	// ****************************************************
 	public void playGame() {
-		do {
-			move();
-
-		} while (foundMove == true);
+		solve();
 
 		System.out.println("Game Board");
 		chessBoard.showGameBoard();
@@ -168,39 +709,34 @@ public class Tour {
 	// Method: move
 	//
 	// Purpose: Moves the knight based on the underlying
-	// chess board heuristics.
+	// chess board heuristics. Marking the square,
+	// lowering the accessibility of the
+	// surrounding squares and choosing the best
+	// move are done in one pass without
+	// allocating.
 	// ****************************************************
 	public void move() {
-		int numPossibleMoves, bestMove;
-		int[] possibleMoves;
+		int bestMove;
 
 		foundMove = false;
 		// Mark visited status and move number on square at current position
 		chessBoard.markBoardSquare(knightPiece.getCurrentRow(),
 				knightPiece.getCurrentCol(), knightPiece.getMoveCounter());
 
-		// Lower accessibility values of surrounding squares
-		chessBoard.lowerAccessibility();
-
-		// Find the number of possible moves from the current position
-		numPossibleMoves = knightPiece.findNumOfPossibleMoves(chessBoard);
+		// Lower accessibility values of surrounding squares and find the best
+		// move based on the accessibility heuristic
+		bestMove = knightPiece.lowerAccessibilityAndFindBestMove(chessBoard);
 
-		// If the number of possible moves is greater than zero, there there is
-		// at least one possible move
-		if (numPossibleMoves > 0) {
+		// If a best move was found, there is at least one possible move
+		if (bestMove >= 0) {
 			foundMove = true;
 
-			// Find the possible moves from the current position and return into
-			// an array
-			possibleMoves = knightPiece.findPossibleMoves(chessBoard,
-					numPossibleMoves);
-
-			// Using the array of possible moves, find the best move based on
-			// the accessibility heuristic
-			bestMove = knightPiece.findBestMove(chessBoard, possibleMoves);
-
 			// Move the knight to the best move
 			knightPiece.move(bestMove);
+
+			if (moveListener != null) {
+				moveListener.accept(bestMove);
+			}
 		}
 	}
 }
@@ -0,0 +1,390 @@
+//****************************************************
+//File: TourCache
+//
+//Purpose: Keeps solved tours so a tour asked for
+//		   again is not solved again. Every solver is
+//		   deterministic, so a tour is known by its
+//		   SolvedTour.Key alone.
+//
+//		   Recent tours are held in memory, least
+//		   recently used first out once their total
+//		   size passes the byte limit. If a directory
+//		   is given, every tour is also written there
+//		   in the binary TourWriter format, one file
+//		   per key, and tours not in memory are read
+//		   back from it, so the cache outlives the
+//		   program. Files are written under a
+//		   temporary name and renamed, so a crash
+//		   never leaves half a tour behind.
+//
+//		   A tour found in the cache is returned
+//		   without creating a board.
+//
+//		   A key with the BY_SYMMETRY strategy is
+//		   served by rotating or reflecting the tour
+//		   from its canonical start square, so only
+//		   canonical tours are solved and stored. Such
+//		   a tour is legal and as long as the
+//		   canonical one, but is not always the tour
+//		   Tour.solve would play from that start, since
+//		   the tie breakers are not symmetric, so it is
+//		   never returned for the solver's own key.
+//****************************************************
+
+package thesecretsquad.Chess.KnightsTour;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import thesecretsquad.Chess.BoardSymmetry;
+import thesecretsquad.Chess.Knight;
+
+public class TourCache {
+	public static final long DEFAULT_MAX_BYTES = 64L << 20; // Default memory
+															// limit
+
+	private final long maxBytes; // Most bytes of tours held in memory
+	private final TourPool tourPool = new TourPool(); // Boards reused by
+														// the tours solved
+	private final Path directory; // Directory tours are stored in, or null
+	// Tours in memory, least recently used first
+	private final LinkedHashMap<SolvedTour.Key, SolvedTour> tours = new LinkedHashMap<SolvedTour.Key, SolvedTour>(
+			16, 0.75f, true);
+	private long bytesInMemory = 0; // Total size of the tours in memory
+	private long memoryHits = 0; // Tours found in memory
+	private long diskHits = 0; // Tours read back from the directory
+	private long misses = 0; // Tours that had to be solved
+
+	// ****************************************************
+	// Method: TourCache
+	//
+	// Purpose: Constructor. Creates a cache that holds up
+	// to maxBytes of tours in memory and, if
+	// directory is not null, keeps every tour in
+	// that directory, creating it if needed.
+	// ****************************************************
+	public TourCache(long maxBytes, Path directory) throws IOException {
+		this.maxBytes = maxBytes;
+		this.directory = directory;
+
+		if (directory != null) {
+			Files.createDirectories(directory);
+		}
+	}
+
+	// ****************************************************
+	// Method: solve
+	//
+	// Purpose: Returns the tour for a key, solving it
+	// only if it is in neither memory nor the
+	// directory. Two threads asking for the same
+	// new tour may both solve it. A BY_SYMMETRY
+	// key is served from the canonical start's
+	// tour, which is returned with its own key
+	// when the start is itself canonical.
+	// ****************************************************
+	public SolvedTour solve(SolvedTour.Key key) throws IOException {
+		BoardSymmetry symmetry;
+
+		if (key.isBySymmetry() == true) {
+			symmetry = BoardSymmetry.toCanonical(key.getSize(),
+					key.getStartRow(), key.getStartCol());
+
+			return solveKey(key.toSolved().transform(symmetry)).transform(
+					symmetry.inverse());
+		}
+
+		return solveKey(key);
+	}
+
+	// ****************************************************
+	// Method: solveKey
+	//
+	// Purpose: Returns the tour for a key exactly as
+	// given, solving and storing it if needed.
+	// ****************************************************
+	private SolvedTour solveKey(SolvedTour.Key key) throws IOException {
+		SolvedTour tour = get(key);
+
+		if (tour == null) {
+			tour = solveTour(key);
+			put(tour);
+		}
+
+		return tour;
+	}
+
+	// ****************************************************
+	// Method: get
+	//
+	// Purpose: Returns the tour for a key from memory or
+	// the directory, or null if it has not been
+	// solved.
+	// ****************************************************
+	public SolvedTour get(SolvedTour.Key key) throws IOException {
+		SolvedTour tour;
+
+		synchronized (this) {
+			tour = tours.get(key);
+
+			if (tour != null) {
+				memoryHits++;
+				return tour;
+			}
+		}
+
+		tour = directory == null ? null : readTour(key);
+
+		synchronized (this) {
+			if (tour == null) {
+				misses++;
+			} else {
+				diskHits++;
+				remember(tour);
+			}
+		}
+
+		return tour;
+	}
+
+	// ****************************************************
+	// Method: put
+	//
+	// Purpose: Adds a tour to memory and the directory.
+	// ****************************************************
+	public void put(SolvedTour tour) throws IOException {
+		synchronized (this) {
+			remember(tour);
+		}
+
+		if (directory != null) {
+			writeTour(tour);
+		}
+	}
+
+	// ****************************************************
+	// Method: clearMemory
+	//
+	// Purpose: Drops every tour held in memory. Tours in
+	// the directory are kept.
+	// ****************************************************
+	public synchronized void clearMemory() {
+		tours.clear();
+		bytesInMemory = 0;
+	}
+
+	// ****************************************************
+	// Method: getMemoryHits
+	//
+	// Purpose: Returns the number of tours found in
+	// memory.
+	// ****************************************************
+	public synchronized long getMemoryHits() {
+		return memoryHits;
+	}
+
+	// ****************************************************
+	// Method: getDiskHits
+	//
+	// Purpose: Returns the number of tours read back from
+	// the directory.
+	// ****************************************************
+	public synchronized long getDiskHits() {
+		return diskHits;
+	}
+
+	// ****************************************************
+	// Method: getMisses
+	//
+	// Purpose: Returns the number of tours asked for that
+	// had not been solved.
+	// ****************************************************
+	public synchronized long getMisses() {
+		return misses;
+	}
+
+	// ****************************************************
+	// Method: getBytesInMemory
+	//
+	// Purpose: Returns the total size of the tours held
+	// in memory.
+	// ****************************************************
+	public synchronized long getBytesInMemory() {
+		return bytesInMemory;
+	}
+
+	// ****************************************************
+	// Method: getToursInMemory
+	//
+	// Purpose: Returns the number of tours held in
+	// memory.
+	// ****************************************************
+	public synchronized int getToursInMemory() {
+		return tours.size();
+	}
+
+	// ****************************************************
+	// Method: remember
+	//
+	// Purpose: Adds a tour to memory and drops the least
+	// recently used tours until the total fits.
+	// A tour larger than the limit is not kept.
+	// Must be called holding the lock.
+	// ****************************************************
+	private void remember(SolvedTour tour) {
+		SolvedTour previous;
+		Iterator<Map.Entry<SolvedTour.Key, SolvedTour>> eldest;
+
+		if (tour.getByteSize() > maxBytes) {
+			return;
+		}
+
+		previous = tours.put(tour.getKey(), tour);
+		bytesInMemory += tour.getByteSize();
+
+		if (previous != null) {
+			bytesInMemory -= previous.getByteSize();
+		}
+
+		eldest = tours.entrySet().iterator();
+
+		while (bytesInMemory > maxBytes) {
+			bytesInMemory -= eldest.next().getValue().getByteSize();
+			eldest.remove();
+		}
+	}
+
+	// ****************************************************
+	// Method: solveTour
+	//
+	// Purpose: Solves the tour for a key, collecting its
+	// moves, on a tour from the pool.
+	// ****************************************************
+	private SolvedTour solveTour(SolvedTour.Key key) {
+		Tour tour = tourPool.acquire(key.getStartRow(), key.getStartCol(),
+				key.getSize());
+		MoveBuffer moves = new MoveBuffer(key.getSize() * key.getSize() - 1);
+
+		try {
+			tour.setMoveListener(moves);
+
+			if (key.isClosed() == true) {
+				tour.solveClosed();
+			} else {
+				tour.setTieBreaker(key.getTieBreaker());
+				tour.solve();
+			}
+		} finally {
+			tourPool.release(tour);
+		}
+
+		return new SolvedTour(key, moves.toArray());
+	}
+
+	// ****************************************************
+	// Method: writeTour
+	//
+	// Purpose: Writes a tour to its file in the directory
+	// through a temporary file.
+	// ****************************************************
+	private void writeTour(SolvedTour tour) throws IOException {
+		SolvedTour.Key key = tour.getKey();
+		Path file = directory.resolve(key.getFileName());
+		Path temporary = Files.createTempFile(directory, "tour", ".tmp");
+
+		try {
+			TourWriter writer = new TourWriter(temporary, TourFormat.BINARY,
+					key.getSize(), key.getStartRow(), key.getStartCol());
+
+			try {
+				tour.replay(writer);
+			} finally {
+				writer.close();
+			}
+
+			Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+		} finally {
+			Files.deleteIfExists(temporary);
+		}
+	}
+
+	// ****************************************************
+	// Method: readTour
+	//
+	// Purpose: Reads the tour for a key from the
+	// directory. Returns null if there is no
+	// file, or if the file does not match the
+	// key, in which case it is deleted so the
+	// tour is solved and written again.
+	// ****************************************************
+	private SolvedTour readTour(SolvedTour.Key key) throws IOException {
+		Path file = directory.resolve(key.getFileName());
+		ByteBuffer header = ByteBuffer.allocate(TourWriter.HEADER_SIZE);
+		byte[] moves;
+		long moveCount;
+
+		try {
+			FileChannel channel = FileChannel.open(file,
+					StandardOpenOption.READ);
+
+			try {
+				while (header.hasRemaining() && channel.read(header) >= 0) {
+					// Keep reading
+				}
+
+				header.flip();
+				moveCount = header.remaining() < TourWriter.HEADER_SIZE ? -1
+						: header.getLong(TourWriter.HEADER_SIZE - Long.BYTES);
+
+				if (header.remaining() < TourWriter.HEADER_SIZE
+						|| header.getInt() != TourWriter.MAGIC
+						|| header.getInt() != TourWriter.VERSION
+						|| header.getInt() != key.getSize()
+						|| header.getInt() != key.getStartRow()
+						|| header.getInt() != key.getStartCol()
+						|| moveCount < 0
+						|| moveCount + TourWriter.HEADER_SIZE != channel.size()
+						|| moveCount + 1 > (long) key.getSize() * key.getSize()) {
+					moves = null;
+				} else {
+					ByteBuffer body = ByteBuffer.wrap(new byte[(int) moveCount]);
+
+					while (body.hasRemaining() && channel.read(body) >= 0) {
+						// Keep reading
+					}
+
+					moves = body.array();
+
+					for (byte moveNumber : moves) {
+						if (moveNumber < 0
+								|| moveNumber >= Knight.NUM_ALLOWED_MOVES) {
+							moves = null;
+							break;
+						}
+					}
+				}
+			} finally {
+				channel.close();
+			}
+		} catch (NoSuchFileException noSuchFileException) {
+			return null;
+		}
+
+		if (moves == null) {
+			Files.deleteIfExists(file);
+			return null;
+		}
+
+		return new SolvedTour(key, moves);
+	}
+}
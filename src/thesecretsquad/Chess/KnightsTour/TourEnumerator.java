@@ -0,0 +1,465 @@
+//****************************************************
+//File: TourEnumerator
+//
+//Purpose: Counts every knight's tour from a start
+//		   square of a rectangular board of up to 64
+//		   squares, exactly. Squares are bits of a
+//		   long, numbered row * cols + col. The search
+//		   tree is expanded a few moves deep, and the
+//		   subtrees below are searched in parallel on
+//		   a ForkJoinPool, each worker counting in its
+//		   own variables and adding to shared totals
+//		   every so often.
+//
+//		   Branches are pruned as soon as they can no
+//		   longer finish: an unvisited square can be
+//		   reached from at most as many squares as it
+//		   has unvisited neighbors, plus one if the
+//		   knight is next to it. A square with none
+//		   can never be visited, and a square with one
+//		   can only be the last square of the tour, so
+//		   two of them can not both be covered.
+//****************************************************
+
+package thesecretsquad.Chess.KnightsTour;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import thesecretsquad.Chess.Knight;
+
+public class TourEnumerator {
+	public static final int MAX_SQUARES = 64; // Most squares a board can have
+	private static final int SUBTREES_PER_THREAD = 64; // Subtrees to split
+														// the search into for
+														// each pool thread
+	private static final int REPORT_INTERVAL = 1 << 16; // Nodes between
+														// reports and cancel
+														// checks
+
+	private final int rows; // Rows on the board
+	private final int cols; // Columns on the board
+	private final int numSquares; // Number of squares on the board
+	private final long[] attacks; // Squares a knight attacks from each square
+
+	// ****************************************************
+	// Method: TourEnumerator
+	//
+	// Purpose: Constructor. Builds the attack masks of a
+	// board from the knight's moves.
+	// ****************************************************
+	public TourEnumerator(int rows, int cols) {
+		Knight knight = new Knight();
+		int testRow, testCol;
+
+		if (rows < 1 || cols < 1 || rows * cols > MAX_SQUARES) {
+			throw new IllegalArgumentException("Boards must have 1 to "
+					+ MAX_SQUARES + " squares, not " + rows + " x " + cols);
+		}
+
+		this.rows = rows;
+		this.cols = cols;
+		numSquares = rows * cols;
+		attacks = new long[numSquares];
+
+		for (int square = 0; square < numSquares; square++) {
+			for (int moveNum = 0; moveNum < Knight.NUM_ALLOWED_MOVES; moveNum++) {
+				testRow = square / cols + knight.getVerticalMoveValue(moveNum);
+				testCol = square % cols + knight.getHorizontalMoveValue(moveNum);
+
+				if (testRow >= 0 && testRow < rows && testCol >= 0
+						&& testCol < cols) {
+					attacks[square] |= 1L << (testRow * cols + testCol);
+				}
+			}
+		}
+	}
+
+	// ****************************************************
+	// Method: start
+	//
+	// Purpose: Starts counting tours on the common
+	// ForkJoinPool and returns at once.
+	// ****************************************************
+	public EnumerationProgress start(int startRow, int startCol,
+			boolean closedOnly) {
+		return start(startRow, startCol, closedOnly, ForkJoinPool.commonPool());
+	}
+
+	// ****************************************************
+	// Method: start
+	//
+	// Purpose: Starts counting tours on the given pool
+	// and returns a handle to follow, cancel or
+	// wait for the count. With closedOnly, only
+	// tours that end a knight move from the
+	// start are searched for, which prunes far
+	// more.
+	// ****************************************************
+	public EnumerationProgress start(int startRow, int startCol,
+			boolean closedOnly, ForkJoinPool pool) {
+		EnumerationProgress progress;
+
+		if (startRow < 0 || startRow >= rows || startCol < 0
+				|| startCol >= cols) {
+			throw new IllegalArgumentException("Start square is not on the board");
+		}
+
+		progress = new EnumerationProgress(rows, cols, startRow, startCol,
+				closedOnly);
+		progress.setTask(pool.submit(new CountTask(progress, startRow * cols
+				+ startCol, closedOnly, pool.getParallelism()
+				* SUBTREES_PER_THREAD)));
+
+		return progress;
+	}
+
+	// ****************************************************
+	// Method: count
+	//
+	// Purpose: Counts tours on the common ForkJoinPool
+	// and waits for the result.
+	// ****************************************************
+	public EnumerationProgress count(int startRow, int startCol,
+			boolean closedOnly) {
+		return start(startRow, startCol, closedOnly).await();
+	}
+
+	// ****************************************************
+	// Class: Subtrees
+	//
+	// Purpose: Partial tours the search is split at, held
+	// in parallel arrays.
+	// ****************************************************
+	static class Subtrees {
+		int count = 0; // Number of partial tours
+		int[] current = new int[16]; // Square the knight is on
+		long[] unvisited = new long[16]; // Squares not yet visited
+		long[] ends = new long[16]; // Unvisited squares that can only end
+									// the tour
+
+		// ****************************************************
+		// Method: add
+		//
+		// Purpose: Adds a partial tour, growing the arrays if
+		// they are full.
+		// ****************************************************
+		void add(int square, long unvisitedSquares, long endSquares) {
+			if (count == current.length) {
+				current = Arrays.copyOf(current, count * 2);
+				unvisited = Arrays.copyOf(unvisited, count * 2);
+				ends = Arrays.copyOf(ends, count * 2);
+			}
+
+			current[count] = square;
+			unvisited[count] = unvisitedSquares;
+			ends[count] = endSquares;
+			count++;
+		}
+	}
+
+	// ****************************************************
+	// Class: Search
+	//
+	// Purpose: Depth-first search of one part of the
+	// tree. Counts are kept in the search's own
+	// fields and added to the shared totals
+	// every REPORT_INTERVAL nodes, which is also
+	// when cancellation is checked.
+	// ****************************************************
+	class Search {
+		private final EnumerationProgress progress; // Shared totals
+		private final int start; // Square every tour starts on
+		private final boolean closedOnly; // Flag: true if only closed tours
+											// count
+		private final long startNeighbors; // Squares a knight attacks from
+											// the start
+		private final Subtrees splitAt; // Where partial tours are stored
+										// instead of searched, or null
+		private final int splitDepth; // Depth at which they are stored
+		private long nodes = 0; // Nodes not yet reported
+		private long open = 0; // Tours not yet reported
+		private long closed = 0; // Closed tours not yet reported
+		private long nodesToReport = REPORT_INTERVAL; // Nodes left before the
+														// next report
+
+		// ****************************************************
+		// Method: Search
+		//
+		// Purpose: Constructor. splitAt, if not null, collects
+		// the partial tours of splitDepth moves
+		// instead of searching below them.
+		// ****************************************************
+		Search(EnumerationProgress progress, int start, boolean closedOnly,
+				Subtrees splitAt, int splitDepth) {
+			this.progress = progress;
+			this.start = start;
+			this.closedOnly = closedOnly;
+			this.splitAt = splitAt;
+			this.splitDepth = splitDepth;
+			startNeighbors = attacks[start];
+		}
+
+		// ****************************************************
+		// Method: searchFromStart
+		//
+		// Purpose: Searches the whole tree from the start
+		// square. Returns false if cancelled. The
+		// caller reports what is left.
+		// ****************************************************
+		boolean searchFromStart() {
+			long unvisited = ((numSquares == MAX_SQUARES) ? -1L
+					: (1L << numSquares) - 1) & ~(1L << start);
+			long ends = 0, remaining = unvisited;
+			int square, access;
+
+			if (unvisited == 0) {
+				open++;
+				return true;
+			}
+
+			while (remaining != 0) {
+				square = Long.numberOfTrailingZeros(remaining);
+				remaining &= remaining - 1;
+				access = Long.bitCount(attacks[square] & unvisited)
+						+ (int) ((attacks[square] >>> start) & 1);
+
+				if (access == 0) {
+					return true;
+				} else if (access == 1) {
+					ends |= 1L << square;
+				}
+			}
+
+			if (Long.bitCount(ends) > 1
+					|| (closedOnly == true && ends != 0 && (ends & startNeighbors) == 0)) {
+				return true;
+			}
+
+			return search(start, unvisited, ends, 0);
+		}
+
+		// ****************************************************
+		// Method: search
+		//
+		// Purpose: Counts the tours that finish a partial
+		// tour. Returns false if cancelled.
+		// ****************************************************
+		boolean search(int current, long unvisited, long ends, int depth) {
+			long moves = attacks[current] & unvisited, nextUnvisited, nextEnds, changed;
+			int next, square, access;
+
+			if (splitAt != null && depth == splitDepth) {
+				splitAt.add(current, unvisited, ends);
+				return true;
+			}
+
+			nextMove: while (moves != 0) {
+				next = Long.numberOfTrailingZeros(moves);
+				moves &= moves - 1;
+				nextUnvisited = unvisited & ~(1L << next);
+				nodes++;
+
+				if (nextUnvisited == 0) {
+					open++;
+
+					if ((startNeighbors & (1L << next)) != 0) {
+						closed++;
+					}
+
+					continue;
+				}
+
+				if (closedOnly == true && (startNeighbors & nextUnvisited) == 0) {
+					continue;
+				}
+
+				// Only the squares next to the square being left lose a
+				// way in; the knight's new neighbors swap an unvisited
+				// neighbor for the knight
+				nextEnds = ends & nextUnvisited;
+				changed = attacks[current] & nextUnvisited;
+
+				while (changed != 0) {
+					square = Long.numberOfTrailingZeros(changed);
+					changed &= changed - 1;
+					access = Long.bitCount(attacks[square] & nextUnvisited)
+							+ (int) ((attacks[square] >>> next) & 1);
+
+					if (access == 0) {
+						continue nextMove;
+					} else if (access == 1) {
+						nextEnds |= 1L << square;
+					}
+				}
+
+				if (Long.bitCount(nextEnds) > 1
+						|| (closedOnly == true && nextEnds != 0 && (nextEnds & startNeighbors) == 0)) {
+					continue;
+				}
+
+				if (--nodesToReport == 0 && report() == false) {
+					return false;
+				}
+
+				if (search(next, nextUnvisited, nextEnds, depth + 1) == false) {
+					return false;
+				}
+			}
+
+			return true;
+		}
+
+		// ****************************************************
+		// Method: report
+		//
+		// Purpose: Adds the counts made since the last report
+		// to the totals. Returns false if the count
+		// has been cancelled. A search that is
+		// splitting the tree keeps its counts, since
+		// only those of the last split are kept.
+		// ****************************************************
+		boolean report() {
+			if (splitAt == null) {
+				progress.add(nodes, open, closed);
+				nodes = 0;
+				open = 0;
+				closed = 0;
+			}
+
+			nodesToReport = REPORT_INTERVAL;
+
+			return progress.isCancelled() == false;
+		}
+	}
+
+	// ****************************************************
+	// Class: CountTask
+	//
+	// Purpose: Splits the search at the shallowest depth
+	// that gives enough subtrees, counting any
+	// tours shorter than that depth on the way,
+	// then searches the subtrees in parallel.
+	// ****************************************************
+	class CountTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final EnumerationProgress progress; // Shared totals
+		private final int start; // Square every tour starts on
+		private final boolean closedOnly; // Flag: true if only closed tours
+											// count
+		private final int targetSubtrees; // Subtrees wanted
+
+		// ****************************************************
+		// Method: CountTask
+		//
+		// Purpose: Constructor. Stores the count's settings.
+		// ****************************************************
+		CountTask(EnumerationProgress progress, int start, boolean closedOnly,
+				int targetSubtrees) {
+			this.progress = progress;
+			this.start = start;
+			this.closedOnly = closedOnly;
+			this.targetSubtrees = targetSubtrees;
+		}
+
+		// ****************************************************
+		// Method: compute
+		//
+		// Purpose: Splits the search one level deeper at a
+		// time until there are enough subtrees, then
+		// searches them.
+		// ****************************************************
+		@Override
+		protected void compute() {
+			Subtrees subtrees;
+			Search splitter;
+			int depth = 0;
+
+			try {
+				// Each pass counts only the tours shorter than its depth,
+				// so only the counts of the last pass are kept
+				do {
+					depth++;
+					subtrees = new Subtrees();
+					splitter = new Search(progress, start, closedOnly,
+							subtrees, depth);
+
+					if (splitter.searchFromStart() == false) {
+						return;
+					}
+				} while (subtrees.count > 0 && subtrees.count < targetSubtrees
+						&& depth < numSquares - 1);
+
+				progress.add(splitter.nodes, splitter.open, splitter.closed);
+
+				progress.setSubtreeCount(subtrees.count);
+
+				if (subtrees.count > 0) {
+					invokeAll(new SubtreeTask(progress, start, closedOnly,
+							subtrees, 0, subtrees.count));
+				}
+			} finally {
+				progress.finish();
+			}
+		}
+	}
+
+	// ****************************************************
+	// Class: SubtreeTask
+	//
+	// Purpose: Searches a range of subtrees, splitting the
+	// range in half until it holds one.
+	// ****************************************************
+	class SubtreeTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final EnumerationProgress progress; // Shared totals
+		private final int start; // Square every tour starts on
+		private final boolean closedOnly; // Flag: true if only closed tours
+											// count
+		private final Subtrees subtrees; // Partial tours to finish
+		private final int first; // First subtree in the range
+		private final int end; // Subtree just past the range
+
+		// ****************************************************
+		// Method: SubtreeTask
+		//
+		// Purpose: Constructor. Sets the range of subtrees.
+		// ****************************************************
+		SubtreeTask(EnumerationProgress progress, int start,
+				boolean closedOnly, Subtrees subtrees, int first, int end) {
+			this.progress = progress;
+			this.start = start;
+			this.closedOnly = closedOnly;
+			this.subtrees = subtrees;
+			this.first = first;
+			this.end = end;
+		}
+
+		// ****************************************************
+		// Method: compute
+		//
+		// Purpose: Searches the subtree or splits the range.
+		// ****************************************************
+		@Override
+		protected void compute() {
+			if (end - first > 1) {
+				int middle = (first + end) >>> 1;
+
+				invokeAll(new SubtreeTask(progress, start, closedOnly,
+						subtrees, first, middle), new SubtreeTask(progress,
+						start, closedOnly, subtrees, middle, end));
+			} else if (progress.isCancelled() == false) {
+				Search search = new Search(progress, start, closedOnly, null, 0);
+
+				if (search.search(subtrees.current[first],
+						subtrees.unvisited[first], subtrees.ends[first], 0) == true
+						&& search.report() == true) {
+					progress.subtreeFinished();
+				}
+			}
+		}
+	}
+}
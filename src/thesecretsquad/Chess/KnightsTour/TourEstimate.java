@@ -0,0 +1,456 @@
+//****************************************************
+//File: TourEstimate
+//
+//Purpose: Handle on a running TourEstimator. Workers
+//		   merge the results of each batch of probes
+//		   into it, so the mean, variance and
+//		   confidence interval can be read at any time
+//		   from any thread and narrow as the estimate
+//		   runs.
+//
+//		   Tour counts on large boards pass the range
+//		   of a long and the squares of the estimates
+//		   pass that of a double, so sums are kept as
+//		   doubles scaled by a power of two that grows
+//		   with the largest estimate seen.
+//****************************************************
+
+package thesecretsquad.Chess.KnightsTour;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinTask;
+
+public class TourEstimate {
+	public static final double Z_95 = 1.959963984540054; // Standard normal
+															// value for a 95%
+															// interval
+
+	private final int boardSize; // Dimension of the board
+	private final int startRow; // Row every probe starts on, or -1
+	private final int startCol; // Column every probe starts on, or -1
+	private final long targetProbes; // Probes to run in all
+	private final long startNanos = System.nanoTime(); // When the estimate
+														// began
+	private final Sums sums = new Sums(); // Totals of every merged batch
+	private volatile boolean cancelled = false; // Flag: true once cancelled
+	private volatile long finishNanos = 0; // When the estimate ended, or 0
+	private ForkJoinTask<?> task; // Task running the probes
+
+	// ****************************************************
+	// Method: TourEstimate
+	//
+	// Purpose: Constructor. Stores what is being
+	// estimated. A start row of -1 means every
+	// probe picks its own start square.
+	// ****************************************************
+	TourEstimate(int boardSize, int startRow, int startCol, long targetProbes) {
+		this.boardSize = boardSize;
+		this.startRow = startRow;
+		this.startCol = startCol;
+		this.targetProbes = targetProbes;
+	}
+
+	// ****************************************************
+	// Method: setTask
+	//
+	// Purpose: Stores the task running the probes.
+	// ****************************************************
+	void setTask(ForkJoinTask<?> task) {
+		this.task = task;
+	}
+
+	// ****************************************************
+	// Method: merge
+	//
+	// Purpose: Adds a worker's batch to the totals.
+	// ****************************************************
+	void merge(Sums batch) {
+		synchronized (sums) {
+			sums.add(batch);
+		}
+	}
+
+	// ****************************************************
+	// Method: finish
+	//
+	// Purpose: Records the time the estimate ended.
+	// ****************************************************
+	void finish() {
+		finishNanos = System.nanoTime();
+	}
+
+	// ****************************************************
+	// Method: snapshot
+	//
+	// Purpose: Returns a copy of the totals, so the
+	// figures worked out from them agree.
+	// ****************************************************
+	private Sums snapshot() {
+		Sums copy = new Sums();
+
+		synchronized (sums) {
+			copy.add(sums);
+		}
+
+		return copy;
+	}
+
+	// ****************************************************
+	// Method: cancel
+	//
+	// Purpose: Asks the workers to stop after their
+	// current batch. The figures stay available
+	// and are as good as the probes run so far.
+	// ****************************************************
+	public void cancel() {
+		cancelled = true;
+	}
+
+	// ****************************************************
+	// Method: isCancelled
+	//
+	// Purpose: Returns true if the estimate was
+	// cancelled.
+	// ****************************************************
+	public boolean isCancelled() {
+		return cancelled;
+	}
+
+	// ****************************************************
+	// Method: isDone
+	//
+	// Purpose: Returns true once every worker has
+	// stopped, whether finished or cancelled.
+	// ****************************************************
+	public boolean isDone() {
+		return task.isDone();
+	}
+
+	// ****************************************************
+	// Method: isComplete
+	//
+	// Purpose: Returns true if every probe asked for has
+	// been run.
+	// ****************************************************
+	public boolean isComplete() {
+		return task.isDone() && getProbes() == targetProbes;
+	}
+
+	// ****************************************************
+	// Method: await
+	//
+	// Purpose: Waits until every worker has stopped and
+	// returns this handle. Rethrows any error a
+	// worker failed with.
+	// ****************************************************
+	public TourEstimate await() {
+		try {
+			task.join();
+		} catch (CancellationException cancellationException) {
+			// Figures stay as they were
+		}
+
+		return this;
+	}
+
+	// ****************************************************
+	// Method: getProbes
+	//
+	// Purpose: Returns the number of probes run so far.
+	// ****************************************************
+	public long getProbes() {
+		synchronized (sums) {
+			return sums.probes;
+		}
+	}
+
+	// ****************************************************
+	// Method: getTargetProbes
+	//
+	// Purpose: Returns the number of probes asked for.
+	// ****************************************************
+	public long getTargetProbes() {
+		return targetProbes;
+	}
+
+	// ****************************************************
+	// Method: getFractionDone
+	//
+	// Purpose: Returns the fraction of the probes run,
+	// from 0 to 1.
+	// ****************************************************
+	public double getFractionDone() {
+		return targetProbes == 0 ? 1.0 : (double) getProbes() / targetProbes;
+	}
+
+	// ****************************************************
+	// Method: getTours
+	//
+	// Purpose: Returns the number of probes that found a
+	// tour.
+	// ****************************************************
+	public long getTours() {
+		synchronized (sums) {
+			return sums.tours;
+		}
+	}
+
+	// ****************************************************
+	// Method: getMean
+	//
+	// Purpose: Returns the estimated number of tours,
+	// counted in the direction they are walked.
+	// With a start square, that is the number of
+	// tours from it; without, the number on the
+	// whole board. Infinite if it passes the range
+	// of a double.
+	// ****************************************************
+	public double getMean() {
+		return snapshot().getMean();
+	}
+
+	// ****************************************************
+	// Method: getLog10Mean
+	//
+	// Purpose: Returns the base 10 logarithm of the
+	// estimated number of tours, which stays
+	// finite when the number itself does not.
+	// ****************************************************
+	public double getLog10Mean() {
+		Sums copy = snapshot();
+
+		if (copy.probes == 0 || copy.sum == 0) {
+			return Double.NEGATIVE_INFINITY;
+		}
+
+		return Math.log10(copy.sum / copy.probes) + copy.scale * Math.log10(2);
+	}
+
+	// ****************************************************
+	// Method: getVariance
+	//
+	// Purpose: Returns the sample variance of the probe
+	// estimates. Often infinite on large boards,
+	// where it passes the range of a double
+	// long before the mean does.
+	// ****************************************************
+	public double getVariance() {
+		return snapshot().getScaledVariance(0);
+	}
+
+	// ****************************************************
+	// Method: getStandardError
+	//
+	// Purpose: Returns the standard error of the mean.
+	// ****************************************************
+	public double getStandardError() {
+		return snapshot().getStandardError();
+	}
+
+	// ****************************************************
+	// Method: getRelativeError
+	//
+	// Purpose: Returns the standard error as a fraction
+	// of the mean.
+	// ****************************************************
+	public double getRelativeError() {
+		Sums copy = snapshot();
+
+		return copy.sum == 0 ? Double.POSITIVE_INFINITY : Math.sqrt(copy
+				.getScaledVariance(-copy.scale) / copy.probes)
+				/ (copy.sum / copy.probes);
+	}
+
+	// ****************************************************
+	// Method: getLowerBound
+	//
+	// Purpose: Returns the low end of the 95% confidence
+	// interval of the mean, never below zero.
+	// ****************************************************
+	public double getLowerBound() {
+		Sums copy = snapshot();
+
+		return Math.max(0, copy.getMean() - Z_95 * copy.getStandardError());
+	}
+
+	// ****************************************************
+	// Method: getUpperBound
+	//
+	// Purpose: Returns the high end of the 95% confidence
+	// interval of the mean.
+	// ****************************************************
+	public double getUpperBound() {
+		Sums copy = snapshot();
+
+		return copy.getMean() + Z_95 * copy.getStandardError();
+	}
+
+	// ****************************************************
+	// Method: getElapsedNanos
+	//
+	// Purpose: Returns the time the estimate has run, in
+	// nanoseconds.
+	// ****************************************************
+	public long getElapsedNanos() {
+		long finish = finishNanos;
+
+		return (finish == 0 ? System.nanoTime() : finish) - startNanos;
+	}
+
+	// ****************************************************
+	// Method: getProbesPerSecond
+	//
+	// Purpose: Returns the number of probes run per
+	// second so far.
+	// ****************************************************
+	public double getProbesPerSecond() {
+		return getProbes() * 1e9 / Math.max(1, getElapsedNanos());
+	}
+
+	// ****************************************************
+	// Method: getBoardSize
+	//
+	// Purpose: Returns the dimension of the board.
+	// ****************************************************
+	public int getBoardSize() {
+		return boardSize;
+	}
+
+	// ****************************************************
+	// Method: getStartRow
+	//
+	// Purpose: Returns the row every probe starts on, or
+	// -1 if probes pick their own.
+	// ****************************************************
+	public int getStartRow() {
+		return startRow;
+	}
+
+	// ****************************************************
+	// Method: getStartCol
+	//
+	// Purpose: Returns the column every probe starts on,
+	// or -1 if probes pick their own.
+	// ****************************************************
+	public int getStartCol() {
+		return startCol;
+	}
+
+	// ****************************************************
+	// Class: Sums
+	//
+	// Purpose: Sums of probe estimates and of their
+	// squares. The real sum is sum * 2^scale and
+	// the real sum of squares is
+	// sumSquares * 2^(2 * scale). The scale is
+	// raised whenever an estimate would make the
+	// squares too large to hold.
+	// ****************************************************
+	static class Sums {
+		private static final int MAX_EXPONENT = 400; // Largest exponent of a
+														// scaled estimate
+
+		long probes = 0; // Probes added
+		long tours = 0; // Probes that found a tour
+		int scale = 0; // Power of two the sums are scaled by
+		double sum = 0; // Scaled sum of the estimates
+		double sumSquares = 0; // Scaled sum of their squares
+
+		// ****************************************************
+		// Method: addProbe
+		//
+		// Purpose: Adds the estimate value * 2^exponent of a
+		// probe that found a tour.
+		// ****************************************************
+		void addProbe(double value, int exponent) {
+			probes++;
+			tours++;
+			rescale(exponent + Math.getExponent(value));
+			value = Math.scalb(value, exponent - scale);
+			sum += value;
+			sumSquares += value * value;
+		}
+
+		// ****************************************************
+		// Method: addFailure
+		//
+		// Purpose: Adds a probe that got stuck, whose
+		// estimate is zero.
+		// ****************************************************
+		void addFailure() {
+			probes++;
+		}
+
+		// ****************************************************
+		// Method: add
+		//
+		// Purpose: Adds the sums of another batch.
+		// ****************************************************
+		void add(Sums other) {
+			probes += other.probes;
+			tours += other.tours;
+
+			if (other.tours > 0) {
+				rescale(other.scale + Math.getExponent(other.sum));
+				sum += Math.scalb(other.sum, other.scale - scale);
+				sumSquares += Math.scalb(other.sumSquares, 2 * (other.scale - scale));
+			}
+		}
+
+		// ****************************************************
+		// Method: rescale
+		//
+		// Purpose: Raises the scale if a value with the given
+		// exponent would not fit under it.
+		// ****************************************************
+		private void rescale(int exponent) {
+			if (exponent - scale > MAX_EXPONENT) {
+				int newScale = exponent;
+
+				sum = Math.scalb(sum, scale - newScale);
+				sumSquares = Math.scalb(sumSquares, 2 * (scale - newScale));
+				scale = newScale;
+			}
+		}
+
+		// ****************************************************
+		// Method: getMean
+		//
+		// Purpose: Returns the mean of the estimates.
+		// ****************************************************
+		double getMean() {
+			return probes == 0 ? 0 : Math.scalb(sum / probes, scale);
+		}
+
+		// ****************************************************
+		// Method: getScaledVariance
+		//
+		// Purpose: Returns the sample variance of the
+		// estimates times 2^(2 * extraScale).
+		// ****************************************************
+		double getScaledVariance(int extraScale) {
+			double mean, variance;
+
+			if (probes < 2) {
+				return Double.POSITIVE_INFINITY;
+			}
+
+			mean = sum / probes;
+			variance = Math.max(0, (sumSquares - mean * sum) / (probes - 1));
+
+			return Math.scalb(variance, 2 * (scale + extraScale));
+		}
+
+		// ****************************************************
+		// Method: getStandardError
+		//
+		// Purpose: Returns the standard error of the mean,
+		// scaled back only after the square root so
+		// it stays finite as long as the mean does.
+		// ****************************************************
+		double getStandardError() {
+			return Math.scalb(Math.sqrt(getScaledVariance(-scale) / probes),
+					scale);
+		}
+	}
+}
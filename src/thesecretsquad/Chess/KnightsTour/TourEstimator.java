@@ -0,0 +1,413 @@
+//****************************************************
+//File: TourEstimator
+//
+//Purpose: Estimates the number of knight's tours on
+//		   boards too large to count them, by Knuth's
+//		   random probes. A probe walks the knight at
+//		   random, picking each move with some chance
+//		   p, and multiplies together 1 / p of every
+//		   move it makes. A probe that completes a
+//		   tour estimates the count as that product
+//		   and one that gets stuck as zero; the mean
+//		   of many probes is an unbiased estimate.
+//
+//		   Moves are favored by low accessibility, as
+//		   Warnsdorff's rule does, which makes many
+//		   more probes finish. Moves that can not lead
+//		   to a tour are never picked: a square with no
+//		   way in left, or a second square that could
+//		   only be entered from the knight.
+//
+//		   Probes run in parallel on a ForkJoinPool,
+//		   each task drawing from its own split of one
+//		   SplittableGenerator, so a seeded estimate
+//		   runs the same probes on any pool. A probe
+//		   uses arrays set up once per batch and
+//		   allocates nothing.
+//****************************************************
+
+package thesecretsquad.Chess.KnightsTour;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.random.RandomGenerator;
+import java.util.random.RandomGeneratorFactory;
+
+import thesecretsquad.Chess.ChessBoard;
+import thesecretsquad.Chess.Knight;
+import thesecretsquad.Chess.KnightGraph;
+
+public class TourEstimator {
+	public static final String ALGORITHM = "L64X128MixRandom"; // Generator
+																// the probes
+																// draw from
+	public static final double DEFAULT_BIAS = 2.0; // Default preference for
+													// low accessibility
+	private static final int PROBES_PER_BATCH = 1 << 14; // Probes run between
+															// merges and cancel
+															// checks
+	private static final int EXPONENT_STEP = 512; // Power of two taken out of
+													// a probe's product when it
+													// grows too large
+
+	private final int boardSize; // Dimension of the board
+	private final int numSquares; // Number of squares on the board
+	private final KnightGraph knightGraph; // Knight moves of the board
+	// Weight of a move by the accessibility of the square it lands on
+	private final double[] weights = new double[Knight.NUM_ALLOWED_MOVES + 1];
+	private Long seed = null; // Seed of the generator, or null for a random
+								// one
+
+	// ****************************************************
+	// Method: TourEstimator
+	//
+	// Purpose: Constructor. Takes the knight moves from
+	// the board's KnightGraph.
+	// ****************************************************
+	public TourEstimator(ChessBoard chessBoard) {
+		boardSize = chessBoard.getBoardSize();
+		numSquares = boardSize * boardSize;
+		knightGraph = chessBoard.getKnightGraph();
+		setBias(DEFAULT_BIAS);
+	}
+
+	// ****************************************************
+	// Method: setBias
+	//
+	// Purpose: Sets how strongly moves to squares of low
+	// accessibility are favored: a move is picked
+	// with weight accessibility^-bias. A bias of
+	// 0 picks every move equally, as Knuth's
+	// original estimator does. The estimate is
+	// unbiased whatever the bias; only its
+	// variance changes.
+	// ****************************************************
+	public void setBias(double bias) {
+		weights[0] = 1.0; // Only ever a forced move
+
+		for (int accessibility = 1; accessibility < weights.length; accessibility++) {
+			weights[accessibility] = Math.pow(accessibility, -bias);
+		}
+	}
+
+	// ****************************************************
+	// Method: setSeed
+	//
+	// Purpose: Seeds the generator so an estimate can be
+	// repeated.
+	// ****************************************************
+	public void setSeed(long seed) {
+		this.seed = seed;
+	}
+
+	// ****************************************************
+	// Method: start
+	//
+	// Purpose: Starts estimating the number of tours on
+	// the whole board on the common ForkJoinPool
+	// and returns at once. Each probe starts on a
+	// square picked at random.
+	// ****************************************************
+	public TourEstimate start(long probes) {
+		return start(-1, -1, probes, ForkJoinPool.commonPool());
+	}
+
+	// ****************************************************
+	// Method: start
+	//
+	// Purpose: Starts estimating the number of tours from
+	// a start square on the common ForkJoinPool
+	// and returns at once.
+	// ****************************************************
+	public TourEstimate start(int startRow, int startCol, long probes) {
+		return start(startRow, startCol, probes, ForkJoinPool.commonPool());
+	}
+
+	// ****************************************************
+	// Method: start
+	//
+	// Purpose: Starts estimating on the given pool and
+	// returns a handle to follow, cancel or wait
+	// for the estimate. A start row of -1 means
+	// the whole board.
+	// ****************************************************
+	public TourEstimate start(int startRow, int startCol, long probes,
+			ForkJoinPool pool) {
+		RandomGeneratorFactory<RandomGenerator.SplittableGenerator> factory = RandomGeneratorFactory
+				.of(ALGORITHM);
+		TourEstimate estimate;
+
+		if (startRow != -1
+				&& (startRow < 0 || startRow >= boardSize || startCol < 0 || startCol >= boardSize)) {
+			throw new IllegalArgumentException("Start square is not on the board");
+		}
+
+		if (probes < 0) {
+			throw new IllegalArgumentException("Probes can not be negative");
+		}
+
+		estimate = new TourEstimate(boardSize, startRow, startRow == -1 ? -1
+				: startCol, probes);
+		estimate.setTask(pool.submit(new RootTask(estimate,
+				seed == null ? factory.create() : factory.create(seed),
+				startRow == -1 ? -1 : startRow * boardSize + startCol,
+				(probes + PROBES_PER_BATCH - 1) / PROBES_PER_BATCH, probes)));
+
+		return estimate;
+	}
+
+	// ****************************************************
+	// Class: Prober
+	//
+	// Purpose: Runs probes on arrays of its own. The
+	// arrays are set up once and reset from the
+	// board's degrees before each probe.
+	// ****************************************************
+	class Prober {
+		private final RandomGenerator random; // Source of the random moves
+		private final int[] degrees = new int[numSquares]; // On-board moves
+															// from each square
+		// Unvisited squares reachable from each square
+		private final int[] accessibility = new int[numSquares];
+		private final boolean[] visited = new boolean[numSquares]; // Flag per
+																	// square
+		private double product; // Product of 1 / p of the moves made, scaled
+		private int exponent; // Power of two taken out of the product
+
+		// ****************************************************
+		// Method: Prober
+		//
+		// Purpose: Constructor. Stores the degree of every
+		// square to reset the probes from.
+		// ****************************************************
+		Prober(RandomGenerator random) {
+			this.random = random;
+
+			for (int square = 0; square < numSquares; square++) {
+				degrees[square] = knightGraph.getDegree(square);
+			}
+		}
+
+		// ****************************************************
+		// Method: run
+		//
+		// Purpose: Runs a number of probes and adds them to
+		// the sums.
+		// ****************************************************
+		void run(int start, long probes, TourEstimate.Sums sums) {
+			for (long probe = 0; probe < probes; probe++) {
+				if (probe(start < 0 ? random.nextInt(numSquares) : start) == true) {
+					// Every start square is as likely, so the whole board
+					// has numSquares times the tours of the average square
+					sums.addProbe(start < 0 ? product * numSquares : product,
+							exponent);
+				} else {
+					sums.addFailure();
+				}
+			}
+		}
+
+		// ****************************************************
+		// Method: visit
+		//
+		// Purpose: Marks a square visited and lowers the
+		// accessibility of its neighbors.
+		// ****************************************************
+		private void visit(int square) {
+			visited[square] = true;
+
+			for (int moves = knightGraph.getMoveMask(square); moves != 0; moves &= moves - 1) {
+				accessibility[knightGraph.getNeighbor(square, moves)]--;
+			}
+		}
+
+		// ****************************************************
+		// Method: probe
+		//
+		// Purpose: Walks the knight at random from a start
+		// square. Returns true if it visited every
+		// square, leaving its estimate in product
+		// and exponent.
+		// ****************************************************
+		boolean probe(int start) {
+			int square = start, next, moveMask, target, forced;
+			double totalWeight, pick;
+
+			System.arraycopy(degrees, 0, accessibility, 0, numSquares);
+			Arrays.fill(visited, false);
+			product = 1.0;
+			exponent = 0;
+			visit(start);
+
+			for (int moveCounter = 1; moveCounter < numSquares; moveCounter++) {
+				moveMask = knightGraph.getMoveMask(square);
+				totalWeight = 0;
+				forced = -1;
+
+				// A neighbor with no other way in must be the next square
+				for (int moves = moveMask; moves != 0; moves &= moves - 1) {
+					target = knightGraph.getNeighbor(square, moves);
+
+					if (visited[target] == false) {
+						if (accessibility[target] == 0) {
+							if (forced >= 0) {
+								return false;
+							}
+
+							forced = target;
+						}
+
+						totalWeight += weights[accessibility[target]];
+					}
+				}
+
+				if (totalWeight == 0) {
+					return false;
+				}
+
+				if (forced >= 0) {
+					next = forced;
+				} else {
+					next = -1;
+					pick = random.nextDouble() * totalWeight;
+
+					for (int moves = moveMask; moves != 0; moves &= moves - 1) {
+						target = knightGraph.getNeighbor(square, moves);
+
+						if (visited[target] == false) {
+							next = target;
+							pick -= weights[accessibility[target]];
+
+							if (pick < 0) {
+								break;
+							}
+						}
+					}
+
+					product *= totalWeight / weights[accessibility[next]];
+
+					if (product > 0x1p512) {
+						product = Math.scalb(product, -EXPONENT_STEP);
+						exponent += EXPONENT_STEP;
+					}
+				}
+
+				visit(next);
+				square = next;
+			}
+
+			return true;
+		}
+	}
+
+	// ****************************************************
+	// Class: RootTask
+	//
+	// Purpose: Runs every batch of probes and records
+	// when the estimate ends.
+	// ****************************************************
+	class RootTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final TourEstimate estimate; // Where batches are merged
+		private final RandomGenerator.SplittableGenerator random; // Generator
+																	// to split
+		private final int start; // Start square, or -1 for any
+		private final long batches; // Number of batches
+		private final long probes; // Number of probes
+
+		// ****************************************************
+		// Method: RootTask
+		//
+		// Purpose: Constructor. Stores the estimate's
+		// settings.
+		// ****************************************************
+		RootTask(TourEstimate estimate,
+				RandomGenerator.SplittableGenerator random, int start,
+				long batches, long probes) {
+			this.estimate = estimate;
+			this.random = random;
+			this.start = start;
+			this.batches = batches;
+			this.probes = probes;
+		}
+
+		// ****************************************************
+		// Method: compute
+		//
+		// Purpose: Runs the batches and records the finish.
+		// ****************************************************
+		@Override
+		protected void compute() {
+			try {
+				if (batches > 0) {
+					new BatchTask(estimate, random, start, 0, batches, probes)
+							.compute();
+				}
+			} finally {
+				estimate.finish();
+			}
+		}
+	}
+
+	// ****************************************************
+	// Class: BatchTask
+	//
+	// Purpose: Runs a range of batches, splitting the
+	// range in half until it holds one. The
+	// second half is given a split of the
+	// generator, so every batch draws from its
+	// own stream.
+	// ****************************************************
+	class BatchTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final TourEstimate estimate; // Where batches are merged
+		private final RandomGenerator.SplittableGenerator random; // Generator
+																	// of the
+																	// range
+		private final int start; // Start square, or -1 for any
+		private final long firstBatch; // First batch in the range
+		private final long endBatch; // Batch just past the range
+		private final long probes; // Number of probes in all batches
+
+		// ****************************************************
+		// Method: BatchTask
+		//
+		// Purpose: Constructor. Sets the range of batches.
+		// ****************************************************
+		BatchTask(TourEstimate estimate,
+				RandomGenerator.SplittableGenerator random, int start,
+				long firstBatch, long endBatch, long probes) {
+			this.estimate = estimate;
+			this.random = random;
+			this.start = start;
+			this.firstBatch = firstBatch;
+			this.endBatch = endBatch;
+			this.probes = probes;
+		}
+
+		// ****************************************************
+		// Method: compute
+		//
+		// Purpose: Runs the batch or splits the range.
+		// ****************************************************
+		@Override
+		protected void compute() {
+			if (endBatch - firstBatch > 1) {
+				long middle = (firstBatch + endBatch) >>> 1;
+
+				invokeAll(new BatchTask(estimate, random, start, firstBatch,
+						middle, probes), new BatchTask(estimate,
+						random.split(), start, middle, endBatch, probes));
+			} else if (estimate.isCancelled() == false) {
+				TourEstimate.Sums sums = new TourEstimate.Sums();
+
+				new Prober(random).run(start, Math.min(PROBES_PER_BATCH,
+						probes - firstBatch * PROBES_PER_BATCH), sums);
+				estimate.merge(sums);
+			}
+		}
+	}
+}
@@ -0,0 +1,18 @@
+//****************************************************
+//File: TourFormat
+//
+//Purpose: Encodings a TourWriter can write a tour in.
+//****************************************************
+
+package thesecretsquad.Chess.KnightsTour;
+
+public enum TourFormat {
+	// One line holding the board size, then one "row col" line per square
+	// in the order the knight visits them, starting with the start square.
+	TEXT,
+
+	// A fixed header (magic number, version, board size, start row, start
+	// column, number of moves) followed by one byte per move holding the
+	// knight move number 0 - 7. The header is described in TourWriter.
+	BINARY
+}
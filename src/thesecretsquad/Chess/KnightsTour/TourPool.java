@@ -0,0 +1,237 @@
+//****************************************************
+//File: TourPool
+//
+//Purpose: Keeps finished tours so their boards can be
+//		   used again. A tour taken from the pool is
+//		   reset in place, which costs one pass over
+//		   the board arrays instead of allocating a
+//		   new board, so a service solving tour after
+//		   tour makes almost no garbage. A few idle
+//		   tours are kept for each board size, and
+//		   their boards together hold at most a set
+//		   number of squares, so a program that sees
+//		   many sizes does not keep a board of each.
+//		   Once over that, the idle tours of the size
+//		   least recently used are dropped first, and
+//		   left to the garbage collector.
+//****************************************************
+
+package thesecretsquad.Chess.KnightsTour;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import thesecretsquad.Chess.TieBreaker;
+
+public class TourPool {
+	public static final int DEFAULT_MAX_IDLE = 4; // Default idle tours kept
+													// per board size
+	public static final long DEFAULT_MAX_IDLE_SQUARES = 1L << 22; // Default
+																	// squares
+																	// kept idle
+
+	private final int maxIdle; // Most idle tours kept for each board size
+	private final long maxIdleSquares; // Most squares of all idle tours
+	// Idle tours of each board size, least recently used size first
+	private final LinkedHashMap<Integer, ArrayDeque<Tour>> idleTours = new LinkedHashMap<Integer, ArrayDeque<Tour>>(
+			16, 0.75f, true);
+	private long idleSquares = 0; // Squares of all idle tours
+	private long reused = 0; // Tours handed out again
+	private long created = 0; // Tours made because none were idle
+
+	// ****************************************************
+	// Method: TourPool
+	//
+	// Purpose: Constructor. Keeps up to DEFAULT_MAX_IDLE
+	// tours per board size.
+	// ****************************************************
+	public TourPool() {
+		this(DEFAULT_MAX_IDLE);
+	}
+
+	// ****************************************************
+	// Method: TourPool
+	//
+	// Purpose: Constructor. Keeps up to maxIdle tours per
+	// board size, e.g. the number of threads
+	// solving at once, and up to
+	// DEFAULT_MAX_IDLE_SQUARES squares in all.
+	// ****************************************************
+	public TourPool(int maxIdle) {
+		this(maxIdle, DEFAULT_MAX_IDLE_SQUARES);
+	}
+
+	// ****************************************************
+	// Method: TourPool
+	//
+	// Purpose: Constructor. Keeps up to maxIdle tours per
+	// board size and up to maxIdleSquares squares
+	// of idle boards in all.
+	// ****************************************************
+	public TourPool(int maxIdle, long maxIdleSquares) {
+		this.maxIdle = maxIdle;
+		this.maxIdleSquares = maxIdleSquares;
+	}
+
+	// ****************************************************
+	// Method: acquire
+	//
+	// Purpose: Returns an unplayed tour of the given size
+	// starting on a square, with the default tie
+	// breaker and no move listener, as a new
+	// Tour would be. An idle tour is reset and
+	// reused if there is one.
+	// ****************************************************
+	public Tour acquire(int startRow, int startCol, int dimension) {
+		Tour tour;
+
+		synchronized (this) {
+			ArrayDeque<Tour> tours = idleTours.get(dimension);
+
+			tour = tours == null ? null : tours.pollFirst();
+
+			if (tour == null) {
+				created++;
+			} else {
+				reused++;
+				idleSquares -= (long) dimension * dimension;
+
+				if (tours.isEmpty() == true) {
+					idleTours.remove(dimension);
+				}
+			}
+		}
+
+		if (tour == null) {
+			return new Tour(startRow, startCol, dimension);
+		}
+
+		tour.resetTour(startRow, startCol);
+
+		return tour;
+	}
+
+	// ****************************************************
+	// Method: release
+	//
+	// Purpose: Gives a tour back to the pool once the
+	// caller is done with it. The tour must not
+	// be used afterwards. Its board is not reset
+	// until it is acquired again. A tour larger
+	// than the square limit is not kept.
+	// ****************************************************
+	public void release(Tour tour) {
+		int dimension = tour.getChessBoard().getBoardSize();
+		long squares = (long) dimension * dimension;
+
+		tour.setMoveListener(null);
+		tour.setTieBreaker(TieBreaker.MOVE_ORDER);
+
+		if (squares > maxIdleSquares) {
+			return;
+		}
+
+		synchronized (this) {
+			ArrayDeque<Tour> tours = idleTours.get(dimension);
+
+			if (tours == null) {
+				tours = new ArrayDeque<Tour>();
+				idleTours.put(dimension, tours);
+			}
+
+			if (tours.size() < maxIdle) {
+				tours.addFirst(tour);
+				idleSquares += squares;
+				dropLeastRecent();
+			}
+		}
+	}
+
+	// ****************************************************
+	// Method: dropLeastRecent
+	//
+	// Purpose: Drops idle tours, oldest first from the
+	// size least recently used, until the total
+	// squares fit. The size just released is the
+	// most recently used, so it goes last. Must
+	// be called holding the lock.
+	// ****************************************************
+	private void dropLeastRecent() {
+		Iterator<Map.Entry<Integer, ArrayDeque<Tour>>> eldest = idleTours
+				.entrySet().iterator();
+		Map.Entry<Integer, ArrayDeque<Tour>> entry;
+		long squares;
+
+		while (idleSquares > maxIdleSquares) {
+			entry = eldest.next();
+			squares = (long) entry.getKey() * entry.getKey();
+
+			while (idleSquares > maxIdleSquares
+					&& entry.getValue().pollLast() != null) {
+				idleSquares -= squares;
+			}
+
+			if (entry.getValue().isEmpty() == true) {
+				eldest.remove();
+			}
+		}
+	}
+
+	// ****************************************************
+	// Method: getIdleCount
+	//
+	// Purpose: Returns the number of idle tours of a
+	// board size, without counting as a use.
+	// ****************************************************
+	public synchronized int getIdleCount(int dimension) {
+		for (Map.Entry<Integer, ArrayDeque<Tour>> entry : idleTours.entrySet()) {
+			if (entry.getKey() == dimension) {
+				return entry.getValue().size();
+			}
+		}
+
+		return 0;
+	}
+
+	// ****************************************************
+	// Method: getIdleSquares
+	//
+	// Purpose: Returns the number of squares on the
+	// boards of all idle tours.
+	// ****************************************************
+	public synchronized long getIdleSquares() {
+		return idleSquares;
+	}
+
+	// ****************************************************
+	// Method: getReused
+	//
+	// Purpose: Returns the number of tours handed out
+	// again.
+	// ****************************************************
+	public synchronized long getReused() {
+		return reused;
+	}
+
+	// ****************************************************
+	// Method: getCreated
+	//
+	// Purpose: Returns the number of tours made because
+	// none of their size were idle.
+	// ****************************************************
+	public synchronized long getCreated() {
+		return created;
+	}
+
+	// ****************************************************
+	// Method: clear
+	//
+	// Purpose: Drops every idle tour.
+	// ****************************************************
+	public synchronized void clear() {
+		idleTours.clear();
+		idleSquares = 0;
+	}
+}
@@ -0,0 +1,50 @@
+//****************************************************
+//File: TourSolveEvent
+//
+//Purpose: Flight recorder event covering one solve of
+//		   a tour, from start to result.
+//****************************************************
+
+package thesecretsquad.Chess.KnightsTour;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("thesecretsquad.TourSolve")
+@Label("Tour Solve")
+@Category({ "Knight's Tour", "Solver" })
+@Description("A knight's tour solved from a start square")
+class TourSolveEvent extends Event {
+	@Label("Strategy")
+	String strategy; // Strategy used to solve
+
+	@Label("Tie Breaker")
+	String tieBreaker; // Rule for equally accessible moves
+
+	@Label("Board Size")
+	int boardSize; // Dimension of the board
+
+	@Label("Start Row")
+	int startRow; // Row the tour starts on
+
+	@Label("Start Column")
+	int startCol; // Column the tour starts on
+
+	@Label("Complete")
+	@Description("True if the tour visited every square")
+	boolean complete; // Result of the solve
+
+	@Label("Squares Visited")
+	int squaresVisited; // Squares the tour visited
+
+	@Label("Nodes")
+	@Description("Squares visited by a backtracking search, counting revisits")
+	long nodes; // Squares visited by a search, or 0
+
+	@Label("Backtracks")
+	@Description("Moves undone by a backtracking search")
+	long backtracks; // Moves undone by a search, or 0
+}
@@ -0,0 +1,217 @@
+//****************************************************
+//File: TourSweep
+//
+//Purpose: Plays the knight's tour from every start
+//		   square of a board in parallel on a
+//		   ForkJoinPool. The start squares are split
+//		   into a few ranges per worker thread, so a
+//		   thread that finishes early can steal more.
+//		   Each range takes a tour from a pool made
+//		   for the sweep, resets it between start
+//		   squares instead of reallocating it and
+//		   gives it back, so no tour outlives the
+//		   sweep.
+//
+//		   With symmetry reduction, only the canonical
+//		   start squares, about one in eight, are
+//		   played. Every other start square is given
+//		   the length of its canonical square's tour,
+//		   which rotated or reflected is a tour of the
+//		   same length from it, as a derived outcome.
+//		   That need not be the tour the knight would
+//		   play from the square itself, since the tie
+//		   breakers are not symmetric, so derived
+//		   outcomes are kept apart from played ones.
+//****************************************************
+
+package thesecretsquad.Chess.KnightsTour;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import thesecretsquad.Chess.BoardSymmetry;
+
+public class TourSweep {
+	private static final int TASKS_PER_THREAD = 4; // Ranges of start
+													// squares made for each
+													// worker thread
+
+	private final int boardSize; // Dimension of the board
+	private boolean symmetryReduction = false; // Flag: true if only canonical
+												// start squares are played
+
+	// ****************************************************
+	// Method: TourSweep
+	//
+	// Purpose: Constructor. Sets the board size to sweep.
+	// ****************************************************
+	public TourSweep(int dimension) {
+		boardSize = dimension;
+	}
+
+	// ****************************************************
+	// Method: setSymmetryReduction
+	//
+	// Purpose: Sets whether only canonical start squares
+	// are played.
+	// ****************************************************
+	public void setSymmetryReduction(boolean symmetryReduction) {
+		this.symmetryReduction = symmetryReduction;
+	}
+
+	// ****************************************************
+	// Method: sweep
+	//
+	// Purpose: Sweeps every start square on the common
+	// ForkJoinPool.
+	// ****************************************************
+	public SweepResult sweep() {
+		return sweep(ForkJoinPool.commonPool());
+	}
+
+	// ****************************************************
+	// Method: sweep
+	//
+	// Purpose: Sweeps every start square on the given
+	// pool and returns the results once every
+	// tour has finished.
+	// ****************************************************
+	public SweepResult sweep(ForkJoinPool pool) {
+		int numSquares = boardSize * boardSize, numStarts = 0;
+		int[] startSquares = new int[numSquares];
+		SweepResult result = new SweepResult(boardSize);
+		// A tour is only held while a range is played, so about one per
+		// thread is made
+		TourPool tourPool = new TourPool(pool.getParallelism(), Long.MAX_VALUE);
+		long startTime = System.nanoTime();
+
+		for (int square = 0; square < numSquares; square++) {
+			if (symmetryReduction == false
+					|| BoardSymmetry.isCanonical(boardSize, square / boardSize,
+							square % boardSize) == true) {
+				startSquares[numStarts++] = square;
+			}
+		}
+
+		pool.invoke(new SweepTask(result, tourPool, startSquares, 0,
+				numStarts, Math.max(1, numStarts
+						/ (pool.getParallelism() * TASKS_PER_THREAD))));
+		result.setWallClockNanos(System.nanoTime() - startTime);
+
+		return result;
+	}
+
+	// ****************************************************
+	// Method: playFrom
+	//
+	// Purpose: Plays a tour from one start square on the
+	// given tour and records it and, with
+	// symmetry reduction, its images.
+	// ****************************************************
+	private void playFrom(Tour tour, int startSquare, SweepResult result) {
+		long startTime = System.nanoTime();
+
+		tour.resetTour(startSquare / boardSize, startSquare % boardSize);
+		tour.solve();
+
+		result.record(startSquare, tour.getKnight().getMoveCounter(),
+				System.nanoTime() - startTime);
+
+		if (symmetryReduction == true) {
+			recordImages(startSquare, tour.getKnight().getMoveCounter(), result);
+		}
+	}
+
+	// ****************************************************
+	// Method: recordImages
+	//
+	// Purpose: Records a canonical square's outcome as
+	// the derived outcome of each of its other
+	// images.
+	// Squares on a diagonal or center line have
+	// fewer than eight distinct images.
+	// ****************************************************
+	private void recordImages(int startSquare, int moveCount,
+			SweepResult result) {
+		BoardSymmetry[] symmetries = BoardSymmetry.values();
+		int image;
+		boolean seen;
+
+		for (int symmetryNum = 1; symmetryNum < symmetries.length; symmetryNum++) {
+			image = symmetries[symmetryNum].transformSquare(startSquare,
+					boardSize);
+			seen = image == startSquare;
+
+			for (int earlier = 1; earlier < symmetryNum && seen == false; earlier++) {
+				seen = symmetries[earlier].transformSquare(startSquare,
+						boardSize) == image;
+			}
+
+			if (seen == false) {
+				result.recordDerived(image, moveCount);
+			}
+		}
+	}
+
+	// ****************************************************
+	// Class: SweepTask
+	//
+	// Purpose: Plays the tours for a range of start
+	// squares, splitting the range in half until
+	// it is small enough to run directly.
+	// ****************************************************
+	class SweepTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final SweepResult result; // Where outcomes are recorded
+		private final TourPool tourPool; // Tours shared by the sweep's tasks
+		private final int[] startSquares; // Start squares to play
+		private final int firstSquare; // First entry of startSquares in the
+										// range
+		private final int endSquare; // Entry just past the range
+		private final int leafSize; // Largest range run without splitting
+
+		// ****************************************************
+		// Method: SweepTask
+		//
+		// Purpose: Constructor. Sets the range of start
+		// squares.
+		// ****************************************************
+		SweepTask(SweepResult result, TourPool tourPool, int[] startSquares,
+				int firstSquare, int endSquare, int leafSize) {
+			this.result = result;
+			this.tourPool = tourPool;
+			this.startSquares = startSquares;
+			this.firstSquare = firstSquare;
+			this.endSquare = endSquare;
+			this.leafSize = leafSize;
+		}
+
+		// ****************************************************
+		// Method: compute
+		//
+		// Purpose: Runs the range on one tour from the
+		// pool, or splits it in half.
+		// ****************************************************
+		@Override
+		protected void compute() {
+			if (endSquare - firstSquare <= leafSize) {
+				Tour tour = tourPool.acquire(0, 0, boardSize);
+
+				try {
+					for (int entry = firstSquare; entry < endSquare; entry++) {
+						playFrom(tour, startSquares[entry], result);
+					}
+				} finally {
+					tourPool.release(tour);
+				}
+			} else {
+				int middle = (firstSquare + endSquare) >>> 1;
+
+				invokeAll(new SweepTask(result, tourPool, startSquares,
+						firstSquare, middle, leafSize), new SweepTask(result,
+						tourPool, startSquares, middle, endSquare, leafSize));
+			}
+		}
+	}
+}
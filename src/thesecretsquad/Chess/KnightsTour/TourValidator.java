@@ -0,0 +1,554 @@
+//****************************************************
+//File: TourValidator
+//
+//Purpose: Checks that a tour is legal in one pass
+//		   over its moves: every move is a knight move
+//		   that stays on the board, no square is
+//		   visited twice, every square is visited and,
+//		   if asked, the last square is a knight move
+//		   from the start. Visited squares are kept in
+//		   a bitset of one bit per square indexed by a
+//		   long, and nothing else is kept per move, so
+//		   tours of billions of squares are checked as
+//		   fast as they can be read.
+//
+//		   Moves are fed one at a time, as a move
+//		   listener or from an array, or read from a
+//		   file in either TourFormat. The first error
+//		   found is kept and later moves are only
+//		   counted. A file whose header gives a board
+//		   size that can not be checked is reported as
+//		   invalid in the same way, before anything is
+//		   allocated for the board.
+//****************************************************
+
+package thesecretsquad.Chess.KnightsTour;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.IntConsumer;
+
+import thesecretsquad.Chess.Knight;
+
+public class TourValidator implements IntConsumer {
+	public static final int BUFFER_SIZE = 1 << 20; // Bytes read from a file
+													// at a time
+
+	private final int boardSize; // Dimension of the board
+	private final long numSquares; // Number of squares on the board
+	private final long[] visited; // One bit per square, set once visited
+	private final int startRow; // Row the tour starts on
+	private final int startCol; // Column the tour starts on
+	// Row and column change of each knight move
+	private final int[] rowMoves = new int[Knight.NUM_ALLOWED_MOVES];
+	private final int[] colMoves = new int[Knight.NUM_ALLOWED_MOVES];
+	private boolean requireClosed = false; // Flag: true if the tour must end
+											// a knight move from the start
+	private int currentRow; // Row the knight is on
+	private int currentCol; // Column the knight is on
+	private long squaresVisited = 1; // Squares visited, counting the start
+	private long movesRead = 0; // Moves fed in, including any after an error
+	private String error; // First error found, or null
+	private boolean finished = false; // Flag: true once the end checks ran
+
+	// ****************************************************
+	// Method: TourValidator
+	//
+	// Purpose: Constructor. Places the knight on the start
+	// square of an empty board.
+	// ****************************************************
+	public TourValidator(int boardSize, int startRow, int startCol) {
+		Knight knight = new Knight();
+
+		this.boardSize = boardSize;
+		numSquares = (long) boardSize * boardSize;
+
+		if (isCheckable(boardSize) == false) {
+			throw new IllegalArgumentException("Invalid board size: "
+					+ boardSize);
+		}
+
+		visited = new long[(int) ((numSquares + 63) >>> 6)];
+		this.startRow = startRow;
+		this.startCol = startCol;
+		currentRow = startRow;
+		currentCol = startCol;
+
+		for (int moveNum = 0; moveNum < Knight.NUM_ALLOWED_MOVES; moveNum++) {
+			rowMoves[moveNum] = knight.getVerticalMoveValue(moveNum);
+			colMoves[moveNum] = knight.getHorizontalMoveValue(moveNum);
+		}
+
+		if (isOnBoard(startRow, startCol) == false) {
+			error = "start square " + startRow + " " + startCol
+					+ " is not on the board";
+		} else {
+			markVisited(toSquare(startRow, startCol));
+		}
+	}
+
+	// ****************************************************
+	// Method: TourValidator
+	//
+	// Purpose: Constructor. Makes a validator for a file
+	// that failed before any move could be
+	// checked, holding only the error.
+	// ****************************************************
+	private TourValidator(int boardSize, String error) {
+		this.boardSize = boardSize;
+		numSquares = (long) boardSize * boardSize;
+		visited = new long[0];
+		startRow = 0;
+		startCol = 0;
+		squaresVisited = 0;
+		this.error = error;
+	}
+
+	// ****************************************************
+	// Method: isCheckable
+	//
+	// Purpose: Returns true if a board of a size can be
+	// checked, which needs its bitset to fit in
+	// one array.
+	// ****************************************************
+	private static boolean isCheckable(int boardSize) {
+		return boardSize > 0
+				&& ((long) boardSize * boardSize + 63) >>> 6 <= Integer.MAX_VALUE - 8;
+	}
+
+	// ****************************************************
+	// Method: checkHeader
+	//
+	// Purpose: Returns the error for the board size in a
+	// file's header, or null if it can be
+	// checked. Missing moves are left to finish.
+	// ****************************************************
+	private static String checkHeader(int boardSize) {
+		if (isCheckable(boardSize) == false) {
+			return "header gives board size " + boardSize;
+		}
+
+		return null;
+	}
+
+	// ****************************************************
+	// Method: validate
+	//
+	// Purpose: Reads a tour file written by TourWriter in
+	// either format, checks it and returns the
+	// finished validator. The format is told by
+	// the magic number at the start of binary
+	// files.
+	// ****************************************************
+	public static TourValidator validate(Path file, boolean requireClosed)
+			throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).flip();
+		FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+
+		try {
+			TourValidator validator;
+
+			fill(channel, buffer);
+
+			if (buffer.remaining() >= TourWriter.HEADER_SIZE
+					&& buffer.getInt(0) == TourWriter.MAGIC) {
+				validator = readBinary(channel, buffer);
+			} else {
+				validator = readText(channel, buffer);
+			}
+
+			validator.setRequireClosed(requireClosed);
+			validator.finish();
+
+			return validator;
+		} finally {
+			channel.close();
+		}
+	}
+
+	// ****************************************************
+	// Method: fill
+	//
+	// Purpose: Moves any unread bytes to the front of the
+	// buffer, reads from the channel until the
+	// buffer is full or the file ends, and leaves
+	// the buffer ready to read. Returns false if
+	// nothing was left to read.
+	// ****************************************************
+	private static boolean fill(FileChannel channel, ByteBuffer buffer)
+			throws IOException {
+		int read = 0;
+
+		buffer.compact();
+
+		while (buffer.hasRemaining() && (read = channel.read(buffer)) >= 0) {
+			// Keep reading
+		}
+
+		buffer.flip();
+
+		return buffer.hasRemaining() || read >= 0;
+	}
+
+	// ****************************************************
+	// Method: readBinary
+	//
+	// Purpose: Checks the header of a binary file and
+	// feeds the validator one move per byte.
+	// ****************************************************
+	private static TourValidator readBinary(FileChannel channel,
+			ByteBuffer buffer) throws IOException {
+		TourValidator validator;
+		int version, boardSize;
+		long headerMoves;
+		String headerError;
+
+		buffer.getInt();
+		version = buffer.getInt();
+
+		if (version != TourWriter.VERSION) {
+			throw new IOException("Unsupported tour file version " + version);
+		}
+
+		boardSize = buffer.getInt();
+		headerError = checkHeader(boardSize);
+
+		if (headerError != null) {
+			return new TourValidator(boardSize, headerError);
+		}
+
+		validator = new TourValidator(boardSize, buffer.getInt(),
+				buffer.getInt());
+		headerMoves = buffer.getLong();
+
+		while (buffer.hasRemaining()) {
+			while (buffer.hasRemaining()) {
+				validator.accept(buffer.get());
+			}
+
+			fill(channel, buffer);
+		}
+
+		if (headerMoves != validator.movesRead) {
+			validator.fail("header gives " + headerMoves
+					+ " moves but the file holds " + validator.movesRead);
+		}
+
+		return validator;
+	}
+
+	// ****************************************************
+	// Method: readText
+	//
+	// Purpose: Reads the size line and the "row col" line
+	// of every square of a text file and feeds
+	// them to the validator.
+	// ****************************************************
+	private static TourValidator readText(FileChannel channel,
+			ByteBuffer buffer) throws IOException {
+		TourValidator validator;
+		int boardSize = toInt(readNumber(channel, buffer));
+		String headerError = checkHeader(boardSize);
+		long row;
+
+		if (headerError != null) {
+			return new TourValidator(boardSize, headerError);
+		}
+
+		validator = new TourValidator(boardSize, toInt(readNumber(channel,
+				buffer)), toInt(readNumber(channel, buffer)));
+
+		while ((row = readNumber(channel, buffer)) >= 0) {
+			long col = readNumber(channel, buffer);
+
+			if (col < 0) {
+				throw new EOFException("Tour file ends in the middle of a line");
+			}
+
+			validator.acceptSquare(toInt(row), toInt(col));
+		}
+
+		return validator;
+	}
+
+	// ****************************************************
+	// Method: readNumber
+	//
+	// Purpose: Skips whitespace and reads a number that is
+	// not negative from a text file, without
+	// creating a String. Returns -1 at the end of
+	// the file.
+	// ****************************************************
+	private static long readNumber(FileChannel channel, ByteBuffer buffer)
+			throws IOException {
+		long number = -1;
+		byte next;
+
+		while (buffer.hasRemaining() || fill(channel, buffer) == true) {
+			if (buffer.hasRemaining() == false) {
+				break;
+			}
+
+			next = buffer.get();
+
+			if (next >= '0' && next <= '9') {
+				number = (number < 0 ? 0 : number * 10) + (next - '0');
+
+				if (number > Integer.MAX_VALUE) {
+					throw new IOException("Number in tour file is too large");
+				}
+			} else if (next == ' ' || next == '\n' || next == '\r'
+					|| next == '\t') {
+				if (number >= 0) {
+					return number;
+				}
+			} else {
+				throw new IOException("Unexpected character '" + (char) next
+						+ "' in tour file");
+			}
+		}
+
+		return number;
+	}
+
+	// ****************************************************
+	// Method: toInt
+	//
+	// Purpose: Returns a number read from a text file,
+	// which must be there.
+	// ****************************************************
+	private static int toInt(long number) throws EOFException {
+		if (number < 0) {
+			throw new EOFException("Tour file ends before its header");
+		}
+
+		return (int) number;
+	}
+
+	// ****************************************************
+	// Method: setRequireClosed
+	//
+	// Purpose: Sets whether the tour must end a knight
+	// move from its start.
+	// ****************************************************
+	public void setRequireClosed(boolean requireClosed) {
+		this.requireClosed = requireClosed;
+	}
+
+	// ****************************************************
+	// Method: accept
+	//
+	// Purpose: Checks one knight move, given by its move
+	// number, and moves the knight.
+	// ****************************************************
+	@Override
+	public void accept(int moveNumber) {
+		movesRead++;
+
+		if (error != null) {
+			return;
+		}
+
+		if (moveNumber < 0 || moveNumber >= Knight.NUM_ALLOWED_MOVES) {
+			fail("move " + movesRead + " is not a knight move: "
+					+ moveNumber);
+			return;
+		}
+
+		visit(currentRow + rowMoves[moveNumber], currentCol
+				+ colMoves[moveNumber]);
+	}
+
+	// ****************************************************
+	// Method: accept
+	//
+	// Purpose: Checks every move of an array in turn.
+	// ****************************************************
+	public void accept(int[] moveNumbers) {
+		for (int moveNumber : moveNumbers) {
+			accept(moveNumber);
+		}
+	}
+
+	// ****************************************************
+	// Method: acceptSquare
+	//
+	// Purpose: Checks a move given by the square it lands
+	// on and moves the knight.
+	// ****************************************************
+	public void acceptSquare(int row, int col) {
+		int rowChange = Math.abs(row - currentRow), colChange = Math.abs(col
+				- currentCol);
+
+		movesRead++;
+
+		if (error != null) {
+			return;
+		}
+
+		if (rowChange + colChange != 3 || rowChange == 0 || colChange == 0) {
+			fail("move " + movesRead + " from " + currentRow + " "
+					+ currentCol + " to " + row + " " + col
+					+ " is not a knight move");
+			return;
+		}
+
+		visit(row, col);
+	}
+
+	// ****************************************************
+	// Method: visit
+	//
+	// Purpose: Checks the square a move lands on and
+	// marks it visited.
+	// ****************************************************
+	private void visit(int row, int col) {
+		long square;
+
+		if (isOnBoard(row, col) == false) {
+			fail("move " + movesRead + " leaves the board at " + row + " "
+					+ col);
+			return;
+		}
+
+		square = toSquare(row, col);
+
+		if ((visited[(int) (square >>> 6)] & (1L << square)) != 0) {
+			fail("move " + movesRead + " revisits square " + row + " " + col);
+			return;
+		}
+
+		markVisited(square);
+		squaresVisited++;
+		currentRow = row;
+		currentCol = col;
+	}
+
+	// ****************************************************
+	// Method: finish
+	//
+	// Purpose: Runs the checks that need the whole tour:
+	// every square visited and, if required, the
+	// tour closed. Returns true if the tour is
+	// legal. No more moves may be fed after this.
+	// ****************************************************
+	public boolean finish() {
+		if (finished == false) {
+			finished = true;
+
+			if (error == null && squaresVisited != numSquares) {
+				fail("tour visits " + squaresVisited + " of " + numSquares
+						+ " squares");
+			} else if (error == null && requireClosed == true
+					&& isClosed() == false) {
+				fail("tour ends on " + currentRow + " " + currentCol
+						+ ", not a knight move from the start");
+			}
+		}
+
+		return error == null;
+	}
+
+	// ****************************************************
+	// Method: isValid
+	//
+	// Purpose: Returns true if no error has been found.
+	// Only final once finish has been called.
+	// ****************************************************
+	public boolean isValid() {
+		return error == null;
+	}
+
+	// ****************************************************
+	// Method: isClosed
+	//
+	// Purpose: Returns true if the knight is a knight move
+	// from the start square.
+	// ****************************************************
+	public boolean isClosed() {
+		int rowChange = Math.abs(currentRow - startRow), colChange = Math
+				.abs(currentCol - startCol);
+
+		return rowChange + colChange == 3 && rowChange != 0 && colChange != 0;
+	}
+
+	// ****************************************************
+	// Method: getError
+	//
+	// Purpose: Returns the first error found, or null.
+	// ****************************************************
+	public String getError() {
+		return error;
+	}
+
+	// ****************************************************
+	// Method: getMovesRead
+	//
+	// Purpose: Returns the number of moves fed in.
+	// ****************************************************
+	public long getMovesRead() {
+		return movesRead;
+	}
+
+	// ****************************************************
+	// Method: getSquaresVisited
+	//
+	// Purpose: Returns the number of squares visited
+	// before any error, counting the start.
+	// ****************************************************
+	public long getSquaresVisited() {
+		return squaresVisited;
+	}
+
+	// ****************************************************
+	// Method: getBoardSize
+	//
+	// Purpose: Returns the dimension of the board.
+	// ****************************************************
+	public int getBoardSize() {
+		return boardSize;
+	}
+
+	// ****************************************************
+	// Method: fail
+	//
+	// Purpose: Records an error unless one was found
+	// before it.
+	// ****************************************************
+	private void fail(String message) {
+		if (error == null) {
+			error = message;
+		}
+	}
+
+	// ****************************************************
+	// Method: isOnBoard
+	//
+	// Purpose: Returns true if a square is on the board.
+	// ****************************************************
+	private boolean isOnBoard(int row, int col) {
+		return row >= 0 && row < boardSize && col >= 0 && col < boardSize;
+	}
+
+	// ****************************************************
+	// Method: toSquare
+	//
+	// Purpose: Returns the index of a square.
+	// ****************************************************
+	private long toSquare(int row, int col) {
+		return (long) row * boardSize + col;
+	}
+
+	// ****************************************************
+	// Method: markVisited
+	//
+	// Purpose: Sets a square's bit.
+	// ****************************************************
+	private void markVisited(long square) {
+		visited[(int) (square >>> 6)] |= 1L << square;
+	}
+}
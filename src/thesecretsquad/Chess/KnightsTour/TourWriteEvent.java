@@ -0,0 +1,39 @@
+//****************************************************
+//File: TourWriteEvent
+//
+//Purpose: Flight recorder event covering one write of
+//		   buffered moves by a TourWriter, or the
+//		   force to disk when it is closed. Tour cache
+//		   files are written through TourWriter, so
+//		   their writes are covered too.
+//****************************************************
+
+package thesecretsquad.Chess.KnightsTour;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("thesecretsquad.TourWrite")
+@Label("Tour File Write")
+@Category({ "Knight's Tour", "I/O" })
+@Description("Moves written to a tour file, or the file forced to disk")
+class TourWriteEvent extends Event {
+	@Label("Path")
+	String path; // File written to
+
+	@Label("Bytes Written")
+	@DataAmount
+	long bytes; // Bytes written, 0 for a force
+
+	@Label("Moves")
+	@Description("Moves written to the file so far")
+	long moves; // Moves in the file after the write
+
+	@Label("Forced")
+	@Description("True if the file was forced to disk")
+	boolean forced; // Flag: true for the force on close
+}
@@ -0,0 +1,309 @@
+//****************************************************
+//File: TourWriter
+//
+//Purpose: Writes a tour to a file one move at a time,
+//		   as the moves are made, so the printed board
+//		   is never held in memory. Moves are batched
+//		   in a direct buffer and written through a
+//		   FileChannel whenever the buffer fills or
+//		   the flush interval is reached.
+//
+//		   Binary files start with a header of
+//		   HEADER_SIZE bytes, big-endian:
+//		     int  MAGIC
+//		     int  VERSION
+//		     int  board size
+//		     int  start row
+//		     int  start column
+//		     long number of moves, filled in on close
+//		   followed by one byte per move. Text files are
+//		   described in TourFormat.
+//****************************************************
+
+package thesecretsquad.Chess.KnightsTour;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.IntConsumer;
+
+import jdk.jfr.FlightRecorder;
+
+import thesecretsquad.Chess.Knight;
+
+public class TourWriter implements IntConsumer, Closeable {
+	public static final int MAGIC = 0x4B545231; // "KTR1"
+	public static final int VERSION = 1; // Binary format version
+	public static final int HEADER_SIZE = 28; // Bytes before the first move
+	public static final int DEFAULT_BUFFER_SIZE = 1 << 20; // Bytes batched
+															// per write
+	private static final int MOVE_COUNT_OFFSET = 20; // Position of the move
+														// count in the header
+	private static final int MAX_TEXT_LINE = 24; // Longest "row col" line
+
+	private final Path file; // Path of the file the tour is written to
+	private final FileChannel channel; // File the tour is written to
+	private final ByteBuffer buffer; // Moves not yet written to the channel
+	private final TourFormat format; // Encoding of the file
+	private final Knight knight; // Tracks the square each move lands on
+	private long flushInterval = 0; // Moves between flushes, or 0 to flush
+									// only when the buffer is full
+	private long movesSinceFlush; // Moves buffered since the last flush
+	private long moveCount; // Moves written so far
+	private boolean closed = false; // Flag: true once close has been called
+
+	// ****************************************************
+	// Method: TourWriter
+	//
+	// Purpose: Constructor. Creates or truncates the file
+	// and writes the header or first line, using
+	// a buffer of DEFAULT_BUFFER_SIZE bytes.
+	// ****************************************************
+	public TourWriter(Path file, TourFormat format, int boardSize,
+			int startRow, int startCol) throws IOException {
+		this(file, format, boardSize, startRow, startCol, DEFAULT_BUFFER_SIZE);
+	}
+
+	// ****************************************************
+	// Method: TourWriter
+	//
+	// Purpose: Constructor. Creates or truncates the file
+	// and writes the header or first line, using
+	// a buffer of the given size.
+	// ****************************************************
+	public TourWriter(Path file, TourFormat format, int boardSize,
+			int startRow, int startCol, int bufferSize) throws IOException {
+		if (bufferSize < MAX_TEXT_LINE * 2) {
+			throw new IllegalArgumentException("Buffer of " + bufferSize
+					+ " bytes is too small");
+		}
+
+		this.file = file;
+		this.format = format;
+		knight = new Knight(startRow, startCol);
+		buffer = ByteBuffer.allocateDirect(bufferSize);
+		channel = FileChannel.open(file, StandardOpenOption.CREATE,
+				StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+
+		if (format == TourFormat.BINARY) {
+			buffer.putInt(MAGIC).putInt(VERSION).putInt(boardSize)
+					.putInt(startRow).putInt(startCol).putLong(0);
+		} else {
+			putNumber(boardSize);
+			buffer.put((byte) '\n');
+			putSquare(startRow, startCol);
+		}
+	}
+
+	// ****************************************************
+	// Method: setFlushInterval
+	//
+	// Purpose: Sets how many moves may be buffered before
+	// they are written to the file. A crash then
+	// loses at most that many moves. 0 writes
+	// only when the buffer is full.
+	// ****************************************************
+	public void setFlushInterval(long flushInterval) {
+		this.flushInterval = flushInterval;
+	}
+
+	// ****************************************************
+	// Method: getMoveCount
+	//
+	// Purpose: Returns the number of moves written so far.
+	// ****************************************************
+	public long getMoveCount() {
+		return moveCount;
+	}
+
+	// ****************************************************
+	// Method: accept
+	//
+	// Purpose: Writes one knight move. I/O errors are
+	// rethrown unchecked, since move listeners
+	// can not throw checked exceptions.
+	// ****************************************************
+	@Override
+	public void accept(int moveNumber) {
+		try {
+			writeMove(moveNumber);
+		} catch (IOException ioException) {
+			throw new UncheckedIOException(ioException);
+		}
+	}
+
+	// ****************************************************
+	// Method: writeMove
+	//
+	// Purpose: Buffers one knight move, writing the buffer
+	// out when it is full or the flush interval
+	// has been reached.
+	// ****************************************************
+	public void writeMove(int moveNumber) throws IOException {
+		if (closed == true) {
+			throw new IOException("Tour writer is closed");
+		}
+
+		if (moveNumber < 0 || moveNumber >= Knight.NUM_ALLOWED_MOVES) {
+			throw new IllegalArgumentException("Invalid move: " + moveNumber);
+		}
+
+		if (buffer.remaining() < MAX_TEXT_LINE) {
+			drainBuffer();
+		}
+
+		if (format == TourFormat.BINARY) {
+			buffer.put((byte) moveNumber);
+		} else {
+			knight.move(moveNumber);
+			putSquare(knight.getCurrentRow(), knight.getCurrentCol());
+		}
+
+		moveCount++;
+
+		if (flushInterval > 0 && ++movesSinceFlush >= flushInterval) {
+			flush();
+		}
+	}
+
+	// ****************************************************
+	// Method: flush
+	//
+	// Purpose: Writes every buffered move to the file.
+	// ****************************************************
+	public void flush() throws IOException {
+		drainBuffer();
+		movesSinceFlush = 0;
+	}
+
+	// ****************************************************
+	// Method: close
+	//
+	// Purpose: Writes the remaining moves, fills in the
+	// move count of a binary header, forces the
+	// file to disk and closes it.
+	// ****************************************************
+	@Override
+	public void close() throws IOException {
+		TourWriteEvent event;
+
+		if (closed == true) {
+			return;
+		}
+
+		closed = true;
+
+		try {
+			drainBuffer();
+
+			if (format == TourFormat.BINARY) {
+				buffer.putLong(moveCount).flip();
+
+				while (buffer.hasRemaining()) {
+					channel.write(buffer, MOVE_COUNT_OFFSET + buffer.position());
+				}
+			}
+
+			event = beginWriteEvent();
+			channel.force(false);
+			commitWriteEvent(event, 0, true);
+		} finally {
+			channel.close();
+		}
+	}
+
+	// ****************************************************
+	// Method: drainBuffer
+	//
+	// Purpose: Writes the buffer to the channel and
+	// empties it.
+	// ****************************************************
+	private void drainBuffer() throws IOException {
+		TourWriteEvent event = beginWriteEvent();
+		int bytes;
+
+		buffer.flip();
+		bytes = buffer.remaining();
+
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+
+		buffer.clear();
+		commitWriteEvent(event, bytes, false);
+	}
+
+	// ****************************************************
+	// Method: beginWriteEvent
+	//
+	// Purpose: Starts timing a write for the flight
+	// recorder, or returns null if it has never
+	// been started, so the recorder is not
+	// started up by making an event.
+	// ****************************************************
+	private static TourWriteEvent beginWriteEvent() {
+		TourWriteEvent event;
+
+		if (FlightRecorder.isInitialized() == false) {
+			return null;
+		}
+
+		event = new TourWriteEvent();
+		event.begin();
+
+		return event;
+	}
+
+	// ****************************************************
+	// Method: commitWriteEvent
+	//
+	// Purpose: Emits the flight recorder event for a
+	// write or force, if a recording wants it.
+	// ****************************************************
+	private void commitWriteEvent(TourWriteEvent event, long bytes,
+			boolean forced) {
+		if (event != null && event.shouldCommit() == true) {
+			event.path = file.toString();
+			event.bytes = bytes;
+			event.moves = moveCount;
+			event.forced = forced;
+			event.commit();
+		}
+	}
+
+	// ****************************************************
+	// Method: putSquare
+	//
+	// Purpose: Buffers a "row col" text line.
+	// ****************************************************
+	private void putSquare(int row, int col) {
+		putNumber(row);
+		buffer.put((byte) ' ');
+		putNumber(col);
+		buffer.put((byte) '\n');
+	}
+
+	// ****************************************************
+	// Method: putNumber
+	//
+	// Purpose: Buffers the decimal digits of a number
+	// that is not negative, without creating a
+	// String.
+	// ****************************************************
+	private void putNumber(int number) {
+		int divisor = 1;
+
+		while (number / divisor >= 10) {
+			divisor *= 10;
+		}
+
+		while (divisor > 0) {
+			buffer.put((byte) ('0' + number / divisor % 10));
+			divisor /= 10;
+		}
+	}
+}
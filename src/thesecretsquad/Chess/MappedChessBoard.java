@@ -0,0 +1,288 @@
+//****************************************************
+//File: MappedChessBoard
+//
+//Purpose: Chess board kept outside the Java heap in
+//		   memory-mapped files, for boards whose number
+//		   of squares does not fit in an int. Squares
+//		   are numbered row * size + col as a long,
+//		   and move numbers are longs.
+//
+//		   Each square takes one byte: the top bit is
+//		   set once it is visited and the low four bits
+//		   count its visited neighbors. Accessibility
+//		   is worked out from that count and the
+//		   square's position, so a new file needs no
+//		   setup pass and only the pages the knight
+//		   reaches are ever written. Move numbers, if
+//		   recorded, take another eight bytes per
+//		   square in a second file.
+//
+//		   The files are temporary: they are deleted
+//		   when the board is closed.
+//****************************************************
+
+package thesecretsquad.Chess;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+public class MappedChessBoard implements Closeable {
+	private static final int CHUNK_SHIFT = 30; // Each mapping covers 1 GiB
+	private static final long CHUNK_MASK = (1L << CHUNK_SHIFT) - 1;
+	private static final byte VISITED_BIT = (byte) 0x80; // Set on visited
+															// squares
+	private static final int LOST_MASK = 0x0F; // Bits counting visited
+												// neighbors
+
+	private final int boardSize; // Dimension of the board
+	private final long numSquares; // Number of squares on the board
+	private final FileChannel squareChannel; // File of square state bytes
+	private final MappedByteBuffer[] squareChunks; // Mappings of that file
+	private final FileChannel moveChannel; // File of move numbers, or null
+	private final MappedByteBuffer[] moveChunks; // Mappings of that file, or
+													// null
+
+	// ************************************************
+	// Method: MappedChessBoard(int, Path, boolean)
+	//
+	// Purpose: Constructor. Creates the board's files in
+	// a directory and maps them. Move numbers
+	// are only kept if recordMoveNumbers is
+	// true; a tour streamed to a TourWriter
+	// does not need them.
+	// ************************************************
+	public MappedChessBoard(int dimension, Path directory,
+			boolean recordMoveNumbers) throws IOException {
+		boardSize = dimension;
+		numSquares = (long) dimension * dimension;
+		squareChannel = openFile(directory, "squares");
+		squareChunks = map(squareChannel, numSquares);
+
+		if (recordMoveNumbers == true) {
+			moveChannel = openFile(directory, "moves");
+			moveChunks = map(moveChannel, numSquares * Long.BYTES);
+		} else {
+			moveChannel = null;
+			moveChunks = null;
+		}
+	}
+
+	// ************************************************
+	// Method: openFile(Path, String)
+	//
+	// Purpose: Creates a sparse temporary file that is
+	// deleted when its channel is closed.
+	// ************************************************
+	private static FileChannel openFile(Path directory, String prefix)
+			throws IOException {
+		Path file = Files.createTempFile(directory, prefix, ".board");
+
+		return FileChannel.open(file, StandardOpenOption.READ,
+				StandardOpenOption.WRITE, StandardOpenOption.SPARSE,
+				StandardOpenOption.DELETE_ON_CLOSE);
+	}
+
+	// ************************************************
+	// Method: map(FileChannel, long)
+	//
+	// Purpose: Maps a file of the given length in 1 GiB
+	// chunks, since a single mapping can not
+	// pass 2 GiB.
+	// ************************************************
+	private static MappedByteBuffer[] map(FileChannel channel, long length)
+			throws IOException {
+		MappedByteBuffer[] chunks = new MappedByteBuffer[(int) ((length + CHUNK_MASK) >>> CHUNK_SHIFT)];
+		long position;
+
+		for (int chunk = 0; chunk < chunks.length; chunk++) {
+			position = (long) chunk << CHUNK_SHIFT;
+			chunks[chunk] = channel.map(FileChannel.MapMode.READ_WRITE,
+					position, Math.min(CHUNK_MASK + 1, length - position));
+		}
+
+		return chunks;
+	}
+
+	// ************************************************
+	// Method: getBoardSize()
+	//
+	// Purpose: Returns the dimension of the board.
+	// ************************************************
+	public int getBoardSize() {
+		return boardSize;
+	}
+
+	// ************************************************
+	// Method: getNumSquares()
+	//
+	// Purpose: Returns the number of squares on the
+	// board.
+	// ************************************************
+	public long getNumSquares() {
+		return numSquares;
+	}
+
+	// ************************************************
+	// Method: isRecordingMoveNumbers()
+	//
+	// Purpose: Returns true if the board keeps the move
+	// number of every square.
+	// ************************************************
+	public boolean isRecordingMoveNumbers() {
+		return moveChunks != null;
+	}
+
+	// ************************************************
+	// Method: toSquare(int, int)
+	//
+	// Purpose: Returns the index of a square.
+	// ************************************************
+	public long toSquare(int row, int col) {
+		return (long) row * boardSize + col;
+	}
+
+	// ************************************************
+	// Method: getState(long)
+	//
+	// Purpose: Returns the state byte of a square.
+	// ************************************************
+	private byte getState(long square) {
+		return squareChunks[(int) (square >>> CHUNK_SHIFT)]
+				.get((int) (square & CHUNK_MASK));
+	}
+
+	// ************************************************
+	// Method: setState(long, byte)
+	//
+	// Purpose: Stores the state byte of a square.
+	// ************************************************
+	private void setState(long square, byte state) {
+		squareChunks[(int) (square >>> CHUNK_SHIFT)].put(
+				(int) (square & CHUNK_MASK), state);
+	}
+
+	// ************************************************
+	// Method: isSquareVisited(long)
+	//
+	// Purpose: Returns true if a square is visited.
+	// ************************************************
+	public boolean isSquareVisited(long square) {
+		return (getState(square) & VISITED_BIT) != 0;
+	}
+
+	// ************************************************
+	// Method: getSquareAccessibility(long)
+	//
+	// Purpose: Returns the number of on-board knight
+	// moves from a square that have not been
+	// used up by visited neighbors.
+	// ************************************************
+	public int getSquareAccessibility(long square) {
+		return getDegree(square) - (getState(square) & LOST_MASK);
+	}
+
+	// ************************************************
+	// Method: decrSquareAccessibility(long)
+	//
+	// Purpose: Lowers the accessibility of a square by
+	// one.
+	// ************************************************
+	public void decrSquareAccessibility(long square) {
+		setState(square, (byte) (getState(square) + 1));
+	}
+
+	// ************************************************
+	// Method: getDegree(long)
+	//
+	// Purpose: Returns the number of on-board knight
+	// moves from a square.
+	// ************************************************
+	public int getDegree(long square) {
+		int row = (int) (square / boardSize), col = (int) (square % boardSize), degree = 0, testRow, testCol;
+
+		for (int moveNum = 0; moveNum < Knight.NUM_ALLOWED_MOVES; moveNum++) {
+			testRow = row + Knight.VERTICAL_MOVES[moveNum];
+			testCol = col + Knight.HORIZONTAL_MOVES[moveNum];
+
+			if (testRow >= 0 && testRow < boardSize && testCol >= 0
+					&& testCol < boardSize) {
+				degree++;
+			}
+		}
+
+		return degree;
+	}
+
+	// ************************************************
+	// Method: getDistanceFromCenter(long)
+	//
+	// Purpose: Returns four times the squared distance
+	// of a square from the center of the board.
+	// ************************************************
+	public long getDistanceFromCenter(long square) {
+		long rowDistance = 2 * (square / boardSize) - (boardSize - 1), colDistance = 2
+				* (square % boardSize) - (boardSize - 1);
+
+		return rowDistance * rowDistance + colDistance * colDistance;
+	}
+
+	// ************************************************
+	// Method: markBoardSquare(long, long)
+	//
+	// Purpose: Marks a square visited and, if the board
+	// records them, stores its move number.
+	// ************************************************
+	public void markBoardSquare(long square, long moveNumber) {
+		setState(square, (byte) (getState(square) | VISITED_BIT));
+
+		if (moveChunks != null) {
+			long position = square * Long.BYTES;
+
+			moveChunks[(int) (position >>> CHUNK_SHIFT)].putLong(
+					(int) (position & CHUNK_MASK), moveNumber);
+		}
+	}
+
+	// ************************************************
+	// Method: getSquareMoveNumber(long)
+	//
+	// Purpose: Returns the move number of a square, or 0
+	// if it is unvisited. Only boards that record
+	// move numbers can answer.
+	// ************************************************
+	public long getSquareMoveNumber(long square) {
+		long position = square * Long.BYTES;
+
+		if (moveChunks == null) {
+			throw new IllegalStateException(
+					"Board does not record move numbers");
+		}
+
+		return moveChunks[(int) (position >>> CHUNK_SHIFT)]
+				.getLong((int) (position & CHUNK_MASK));
+	}
+
+	// ************************************************
+	// Method: close()
+	//
+	// Purpose: Closes and deletes the board's files. The
+	// memory stays mapped until the board is
+	// garbage collected, and must not be used
+	// after this.
+	// ************************************************
+	@Override
+	public void close() throws IOException {
+		try {
+			squareChannel.close();
+		} finally {
+			if (moveChannel != null) {
+				moveChannel.close();
+			}
+		}
+	}
+}
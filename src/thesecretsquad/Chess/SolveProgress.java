@@ -0,0 +1,155 @@
+//****************************************************
+//File: SolveProgress
+//
+//Purpose: How far a running solve has got, for the
+//		   flight recorder. While a recording has
+//		   SolveProgressEvent enabled, every long solve
+//		   that starts keeps one of these up to date
+//		   and the recorder reads them all once per
+//		   period, emitting one event per solve with
+//		   its depth and nodes per second.
+//
+//		   Nothing is registered with the flight
+//		   recorder until it has been started, since
+//		   registering a periodic event starts it up.
+//		   Without a recording, start returns null and
+//		   the solve keeps no progress at all.
+//****************************************************
+
+package thesecretsquad.Chess;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import jdk.jfr.FlightRecorder;
+
+public final class SolveProgress {
+	public static final String STRATEGY_GREEDY = "greedy"; // Greedy rule on
+															// the board
+	public static final String STRATEGY_BITBOARD = "bitboard"; // Greedy rule
+																// on bitboards
+	public static final String STRATEGY_BACKTRACKING = "backtracking"; // Backtracking
+																		// search
+	public static final String STRATEGY_CLOSED = "closed"; // Closed tour
+															// construction
+	public static final int UPDATE_MASK = 4095; // Solvers update progress
+												// once every UPDATE_MASK + 1
+												// nodes
+
+	// Solves being watched
+	private static final Set<SolveProgress> running = ConcurrentHashMap
+			.newKeySet();
+	private static boolean hookAdded = false; // Flag: true once the periodic
+												// event is registered
+
+	private final String strategy; // Strategy of the solve
+	private final int boardSize; // Dimension of the board being solved
+	private volatile int depth; // Squares on the current path
+	private volatile long nodes; // Squares visited so far
+	private long lastNodes; // Nodes at the last event
+	private long lastTime; // Time of the last event, in nanoseconds
+
+	// ************************************************
+	// Method: SolveProgress(String, int)
+	//
+	// Purpose: Constructor.
+	// ************************************************
+	private SolveProgress(String strategy, int boardSize) {
+		this.strategy = strategy;
+		this.boardSize = boardSize;
+		lastTime = System.nanoTime();
+	}
+
+	// ************************************************
+	// Method: start(String, int)
+	//
+	// Purpose: Starts watching a solve if a recording
+	// wants progress events, and returns its
+	// progress, or null if it is not watched.
+	// The solver must call finish when done.
+	// ************************************************
+	public static SolveProgress start(String strategy, int boardSize) {
+		SolveProgress progress;
+
+		if (FlightRecorder.isInitialized() == false) {
+			return null;
+		}
+
+		addHook();
+
+		if (new SolveProgressEvent().isEnabled() == false) {
+			return null;
+		}
+
+		progress = new SolveProgress(strategy, boardSize);
+		running.add(progress);
+
+		return progress;
+	}
+
+	// ************************************************
+	// Method: addHook()
+	//
+	// Purpose: Registers the periodic event the first
+	// time it is needed.
+	// ************************************************
+	private static synchronized void addHook() {
+		if (hookAdded == true) {
+			return;
+		}
+
+		hookAdded = true;
+		FlightRecorder.addPeriodicEvent(SolveProgressEvent.class,
+				new Runnable() {
+					@Override
+					public void run() {
+						for (SolveProgress progress : running) {
+							progress.emit();
+						}
+					}
+				});
+	}
+
+	// ************************************************
+	// Method: update(int, long)
+	//
+	// Purpose: Records the current depth and the number
+	// of squares visited so far.
+	// ************************************************
+	public void update(int depth, long nodes) {
+		this.depth = depth;
+		this.nodes = nodes;
+	}
+
+	// ************************************************
+	// Method: finish()
+	//
+	// Purpose: Stops watching the solve.
+	// ************************************************
+	public void finish() {
+		running.remove(this);
+	}
+
+	// ************************************************
+	// Method: emit()
+	//
+	// Purpose: Emits a progress event for the solve,
+	// with the rate since the last one. Only
+	// called by the recorder's periodic task.
+	// ************************************************
+	private void emit() {
+		SolveProgressEvent event = new SolveProgressEvent();
+		long now = System.nanoTime(), currentNodes = nodes;
+
+		event.strategy = strategy;
+		event.boardSize = boardSize;
+		event.depth = depth;
+		event.nodes = currentNodes;
+		event.nodesPerSecond = now > lastTime ? (currentNodes - lastNodes)
+				* 1e9 / (now - lastTime) : 0;
+		event.commit();
+
+		lastNodes = currentNodes;
+		lastTime = now;
+	}
+}
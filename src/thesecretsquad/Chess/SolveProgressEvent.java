@@ -0,0 +1,43 @@
+//****************************************************
+//File: SolveProgressEvent
+//
+//Purpose: Flight recorder event emitted once per
+//		   period for every solve being watched by
+//		   SolveProgress.
+//****************************************************
+
+package thesecretsquad.Chess;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Period;
+import jdk.jfr.StackTrace;
+
+@Name("thesecretsquad.SolveProgress")
+@Label("Solve Progress")
+@Category({ "Knight's Tour", "Solver" })
+@Description("Depth and speed of a running solve")
+@Period("1 s")
+@StackTrace(false)
+class SolveProgressEvent extends Event {
+	@Label("Strategy")
+	String strategy; // Strategy of the solve
+
+	@Label("Board Size")
+	int boardSize; // Dimension of the board
+
+	@Label("Depth")
+	@Description("Squares on the current path")
+	int depth; // Squares on the current path
+
+	@Label("Nodes")
+	@Description("Squares visited so far, counting revisits")
+	long nodes; // Squares visited so far
+
+	@Label("Nodes per Second")
+	@Description("Squares visited per second since the last event")
+	double nodesPerSecond; // Rate since the last event
+}
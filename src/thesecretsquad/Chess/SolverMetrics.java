@@ -0,0 +1,623 @@
+//****************************************************
+//File: SolverMetrics
+//
+//Purpose: Counters and histograms of the work done by
+//		   the solvers, shared by every thread: solves
+//		   and their moves, time per solve by board
+//		   size, dead ends, backtracks, nodes expanded
+//		   and the size of the ties the greedy rule
+//		   breaks.
+//
+//		   Metrics are off until setEnabled(true). A
+//		   solver reads the flag once per solve and,
+//		   while metrics are off, does no counting at
+//		   all. While they are on, it counts into its
+//		   own plain fields and adds them here once at
+//		   the end of the solve, into LongAdders, so
+//		   threads never wait on each other.
+//
+//		   The counts are read by taking a snapshot,
+//		   or through JMX once registerMBean is called.
+//****************************************************
+
+package thesecretsquad.Chess;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+public final class SolverMetrics implements SolverMetricsMBean {
+	// Name the metrics are registered under with JMX
+	public static final String OBJECT_NAME = "thesecretsquad.Chess:type=SolverMetrics";
+	public static final int TIME_BUCKETS = 64; // Solve time buckets, one per
+												// power of two nanoseconds
+
+	private static final SolverMetrics instance = new SolverMetrics();
+	private static volatile boolean enabled = false; // Flag: true if solvers
+														// record metrics
+
+	private final LongAdder solves = new LongAdder(); // Solves recorded
+	private final LongAdder completeSolves = new LongAdder(); // Solves that
+																// visited
+																// every square
+	private final LongAdder moves = new LongAdder(); // Knight moves made
+	private final LongAdder solveNanos = new LongAdder(); // Time spent solving
+	private final LongAdder deadEnds = new LongAdder(); // Positions with no
+														// way on
+	private final LongAdder backtracks = new LongAdder(); // Moves undone
+	private final LongAdder nodesExpanded = new LongAdder(); // Squares
+																// visited by
+																// searches
+	// Moves chosen from a tie of each size, 1 for no tie
+	private final LongAdder[] tieSizes = createAdders(Knight.NUM_ALLOWED_MOVES + 1);
+	// Solve counts and times of each board size
+	private final ConcurrentHashMap<Integer, SizeTimes> timesBySize = new ConcurrentHashMap<Integer, SizeTimes>();
+
+	// ************************************************
+	// Method: SolverMetrics()
+	//
+	// Purpose: Constructor. There is only one set of
+	// metrics.
+	// ************************************************
+	private SolverMetrics() {
+	}
+
+	// ************************************************
+	// Method: getInstance()
+	//
+	// Purpose: Returns the metrics.
+	// ************************************************
+	public static SolverMetrics getInstance() {
+		return instance;
+	}
+
+	// ************************************************
+	// Method: isEnabled()
+	//
+	// Purpose: Returns true if solvers record metrics.
+	// Solvers read this once per solve.
+	// ************************************************
+	public static boolean isEnabled() {
+		return enabled;
+	}
+
+	// ************************************************
+	// Method: registerMBean()
+	//
+	// Purpose: Registers the metrics with the platform
+	// MBean server under OBJECT_NAME, unless
+	// they already are.
+	// ************************************************
+	public static void registerMBean() throws JMException {
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		ObjectName name = new ObjectName(OBJECT_NAME);
+
+		synchronized (SolverMetrics.class) {
+			if (server.isRegistered(name) == false) {
+				server.registerMBean(instance, name);
+			}
+		}
+	}
+
+	// ************************************************
+	// Method: createAdders(int)
+	//
+	// Purpose: Returns an array of new counters.
+	// ************************************************
+	private static LongAdder[] createAdders(int count) {
+		LongAdder[] adders = new LongAdder[count];
+
+		for (int index = 0; index < count; index++) {
+			adders[index] = new LongAdder();
+		}
+
+		return adders;
+	}
+
+	// ************************************************
+	// Method: sumAll(LongAdder[])
+	//
+	// Purpose: Returns the current value of every
+	// counter in an array.
+	// ************************************************
+	private static long[] sumAll(LongAdder[] adders) {
+		long[] sums = new long[adders.length];
+
+		for (int index = 0; index < adders.length; index++) {
+			sums[index] = adders[index].sum();
+		}
+
+		return sums;
+	}
+
+	// ************************************************
+	// Method: setEnabled(boolean)
+	//
+	// Purpose: Turns recording on or off. Solves already
+	// running keep the setting they started
+	// with.
+	// ************************************************
+	@Override
+	public void setEnabled(boolean enabled) {
+		SolverMetrics.enabled = enabled;
+	}
+
+	// ************************************************
+	// Method: getEnabled()
+	//
+	// Purpose: Returns true if solvers record metrics,
+	// for JMX.
+	// ************************************************
+	@Override
+	public boolean getEnabled() {
+		return enabled;
+	}
+
+	// ************************************************
+	// Method: recordSolve(int, long, boolean, long)
+	//
+	// Purpose: Records a finished solve: the board size,
+	// the moves it made, whether every square
+	// was visited and how long it took.
+	// ************************************************
+	public void recordSolve(int boardSize, long movesMade, boolean complete,
+			long nanos) {
+		SizeTimes times = timesBySize.get(boardSize), existing;
+
+		solves.increment();
+		moves.add(movesMade);
+		solveNanos.add(nanos);
+
+		if (complete == true) {
+			completeSolves.increment();
+		}
+
+		if (times == null) {
+			times = new SizeTimes();
+			existing = timesBySize.putIfAbsent(boardSize, times);
+
+			if (existing != null) {
+				times = existing;
+			}
+		}
+
+		times.record(nanos);
+	}
+
+	// ************************************************
+	// Method: recordSearch(long, long, long)
+	//
+	// Purpose: Records the work of a search: squares
+	// visited, moves undone and positions left
+	// with no way on.
+	// ************************************************
+	public void recordSearch(long nodes, long movesUndone, long deadEndsFound) {
+		nodesExpanded.add(nodes);
+		backtracks.add(movesUndone);
+		deadEnds.add(deadEndsFound);
+	}
+
+	// ************************************************
+	// Method: recordTieSizes(int[])
+	//
+	// Purpose: Adds counts of moves chosen from ties of
+	// each size, indexed by the size.
+	// ************************************************
+	public void recordTieSizes(int[] counts) {
+		for (int size = 1; size < counts.length && size < tieSizes.length; size++) {
+			if (counts[size] != 0) {
+				tieSizes[size].add(counts[size]);
+			}
+		}
+	}
+
+	// ************************************************
+	// Method: snapshot()
+	//
+	// Purpose: Returns the counts as they are now. Counts
+	// added while the snapshot is taken may or
+	// may not be in it.
+	// ************************************************
+	public Snapshot snapshot() {
+		return new Snapshot(this);
+	}
+
+	// ************************************************
+	// Method: reset()
+	//
+	// Purpose: Sets every count back to zero.
+	// ************************************************
+	@Override
+	public void reset() {
+		solves.reset();
+		completeSolves.reset();
+		moves.reset();
+		solveNanos.reset();
+		deadEnds.reset();
+		backtracks.reset();
+		nodesExpanded.reset();
+
+		for (LongAdder adder : tieSizes) {
+			adder.reset();
+		}
+
+		timesBySize.clear();
+	}
+
+	// ************************************************
+	// Method: getSolves()
+	//
+	// Purpose: Returns the number of solves recorded.
+	// ************************************************
+	@Override
+	public long getSolves() {
+		return solves.sum();
+	}
+
+	// ************************************************
+	// Method: getCompleteSolves()
+	//
+	// Purpose: Returns the number of solves that visited
+	// every square.
+	// ************************************************
+	@Override
+	public long getCompleteSolves() {
+		return completeSolves.sum();
+	}
+
+	// ************************************************
+	// Method: getMoves()
+	//
+	// Purpose: Returns the number of knight moves made.
+	// ************************************************
+	@Override
+	public long getMoves() {
+		return moves.sum();
+	}
+
+	// ************************************************
+	// Method: getMovesPerSecond()
+	//
+	// Purpose: Returns the moves made per second spent
+	// solving.
+	// ************************************************
+	@Override
+	public double getMovesPerSecond() {
+		long nanos = solveNanos.sum();
+
+		return nanos == 0 ? 0 : moves.sum() * 1e9 / nanos;
+	}
+
+	// ************************************************
+	// Method: getDeadEnds()
+	//
+	// Purpose: Returns the number of positions found
+	// with no way on.
+	// ************************************************
+	@Override
+	public long getDeadEnds() {
+		return deadEnds.sum();
+	}
+
+	// ************************************************
+	// Method: getBacktracks()
+	//
+	// Purpose: Returns the number of moves undone.
+	// ************************************************
+	@Override
+	public long getBacktracks() {
+		return backtracks.sum();
+	}
+
+	// ************************************************
+	// Method: getNodesExpanded()
+	//
+	// Purpose: Returns the number of squares visited by
+	// searches.
+	// ************************************************
+	@Override
+	public long getNodesExpanded() {
+		return nodesExpanded.sum();
+	}
+
+	// ************************************************
+	// Method: getTieSizes()
+	//
+	// Purpose: Returns the number of moves chosen from a
+	// tie of each size, indexed by the size.
+	// ************************************************
+	@Override
+	public long[] getTieSizes() {
+		return sumAll(tieSizes);
+	}
+
+	// ************************************************
+	// Method: getBoardSizes()
+	//
+	// Purpose: Returns the board sizes solved, smallest
+	// first.
+	// ************************************************
+	@Override
+	public int[] getBoardSizes() {
+		return snapshot().getBoardSizes();
+	}
+
+	// ************************************************
+	// Method: getMeanSolveMillis(int)
+	//
+	// Purpose: Returns the mean time of a solve on a
+	// board size, or 0 if there were none.
+	// ************************************************
+	@Override
+	public double getMeanSolveMillis(int boardSize) {
+		SizeTimes times = timesBySize.get(boardSize);
+		long count = times == null ? 0 : times.count.sum();
+
+		return count == 0 ? 0 : times.nanos.sum() / 1e6 / count;
+	}
+
+	// ****************************************************
+	// Class: SizeTimes
+	//
+	// Purpose: Solve count, total time and a histogram of
+	// solve times for one board size. Bucket i
+	// counts solves of 2^i up to 2^(i + 1)
+	// nanoseconds.
+	// ****************************************************
+	static final class SizeTimes {
+		private final LongAdder count = new LongAdder(); // Solves
+		private final LongAdder nanos = new LongAdder(); // Total time
+		private final LongAdder[] buckets = createAdders(TIME_BUCKETS); // Solves
+																		// by time
+
+		// ************************************************
+		// Method: record(long)
+		//
+		// Purpose: Adds a solve that took a number of
+		// nanoseconds.
+		// ************************************************
+		void record(long solveNanos) {
+			count.increment();
+			nanos.add(solveNanos);
+			buckets[63 - Long.numberOfLeadingZeros(Math.max(1, solveNanos))]
+					.increment();
+		}
+	}
+
+	// ****************************************************
+	// Class: Snapshot
+	//
+	// Purpose: The counts at one moment. It does not
+	// change as solves go on.
+	// ****************************************************
+	public static final class Snapshot {
+		private final long solves; // Solves recorded
+		private final long completeSolves; // Solves that visited every square
+		private final long moves; // Knight moves made
+		private final long solveNanos; // Time spent solving
+		private final long deadEnds; // Positions with no way on
+		private final long backtracks; // Moves undone
+		private final long nodesExpanded; // Squares visited by searches
+		private final long[] tieSizes; // Moves chosen from each size of tie
+		private final int[] boardSizes; // Board sizes solved, smallest first
+		private final long[] sizeCounts; // Solves of each board size
+		private final long[] sizeNanos; // Time spent on each board size
+		private final long[][] sizeBuckets; // Solve time histogram of each
+											// board size
+
+		// ************************************************
+		// Method: Snapshot(SolverMetrics)
+		//
+		// Purpose: Constructor. Reads every count.
+		// ************************************************
+		private Snapshot(SolverMetrics metrics) {
+			Integer[] sizes = metrics.timesBySize.keySet().toArray(
+					new Integer[0]);
+			SizeTimes times;
+
+			solves = metrics.solves.sum();
+			completeSolves = metrics.completeSolves.sum();
+			moves = metrics.moves.sum();
+			solveNanos = metrics.solveNanos.sum();
+			deadEnds = metrics.deadEnds.sum();
+			backtracks = metrics.backtracks.sum();
+			nodesExpanded = metrics.nodesExpanded.sum();
+			tieSizes = sumAll(metrics.tieSizes);
+
+			Arrays.sort(sizes);
+			boardSizes = new int[sizes.length];
+			sizeCounts = new long[sizes.length];
+			sizeNanos = new long[sizes.length];
+			sizeBuckets = new long[sizes.length][];
+
+			for (int index = 0; index < sizes.length; index++) {
+				times = metrics.timesBySize.get(sizes[index]);
+				boardSizes[index] = sizes[index];
+
+				if (times != null) {
+					sizeCounts[index] = times.count.sum();
+					sizeNanos[index] = times.nanos.sum();
+					sizeBuckets[index] = sumAll(times.buckets);
+				} else {
+					sizeBuckets[index] = new long[TIME_BUCKETS];
+				}
+			}
+		}
+
+		// ************************************************
+		// Method: getSolves()
+		//
+		// Purpose: Returns the number of solves recorded.
+		// ************************************************
+		public long getSolves() {
+			return solves;
+		}
+
+		// ************************************************
+		// Method: getCompleteSolves()
+		//
+		// Purpose: Returns the number of solves that
+		// visited every square.
+		// ************************************************
+		public long getCompleteSolves() {
+			return completeSolves;
+		}
+
+		// ************************************************
+		// Method: getMoves()
+		//
+		// Purpose: Returns the number of knight moves made.
+		// ************************************************
+		public long getMoves() {
+			return moves;
+		}
+
+		// ************************************************
+		// Method: getSolveNanos()
+		//
+		// Purpose: Returns the time spent solving.
+		// ************************************************
+		public long getSolveNanos() {
+			return solveNanos;
+		}
+
+		// ************************************************
+		// Method: getMovesPerSecond()
+		//
+		// Purpose: Returns the moves made per second spent
+		// solving.
+		// ************************************************
+		public double getMovesPerSecond() {
+			return solveNanos == 0 ? 0 : moves * 1e9 / solveNanos;
+		}
+
+		// ************************************************
+		// Method: getDeadEnds()
+		//
+		// Purpose: Returns the number of positions found
+		// with no way on.
+		// ************************************************
+		public long getDeadEnds() {
+			return deadEnds;
+		}
+
+		// ************************************************
+		// Method: getBacktracks()
+		//
+		// Purpose: Returns the number of moves undone.
+		// ************************************************
+		public long getBacktracks() {
+			return backtracks;
+		}
+
+		// ************************************************
+		// Method: getNodesExpanded()
+		//
+		// Purpose: Returns the number of squares visited
+		// by searches.
+		// ************************************************
+		public long getNodesExpanded() {
+			return nodesExpanded;
+		}
+
+		// ************************************************
+		// Method: getTieSizes()
+		//
+		// Purpose: Returns the number of moves chosen from
+		// a tie of each size, indexed by the size.
+		// ************************************************
+		public long[] getTieSizes() {
+			return tieSizes.clone();
+		}
+
+		// ************************************************
+		// Method: getBoardSizes()
+		//
+		// Purpose: Returns the board sizes solved, smallest
+		// first.
+		// ************************************************
+		public int[] getBoardSizes() {
+			return boardSizes.clone();
+		}
+
+		// ************************************************
+		// Method: getSolveCount(int)
+		//
+		// Purpose: Returns the number of solves of a board
+		// size.
+		// ************************************************
+		public long getSolveCount(int boardSize) {
+			int index = Arrays.binarySearch(boardSizes, boardSize);
+
+			return index < 0 ? 0 : sizeCounts[index];
+		}
+
+		// ************************************************
+		// Method: getMeanSolveNanos(int)
+		//
+		// Purpose: Returns the mean time of a solve of a
+		// board size, or 0 if there were none.
+		// ************************************************
+		public double getMeanSolveNanos(int boardSize) {
+			int index = Arrays.binarySearch(boardSizes, boardSize);
+
+			return index < 0 || sizeCounts[index] == 0 ? 0
+					: (double) sizeNanos[index] / sizeCounts[index];
+		}
+
+		// ************************************************
+		// Method: getSolveTimeHistogram(int)
+		//
+		// Purpose: Returns the solves of a board size by
+		// time: entry i counts solves of 2^i up to
+		// 2^(i + 1) nanoseconds.
+		// ************************************************
+		public long[] getSolveTimeHistogram(int boardSize) {
+			int index = Arrays.binarySearch(boardSizes, boardSize);
+
+			return index < 0 ? new long[TIME_BUCKETS] : sizeBuckets[index]
+					.clone();
+		}
+
+		// ************************************************
+		// Method: toString()
+		//
+		// Purpose: Returns the counts as text, one line per
+		// board size after the totals.
+		// ************************************************
+		@Override
+		public String toString() {
+			StringBuilder text = new StringBuilder();
+
+			text.append("solves ").append(solves).append(" complete ")
+					.append(completeSolves).append(" moves ").append(moves)
+					.append(String.format(" moves/s %.0f", getMovesPerSecond()))
+					.append(" dead-ends ").append(deadEnds)
+					.append(" backtracks ").append(backtracks)
+					.append(" nodes ").append(nodesExpanded).append('\n');
+			text.append("ties");
+
+			for (int size = 1; size < tieSizes.length; size++) {
+				text.append(' ').append(size).append(':')
+						.append(tieSizes[size]);
+			}
+
+			text.append('\n');
+
+			for (int index = 0; index < boardSizes.length; index++) {
+				text.append("size ").append(boardSizes[index])
+						.append(" solves ").append(sizeCounts[index])
+						.append(String.format(" mean-ms %.3f",
+								getMeanSolveNanos(boardSizes[index]) / 1e6))
+						.append('\n');
+			}
+
+			return text.toString();
+		}
+	}
+}
@@ -0,0 +1,37 @@
+//****************************************************
+//File: SolverMetricsMBean
+//
+//Purpose: The solver metrics as seen through JMX,
+//		   e.g. in JConsole. Counts are totals since
+//		   the last reset.
+//****************************************************
+
+package thesecretsquad.Chess;
+
+public interface SolverMetricsMBean {
+	boolean getEnabled();
+
+	void setEnabled(boolean enabled);
+
+	long getSolves();
+
+	long getCompleteSolves();
+
+	long getMoves();
+
+	double getMovesPerSecond();
+
+	long getDeadEnds();
+
+	long getBacktracks();
+
+	long getNodesExpanded();
+
+	long[] getTieSizes();
+
+	int[] getBoardSizes();
+
+	double getMeanSolveMillis(int boardSize);
+
+	void reset();
+}
@@ -94,4 +94,14 @@ public class Square {
 	public void decrAccessibility() {
 		accessibility--;
 	}
+
+	// ************************************************
+	// Method: incrAccessibility()
+	//
+	// Purpose: Increments the accessibility value of
+	// the square by 1.
+	// ************************************************
+	public void incrAccessibility() {
+		accessibility++;
+	}
 }
@@ -0,0 +1,25 @@
+//****************************************************
+//File: TieBreaker
+//
+//Purpose: Rules a knight uses to choose between
+//		   possible moves whose squares have the same
+//		   lowest accessibility.
+//****************************************************
+
+package thesecretsquad.Chess;
+
+public enum TieBreaker {
+	// Original rule: ties go to the first move in move number order, and
+	// a square with no onward moves is passed over whenever another move
+	// follows it. Kept as the default so existing tours do not change.
+	MOVE_ORDER,
+
+	// Ties go to the square furthest from the center of the board (Roth).
+	// Squares with no onward moves are only taken as the last move.
+	FURTHEST_FROM_CENTER,
+
+	// Ties go to the square whose unvisited neighbors have the lowest total
+	// accessibility (Pohl), then to the first in move number order. Squares
+	// with no onward moves are only taken as the last move.
+	SECONDARY_DEGREE
+}